@@ -0,0 +1,58 @@
+package rummy.features;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes features for a vector of hands at a time on the incubating Vector API, one hand per
+ * lane, see {@link FeatureKernel}. The same bit arithmetic as the scalar kernel, lanewise.
+ */
+final class VectorFeatureKernel extends FeatureKernel {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  @Override
+  public void compute(HandBatch hands, HandFeatures features) {
+    int size = hands.size();
+    features.resize(size);
+    int[][] suits = hands.suitMasks;
+    int bound = SPECIES.loopBound(size);
+    for (int i = 0; i < bound; i += SPECIES.length()) {
+      IntVector hearts = IntVector.fromArray(SPECIES, suits[0], i);
+      IntVector diamonds = IntVector.fromArray(SPECIES, suits[1], i);
+      IntVector spades = IntVector.fromArray(SPECIES, suits[2], i);
+      IntVector clubs = IntVector.fromArray(SPECIES, suits[3], i);
+      IntVector setFaces = hearts.and(diamonds).and(spades.or(clubs))
+          .or(spades.and(clubs).and(hearts.or(diamonds)));
+      setFaces.intoArray(features.setFaces, i);
+      IntVector notInSet = setFaces.not();
+      IntVector deadwood = IntVector.zero(SPECIES);
+      for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+        IntVector faces = IntVector.fromArray(SPECIES, suits[suit], i);
+        IntVector aceHigh = faces.or(faces.and(1).lanewise(VectorOperators.LSHL, ACE_HIGH_SHIFT));
+        IntVector starts = aceHigh
+            .and(aceHigh.lanewise(VectorOperators.LSHR, 1))
+            .and(aceHigh.lanewise(VectorOperators.LSHR, 2))
+            .and(RUN_STARTS);
+        starts.intoArray(features.runStarts[suit], i);
+        IntVector inRun = starts
+            .or(starts.lanewise(VectorOperators.LSHL, 1))
+            .or(starts.lanewise(VectorOperators.LSHL, 2));
+        inRun = inRun.or(inRun.lanewise(VectorOperators.LSHR, ACE_HIGH_SHIFT)).and(FACES);
+        IntVector rest = faces.and(inRun.not()).and(notInSet);
+        for (int face = 0; face < FACE_POINTS.length; face++) {
+          deadwood = deadwood.add(
+              rest.lanewise(VectorOperators.LSHR, face).and(1).mul(FACE_POINTS[face]));
+        }
+      }
+      deadwood.intoArray(features.deadwood, i);
+    }
+    computeScalar(hands, features, bound, size);
+  }
+
+  @Override
+  public String getName() {
+    return "vector";
+  }
+}
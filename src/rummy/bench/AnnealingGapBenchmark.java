@@ -0,0 +1,110 @@
+package rummy.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolverEngine;
+import rummy.parts.SolverEngine.Algorithm;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Measures how far annealing falls short of backtracking. Each hand of a corpus is solved by both,
+ * and the hands where annealing found a better, equal or worse hand are counted, along with the
+ * mean score lost on the worse hands and the latency of each. Annealing compares hands by points,
+ * then score, so it can beat the backtracking search, which keeps a new hand only if it improves
+ * the score without adding points.
+ *
+ * <pre>
+ * usage: AnnealingGapBenchmark [--hands N] [--hand-size N] [--decks N] [--budget-ms MS]
+ *                              [--iterations N] [--restarts N] [--seed N]
+ * </pre>
+ *
+ * Without a budget the reference is the exact search, with no pruning. Large hands need a budget,
+ * which then bounds both engines, so the reference may itself be short of optimal.
+ */
+public class AnnealingGapBenchmark {
+
+  public static void main(String args[]) {
+    int numHands = 500;
+    int handSize = 13;
+    int numDecks = 2;
+    long budgetMillis = 0;
+    int iterations = 20000;
+    int restarts = 4;
+    long seed = 1;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--hands": numHands = Integer.parseInt(args[++i]); break;
+        case "--hand-size": handSize = Integer.parseInt(args[++i]); break;
+        case "--decks": numDecks = Integer.parseInt(args[++i]); break;
+        case "--budget-ms": budgetMillis = Long.parseLong(args[++i]); break;
+        case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+        case "--restarts": restarts = Integer.parseInt(args[++i]); break;
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+
+    SolverEngine.Builder builder = SolverEngine.builder()
+        .handSize(handSize)
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .annealing(iterations, restarts);
+    if (budgetMillis > 0) {
+      builder.timeBudget(budgetMillis, TimeUnit.MILLISECONDS);
+    } else {
+      builder.pruningPolicy(PruningPolicy.EXACT);
+    }
+    SolverEngine engine = builder.build();
+    HandCorpus corpus = HandCorpus.random(numHands, handSize + 1, numDecks, numDecks, seed);
+
+    int better = 0;
+    int same = 0;
+    int worse = 0;
+    int worsePoints = 0;
+    long scoreLost = 0;
+    long[] referenceNanos = new long[numHands];
+    long[] annealingNanos = new long[numHands];
+    for (int i = 0; i < numHands; i++) {
+      long start = System.nanoTime();
+      Solution reference = engine.solve(
+          corpus.hands.get(i), corpus.faceJokers.get(i), true, Algorithm.BACKTRACKING);
+      referenceNanos[i] = System.nanoTime() - start;
+      start = System.nanoTime();
+      Solution annealed = engine.solve(
+          corpus.hands.get(i), corpus.faceJokers.get(i), true, Algorithm.ANNEALING);
+      annealingNanos[i] = System.nanoTime() - start;
+
+      if (annealed.points < reference.points
+          || (annealed.points == reference.points && annealed.score > reference.score)) {
+        better++;
+      } else if (annealed.points == reference.points && annealed.score == reference.score) {
+        same++;
+      } else {
+        worse++;
+        if (annealed.points == reference.points) {
+          scoreLost += reference.score - annealed.score;
+        } else {
+          worsePoints++;
+        }
+      }
+    }
+
+    System.out.println(String.format(
+        "hands: %d  better: %d  same: %d  worse: %d (%d on points)  mean score lost: %.1f",
+        numHands, better, same, worse, worsePoints, (double) scoreLost / Math.max(1, worse)));
+    System.out.println(String.format("backtracking p50/p99 us: %d/%d  annealing p50/p99 us: %d/%d",
+        percentileMicros(referenceNanos, 0.50),
+        percentileMicros(referenceNanos, 0.99),
+        percentileMicros(annealingNanos, 0.50),
+        percentileMicros(annealingNanos, 0.99)));
+  }
+
+  private static long percentileMicros(long[] nanos, double fraction) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return TimeUnit.NANOSECONDS.toMicros(
+        sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))]);
+  }
+}
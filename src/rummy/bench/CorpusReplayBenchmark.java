@@ -0,0 +1,180 @@
+package rummy.bench;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rummy.log.HandCapture;
+import rummy.log.HandCapture.CapturedHand;
+import rummy.parts.MoveOrdering;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+import rummy.scorer.ScorerWeights;
+
+/**
+ * Replays a corpus of captured hands, see {@link HandCapture}, against an engine configuration,
+ * so a change to the solver can be checked against the hands that were slow in play. Each hand is
+ * solved with the scorer and hand size it was captured with, and compared to its captured solve.
+ *
+ * <pre>
+ * usage: CorpusReplayBenchmark --corpus DIR [--repeat N] [--budget-ms MS]
+ *                              [--pruning exact|heuristic|aggressive]
+ *                              [--ordering type|value|constrained] [--top N]
+ *                              [--weights FILE]
+ * </pre>
+ *
+ * Prints the latency and node percentiles, how many hands got a different score or points than
+ * when captured, and the --top (default 10) slowest hands. Latencies are the fastest of --repeat
+ * (default 3) solves, after a warm up pass over the corpus. Hands captured with a complex scorer
+ * of other than the default weights need the --weights file of that scorer, which may be given
+ * once per scorer.
+ */
+public class CorpusReplayBenchmark {
+
+  public static void main(String args[]) throws IOException {
+    String corpusDir = null;
+    int repeat = 3;
+    long budgetMillis = 0;
+    PruningPolicy pruningPolicy = PruningPolicy.HEURISTIC;
+    MoveOrdering moveOrdering = MoveOrdering.BY_TYPE;
+    int top = 10;
+    Map<String, ScorerFactory> scorers = new HashMap<>();
+    for (ScorerFactory scorer : Arrays.asList(ScorerFactory.SIMPLE, ScorerFactory.COMPLEX)) {
+      scorers.put(scorer.getName(), scorer);
+    }
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--corpus": corpusDir = args[++i]; break;
+        case "--repeat": repeat = Integer.parseInt(args[++i]); break;
+        case "--budget-ms": budgetMillis = Long.parseLong(args[++i]); break;
+        case "--pruning": pruningPolicy = PruningPolicy.forName(args[++i]); break;
+        case "--ordering": moveOrdering = MoveOrdering.forName(args[++i]); break;
+        case "--top": top = Integer.parseInt(args[++i]); break;
+        case "--weights":
+          ScorerFactory weighted = ScorerFactory.complex(ScorerWeights.load(Paths.get(args[++i])));
+          scorers.put(weighted.getName(), weighted);
+          break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+    if (corpusDir == null) {
+      throw new IllegalArgumentException("--corpus is required");
+    }
+    final List<CapturedHand> hands = HandCapture.read(Paths.get(corpusDir));
+    int numHands = hands.size();
+    if (numHands == 0) {
+      System.out.println("empty corpus: " + corpusDir);
+      return;
+    }
+
+    // One engine per scorer and hand size in the corpus.
+    Map<String, SolverEngine> engines = new HashMap<>();
+    SolverEngine[] handEngines = new SolverEngine[numHands];
+    for (int i = 0; i < numHands; i++) {
+      CapturedHand hand = hands.get(i);
+      int handSize = hand.hand.cards.size() - (hand.extraCard ? 1 : 0);
+      String key = hand.scorer + "/" + handSize;
+      SolverEngine engine = engines.get(key);
+      if (engine == null) {
+        ScorerFactory scorer = scorers.get(hand.scorer);
+        if (scorer == null) {
+          throw new IllegalArgumentException(
+              "hands captured with scorer " + hand.scorer + ", pass its --weights");
+        }
+        SolverEngine.Builder builder = SolverEngine.builder()
+            .handSize(handSize)
+            .scorerFactory(scorer)
+            .pruningPolicy(pruningPolicy)
+            .moveOrdering(moveOrdering);
+        if (budgetMillis > 0) {
+          builder.timeBudget(budgetMillis, TimeUnit.MILLISECONDS);
+        }
+        engine = builder.build();
+        engines.put(key, engine);
+      }
+      handEngines[i] = engine;
+    }
+
+    for (int i = 0; i < numHands; i++) {
+      solve(handEngines[i], hands.get(i));
+    }
+    final long[] nanos = new long[numHands];
+    Arrays.fill(nanos, Long.MAX_VALUE);
+    long[] nodes = new long[numHands];
+    int differ = 0;
+    int truncated = 0;
+    for (int i = 0; i < numHands; i++) {
+      CapturedHand hand = hands.get(i);
+      Solution solution = null;
+      for (int r = 0; r < repeat; r++) {
+        long start = System.nanoTime();
+        solution = solve(handEngines[i], hand);
+        nanos[i] = Math.min(nanos[i], System.nanoTime() - start);
+      }
+      nodes[i] = solution.nodes;
+      if (solution.score != hand.score || solution.points != hand.points) {
+        differ++;
+      }
+      if (solution.truncated) {
+        truncated++;
+      }
+    }
+
+    long[] captured = new long[numHands];
+    for (int i = 0; i < numHands; i++) {
+      captured[i] = hands.get(i).latencyMicros;
+    }
+    long[] micros = new long[numHands];
+    for (int i = 0; i < numHands; i++) {
+      micros[i] = TimeUnit.NANOSECONDS.toMicros(nanos[i]);
+    }
+    System.out.println(String.format("hands: %d  differ: %d  truncated: %d",
+        numHands, differ, truncated));
+    printPercentiles("captured us", captured);
+    printPercentiles("replay us", micros);
+    printPercentiles("replay nodes", nodes);
+
+    List<Integer> slowest = new ArrayList<>(numHands);
+    for (int i = 0; i < numHands; i++) {
+      slowest.add(i);
+    }
+    Collections.sort(slowest, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer i1, Integer i2) {
+        return Long.compare(nanos[i2], nanos[i1]);
+      }
+    });
+    System.out.println("slowest:");
+    for (int i = 0; i < Math.min(top, numHands); i++) {
+      int idx = slowest.get(i);
+      CapturedHand hand = hands.get(idx);
+      System.out.println(String.format("  %8d us (captured %8d us)  nodes: %9d  %s %s joker: %s",
+          micros[idx], hand.latencyMicros, nodes[idx], hand.scorer, hand.hand.cards,
+          hand.faceJoker));
+    }
+  }
+
+  private static Solution solve(SolverEngine engine, CapturedHand hand) {
+    return engine.solve(hand.hand, hand.faceJoker, hand.extraCard);
+  }
+
+  private static void printPercentiles(String label, long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    System.out.println(String.format("%-13s p50: %9d  p90: %9d  p99: %9d  max: %9d",
+        label,
+        sorted[(int) (0.5 * (sorted.length - 1))],
+        sorted[(int) (0.9 * (sorted.length - 1))],
+        sorted[(int) (0.99 * (sorted.length - 1))],
+        sorted[sorted.length - 1]));
+  }
+}
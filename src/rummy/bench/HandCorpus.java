@@ -0,0 +1,48 @@
+package rummy.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Deck;
+import rummy.core.Hand;
+
+/**
+ * A reproducible set of hands for benchmarks. Each hand is dealt from its own freshly shuffled
+ * deck, seeded from the corpus seed and the hand's index, along with a face joker.
+ */
+public class HandCorpus {
+
+  public final List<Hand> hands;
+  public final List<Face> faceJokers;
+
+  private HandCorpus(List<Hand> hands, List<Face> faceJokers) {
+    this.hands = hands;
+    this.faceJokers = faceJokers;
+  }
+
+  public static HandCorpus random(
+      int numHands, int cardsPerHand, int numDecks, int numJokers, long seed) {
+    List<Hand> hands = new ArrayList<>(numHands);
+    List<Face> faceJokers = new ArrayList<>(numHands);
+    Deck deck = new Deck(numDecks, numJokers, seed);
+    for (int i = 0; i < numHands; i++) {
+      deck.reset();
+      deck.reseed(seed * 31 + i);
+      deck.shuffle();
+      Card faceJokerCard = deck.draw();
+      Hand hand = new Hand();
+      for (int j = 0; j < cardsPerHand; j++) {
+        hand.cards.add(deck.draw());
+      }
+      hands.add(hand);
+      faceJokers.add(faceJokerCard.face);
+    }
+    return new HandCorpus(hands, faceJokers);
+  }
+
+  public int size() {
+    return hands.size();
+  }
+}
@@ -0,0 +1,100 @@
+package rummy.bench;
+
+import rummy.features.FeatureKernel;
+import rummy.features.HandBatch;
+import rummy.features.HandFeatures;
+
+/**
+ * Compares the throughput of the scalar and best available {@link FeatureKernel}s over a seeded
+ * corpus of hands, and checks they compute identical features. Also reports how many hands have
+ * no natural run, which a solver may screen out of any search for a winning hand.
+ *
+ * <pre>
+ * usage: HandFeatureBenchmark [--hands N] [--hand-size N] [--decks N] [--seed N] [--rounds N]
+ * </pre>
+ *
+ * The vector kernel needs src-vector built and the JVM started with
+ * {@code --add-modules jdk.incubator.vector}, see {@link FeatureKernel}, without which the best
+ * kernel is the scalar one. Each kernel runs its rounds once to warm up
+ * before it is timed.
+ */
+public class HandFeatureBenchmark {
+
+  public static void main(String args[]) {
+    int numHands = 100000;
+    int handSize = 13;
+    int numDecks = 2;
+    long seed = 1;
+    int rounds = 50;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--hands": numHands = Integer.parseInt(args[++i]); break;
+        case "--hand-size": handSize = Integer.parseInt(args[++i]); break;
+        case "--decks": numDecks = Integer.parseInt(args[++i]); break;
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+
+    HandCorpus corpus = HandCorpus.random(numHands, handSize, numDecks, numDecks, seed);
+    HandBatch batch = new HandBatch(numHands);
+    for (int i = 0; i < numHands; i++) {
+      batch.add(corpus.hands.get(i), corpus.faceJokers.get(i));
+    }
+
+    HandFeatures scalar = new HandFeatures(numHands);
+    long scalarNanos = run(FeatureKernel.SCALAR, batch, scalar, rounds, 0);
+    FeatureKernel best = FeatureKernel.best();
+    if (best != FeatureKernel.SCALAR) {
+      HandFeatures vector = new HandFeatures(numHands);
+      run(best, batch, vector, rounds, scalarNanos);
+      int mismatches = 0;
+      for (int i = 0; i < numHands; i++) {
+        mismatches += same(scalar, vector, i) ? 0 : 1;
+      }
+      System.out.println("mismatched hands: " + mismatches);
+    } else {
+      System.out.println(
+          "vector kernel unavailable, build src-vector and add --add-modules jdk.incubator.vector");
+    }
+
+    int noNatural = 0;
+    long deadwood = 0;
+    for (int i = 0; i < numHands; i++) {
+      noNatural += scalar.hasNatural(i) ? 0 : 1;
+      deadwood += scalar.deadwood(i);
+    }
+    System.out.println(String.format("no natural run: %5.1f%%  mean deadwood: %5.1f",
+        100.0 * noNatural / numHands, (double) deadwood / numHands));
+  }
+
+  // Times the kernel over the batch and prints its throughput. Returns the total time taken.
+  private static long run(FeatureKernel kernel, HandBatch batch, HandFeatures features,
+      int rounds, long scalarNanos) {
+    for (int round = 0; round < rounds; round++) {
+      kernel.compute(batch, features);
+    }
+    long start = System.nanoTime();
+    for (int round = 0; round < rounds; round++) {
+      kernel.compute(batch, features);
+    }
+    long nanos = System.nanoTime() - start;
+    long hands = (long) rounds * batch.size();
+    System.out.println(String.format("%-8s  ns/hand: %6.2f  Mhands/s: %7.2f  speedup: %5.2fx",
+        kernel.getName(),
+        (double) nanos / hands,
+        hands * 1e3 / nanos,
+        scalarNanos == 0 ? 1.0 : (double) scalarNanos / nanos));
+    return nanos;
+  }
+
+  private static boolean same(HandFeatures a, HandFeatures b, int hand) {
+    for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+      if (a.runStarts(hand, suit) != b.runStarts(hand, suit)) {
+        return false;
+      }
+    }
+    return a.setFaces(hand) == b.setFaces(hand) && a.deadwood(hand) == b.deadwood(hand);
+  }
+}
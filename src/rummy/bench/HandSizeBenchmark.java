@@ -0,0 +1,109 @@
+package rummy.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Measures how solve latency and allocation grow with hand size. For each hand size, a corpus of
+ * hands holding an extra card (as when deciding a discard) is solved by a budgeted engine, and the
+ * latency percentiles, share of searches cut short by the budget, and bytes allocated per solve
+ * are printed.
+ *
+ * <pre>
+ * usage: HandSizeBenchmark [--hands N] [--budget-ms MS] [--sizes 13,15,17,19,21] [--seed N]
+ * </pre>
+ *
+ * Hands of up to 13 cards are dealt from 2 decks, larger ones from 3, each with as many jokers as
+ * decks.
+ */
+public class HandSizeBenchmark {
+
+  private static final int WARMUP_HANDS = 200;
+
+  public static void main(String args[]) {
+    int numHands = 2000;
+    long budgetMillis = 50;
+    String sizes = "13,15,17,19,21";
+    long seed = 1;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--hands": numHands = Integer.parseInt(args[++i]); break;
+        case "--budget-ms": budgetMillis = Long.parseLong(args[++i]); break;
+        case "--sizes": sizes = args[++i]; break;
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+
+    System.out.println(
+        "size  decks  p50_us  p90_us  p99_us  max_us  truncated  alloc_kb/solve  heap_mb");
+    for (String size : sizes.split(",")) {
+      run(Integer.parseInt(size.trim()), numHands, budgetMillis, seed);
+    }
+  }
+
+  private static void run(int handSize, int numHands, long budgetMillis, long seed) {
+    int numDecks = handSize > 13 ? 3 : 2;
+    SolverEngine engine = SolverEngine.builder()
+        .handSize(handSize)
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .timeBudget(budgetMillis, TimeUnit.MILLISECONDS)
+        .build();
+    HandCorpus corpus =
+        HandCorpus.random(WARMUP_HANDS + numHands, handSize + 1, numDecks, numDecks, seed);
+    for (int i = 0; i < WARMUP_HANDS; i++) {
+      engine.solve(corpus.hands.get(i), corpus.faceJokers.get(i));
+    }
+
+    long[] latencies = new long[numHands];
+    int truncated = 0;
+    long allocatedBefore = allocatedBytes();
+    for (int i = 0; i < numHands; i++) {
+      Hand hand = corpus.hands.get(WARMUP_HANDS + i);
+      long start = System.nanoTime();
+      Solution solution = engine.solve(hand, corpus.faceJokers.get(WARMUP_HANDS + i));
+      latencies[i] = System.nanoTime() - start;
+      if (solution.truncated) {
+        truncated++;
+      }
+    }
+    long allocated = allocatedBytes() - allocatedBefore;
+    Runtime runtime = Runtime.getRuntime();
+    long heapBytes = runtime.totalMemory() - runtime.freeMemory();
+
+    Arrays.sort(latencies);
+    System.out.println(String.format("%4d  %5d  %6d  %6d  %6d  %6d  %8.1f%%  %14d  %7d",
+        handSize,
+        numDecks,
+        micros(percentile(latencies, 0.50)),
+        micros(percentile(latencies, 0.90)),
+        micros(percentile(latencies, 0.99)),
+        micros(latencies[numHands - 1]),
+        100.0 * truncated / numHands,
+        allocated / numHands / 1024,
+        heapBytes / (1024 * 1024)));
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  // Bytes allocated by this thread so far, or 0 if the JVM cannot tell.
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,114 @@
+package rummy.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolverEngine;
+import rummy.parts.SolverEngine.Algorithm;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Compares the memoized dynamic programming search against backtracking, exact and pruned, at
+ * each hand size. Every hand of a seeded corpus is solved by each, and each reports its time and
+ * nodes per hand, its speedup over exact backtracking, and how many hands it found a better or
+ * worse hand for than exact backtracking, by points then score.
+ *
+ * <pre>
+ * usage: MemoizedSolverBenchmark [--hands N] [--hand-sizes N,N,..] [--decks N] [--seed N]
+ *                               [--scorer simple|complex]
+ * </pre>
+ *
+ * Each search solves the corpus once to warm up before it is timed.
+ */
+public class MemoizedSolverBenchmark {
+
+  public static void main(String args[]) {
+    int numHands = 200;
+    String handSizes = "13,17,21";
+    int numDecks = 2;
+    long seed = 1;
+    ScorerFactory scorerFactory = ScorerFactory.COMPLEX;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--hands": numHands = Integer.parseInt(args[++i]); break;
+        case "--hand-sizes": handSizes = args[++i]; break;
+        case "--decks": numDecks = Integer.parseInt(args[++i]); break;
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        case "--scorer": scorerFactory = ScorerFactory.forName(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+
+    for (String handSizeArg : handSizes.split(",")) {
+      int handSize = Integer.parseInt(handSizeArg.trim());
+      HandCorpus corpus = HandCorpus.random(numHands, handSize + 1, numDecks, numDecks, seed);
+      System.out.println("hand size " + handSize);
+      Solution[] exact = new Solution[numHands];
+      long exactNanos = run("exact", engine(handSize, scorerFactory, PruningPolicy.EXACT,
+          Algorithm.BACKTRACKING), corpus, exact, null, 0);
+      run("heuristic", engine(handSize, scorerFactory, PruningPolicy.HEURISTIC,
+          Algorithm.BACKTRACKING), corpus, new Solution[numHands], exact, exactNanos);
+      run("memoized", engine(handSize, scorerFactory, PruningPolicy.EXACT, Algorithm.MEMOIZED),
+          corpus, new Solution[numHands], exact, exactNanos);
+    }
+  }
+
+  private static SolverEngine engine(
+      int handSize, ScorerFactory scorerFactory, PruningPolicy pruningPolicy, Algorithm algorithm) {
+    return SolverEngine.builder()
+        .handSize(handSize)
+        .scorerFactory(scorerFactory)
+        .pruningPolicy(pruningPolicy)
+        .algorithm(algorithm)
+        .build();
+  }
+
+  // Times the engine over the corpus and prints how it compares to the exact solutions, if given.
+  // Returns the total time taken.
+  private static long run(String name, SolverEngine engine, HandCorpus corpus,
+      Solution[] solutions, Solution[] exact, long exactNanos) {
+    solveAll(engine, corpus, solutions);
+    long nanos = solveAll(engine, corpus, solutions);
+    int numHands = corpus.size();
+    long nodes = 0;
+    int better = 0;
+    int worse = 0;
+    for (int i = 0; i < numHands; i++) {
+      nodes += solutions[i].nodes;
+      if (exact != null) {
+        int compare = compare(solutions[i], exact[i]);
+        better += compare > 0 ? 1 : 0;
+        worse += compare < 0 ? 1 : 0;
+      }
+    }
+    System.out.println(String.format(
+        "  %-10s  us/hand: %7d  nodes/hand: %9d  speedup: %6.2fx  better: %5.1f%%  worse: %5.1f%%",
+        name,
+        TimeUnit.NANOSECONDS.toMicros(nanos / numHands),
+        nodes / numHands,
+        exact == null ? 1.0 : (double) exactNanos / nanos,
+        100.0 * better / numHands,
+        100.0 * worse / numHands));
+    return nanos;
+  }
+
+  // Positive if a is the better hand, by fewer points then more score. No hand is the worst.
+  private static int compare(Solution a, Solution b) {
+    if (a.parts == null || b.parts == null) {
+      return a.parts == null ? (b.parts == null ? 0 : -1) : 1;
+    }
+    if (a.points != b.points) {
+      return Integer.compare(b.points, a.points);
+    }
+    return Integer.compare(a.score, b.score);
+  }
+
+  private static long solveAll(SolverEngine engine, HandCorpus corpus, Solution[] solutions) {
+    long start = System.nanoTime();
+    for (int i = 0; i < corpus.size(); i++) {
+      solutions[i] = engine.solve(corpus.hands.get(i), corpus.faceJokers.get(i), true);
+    }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,229 @@
+package rummy.cli;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.metrics.MetricsRegistry;
+import rummy.metrics.PrometheusReporter;
+import rummy.parts.MoveOrdering;
+import rummy.parts.Part;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Bulk evaluates hands from a file or stdin, one hand per line in the {@link Card#toString()}
+ * notation (eg "A♥ 10♠ jk1"). Hands with one card more than the hand size (13 by default) are
+ * solved as holding an extra card to discard. Lines that fail to parse, hands of any other size
+ * and hands left unsolved are reported on stderr and skipped. Lines are solved in parallel, and
+ * each solution is written as soon as it finishes, so output order follows completion order; the
+ * line number identifies the hand.
+ *
+ * <p>Only a bounded number of lines are read ahead of the solvers, so memory use does not depend
+ * on the size of the input.
+ *
+ * <pre>
+ * usage: HandEvaluationMain [--in FILE] [--format csv|jsonl] [--scorer simple|complex]
+ *                           [--face-joker FACE] [--threads N] [--hand-size N] [--budget-ms MS]
+ *                           [--pruning exact|heuristic|aggressive]
+ *                           [--ordering type|value|constrained] [--metrics-port PORT]
+ * </pre>
+ *
+ * With --metrics-port, solver metrics are served in the Prometheus text format at /metrics on the
+ * given port while hands are being evaluated.
+ */
+public class HandEvaluationMain {
+
+  // Lines allowed to be read but not yet written, per solver thread.
+  private static final int IN_FLIGHT_PER_THREAD = 4;
+
+  private enum Format {
+    CSV,
+    JSONL
+  }
+
+  private final Format format;
+  // Shared by all solver threads.
+  private final SolverEngine engine;
+  private final Face faceJoker;
+  private final PrintWriter out;
+
+  private HandEvaluationMain(
+      Format format, SolverEngine engine, Face faceJoker, PrintWriter out) {
+    this.format = format;
+    this.engine = engine;
+    this.faceJoker = faceJoker;
+    this.out = out;
+  }
+
+  public static void main(String args[]) throws IOException, InterruptedException {
+    String inFile = null;
+    Format format = Format.CSV;
+    ScorerFactory scorerFactory = ScorerFactory.COMPLEX;
+    Face faceJoker = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int metricsPort = -1;
+    SolverEngine.Builder engine = SolverEngine.builder();
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--in": inFile = args[++i]; break;
+        case "--format": format = Format.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+        case "--scorer": scorerFactory = ScorerFactory.forName(args[++i]); break;
+        case "--face-joker": faceJoker = Face.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+        case "--threads": threads = Integer.parseInt(args[++i]); break;
+        case "--hand-size": engine.handSize(Integer.parseInt(args[++i])); break;
+        case "--budget-ms":
+          engine.timeBudget(Long.parseLong(args[++i]), TimeUnit.MILLISECONDS);
+          break;
+        case "--pruning": engine.pruningPolicy(PruningPolicy.forName(args[++i])); break;
+        case "--ordering": engine.moveOrdering(MoveOrdering.forName(args[++i])); break;
+        case "--metrics-port": metricsPort = Integer.parseInt(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+
+    InputStream in = (inFile != null) ? new FileInputStream(inFile) : System.in;
+    PrintWriter out =
+        new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), false);
+    PrometheusReporter reporter = null;
+    if (metricsPort >= 0) {
+      reporter = new PrometheusReporter(metricsPort);
+      reporter.start(MetricsRegistry.DEFAULT);
+    }
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      new HandEvaluationMain(format, engine.scorerFactory(scorerFactory).build(), faceJoker, out)
+          .run(reader, threads);
+    } finally {
+      if (reporter != null) {
+        reporter.close();
+      }
+    }
+  }
+
+  private void run(BufferedReader reader, int threads) throws IOException, InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    final Semaphore inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+    if (format == Format.CSV) {
+      out.println("line,points,score,winning,latency_us,parts,free");
+    }
+
+    String line;
+    long lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      final String handString = line.trim();
+      if (handString.isEmpty() || handString.startsWith("#")) {
+        continue;
+      }
+
+      // Blocks the reader once enough lines are queued up, keeping memory bounded.
+      inFlight.acquire();
+      final long handLineNumber = lineNumber;
+      pool.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            evaluate(handLineNumber, handString);
+          } finally {
+            inFlight.release();
+          }
+        }
+      });
+    }
+
+    pool.shutdown();
+    pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    out.flush();
+  }
+
+  private void evaluate(long lineNumber, String handString) {
+    Solution solution;
+    long start = System.nanoTime();
+    try {
+      Hand hand = Hand.parse(handString);
+      int handSize = engine.getHandSize();
+      if (hand.cards.size() != handSize && hand.cards.size() != handSize + 1) {
+        throw new IllegalArgumentException("expected " + handSize + " or " + (handSize + 1)
+            + " cards, got " + hand.cards.size());
+      }
+      solution = engine.solve(hand, faceJoker);
+      if (solution.parts == null) {
+        throw new IllegalStateException("no hand found");
+      }
+    } catch (RuntimeException e) {
+      System.err.println("line " + lineNumber + ": " + e.getMessage());
+      return;
+    }
+    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+    String record = (format == Format.CSV)
+        ? toCsv(lineNumber, solution, latencyMicros)
+        : toJson(lineNumber, solution, latencyMicros);
+    synchronized (out) {
+      out.println(record);
+    }
+  }
+
+  private static String toCsv(long lineNumber, Solution solution, long latencyMicros) {
+    StringBuilder parts = new StringBuilder();
+    for (Part part : solution.parts) {
+      if (parts.length() > 0) {
+        parts.append(" | ");
+      }
+      parts.append(part);
+    }
+    return lineNumber
+        + "," + solution.points
+        + "," + solution.score
+        + "," + solution.isWinning
+        + "," + latencyMicros
+        + ",\"" + parts + "\""
+        + ",\"" + cardsToString(solution.freeCards) + "\"";
+  }
+
+  private static String toJson(long lineNumber, Solution solution, long latencyMicros) {
+    StringBuilder parts = new StringBuilder();
+    for (Part part : solution.parts) {
+      if (parts.length() > 0) {
+        parts.append(",");
+      }
+      parts.append("{\"type\":\"").append(part.type.name())
+          .append("\",\"cards\":\"").append(cardsToString(part.cards)).append("\"}");
+    }
+    return "{\"line\":" + lineNumber
+        + ",\"points\":" + solution.points
+        + ",\"score\":" + solution.score
+        + ",\"winning\":" + solution.isWinning
+        + ",\"latency_us\":" + latencyMicros
+        + ",\"parts\":[" + parts + "]"
+        + ",\"free\":\"" + cardsToString(solution.freeCards) + "\"}";
+  }
+
+  private static String cardsToString(List<Card> cards) {
+    StringBuilder result = new StringBuilder();
+    for (Card card : cards) {
+      if (result.length() > 0) {
+        result.append(" ");
+      }
+      result.append(card);
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,249 @@
+package rummy.computer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.SplitMix64;
+import rummy.parts.Part;
+
+/**
+ * Tracks, from one player's point of view, how many copies of each card have not been seen yet,
+ * and so could still be drawn. Counts are kept per card value (suit * 13 + face) in a primitive
+ * array, with all printed jokers sharing one extra slot. Every update and query is constant time,
+ * except a reshuffle which returns the whole discard pile to the unseen cards.
+ *
+ * <p>Cards count as seen when they are dealt to or drawn by this player, revealed as the face
+ * joker, or discarded by anyone. A card picked up from the discard pile stays seen, and does not
+ * return to the deck on a reshuffle.
+ */
+public class CardTracker {
+
+  private static final int JOKER_IDX = 52;
+
+  private final int numDecks;
+  private final int numJokers;
+  // Copies of each card not yet seen, by value, plus jokers.
+  private final int[] unseen = new int[JOKER_IDX + 1];
+  // Copies of each card in the discard pile, which return to the deck on a reshuffle.
+  private final int[] discarded = new int[JOKER_IDX + 1];
+  // Copies of each card other players picked up, so are already seen when discarded again.
+  private final int[] pickedUpByOthers = new int[JOKER_IDX + 1];
+  private int totalUnseen;
+
+  private Face faceJoker;
+  // Unseen cards that act as jokers: printed jokers plus cards of the face joker's face.
+  private int wildUnseen;
+
+  public CardTracker(int numDecks, int numJokers) {
+    this.numDecks = numDecks;
+    this.numJokers = numJokers;
+    for (int value = 0; value < JOKER_IDX; value++) {
+      unseen[value] = numDecks;
+    }
+    unseen[JOKER_IDX] = numJokers;
+    totalUnseen = numDecks * 52 + numJokers;
+    wildUnseen = numJokers;
+  }
+
+  private static int index(Card card) {
+    return card.isJoker() ? JOKER_IDX : card.value;
+  }
+
+  private boolean isWild(int idx) {
+    return idx == JOKER_IDX || (faceJoker != null && idx % 13 == faceJoker.ordinal());
+  }
+
+  /** The face joker was revealed; the revealed card itself is out of play. */
+  public void onFaceJoker(Card card) {
+    if (card.face != Face.JOKER) {
+      faceJoker = card.face;
+      for (int suit = 0; suit < 4; suit++) {
+        wildUnseen += unseen[suit * 13 + faceJoker.ordinal()];
+      }
+    }
+    onSeen(card);
+  }
+
+  /** A card was dealt to or drawn by this player. */
+  public void onSeen(Card card) {
+    int idx = index(card);
+    unseen[idx]--;
+    totalUnseen--;
+    if (isWild(idx)) {
+      wildUnseen--;
+    }
+  }
+
+  public void onSeen(List<Card> cards) {
+    for (int i = 0; i < cards.size(); i++) {
+      onSeen(cards.get(i));
+    }
+  }
+
+  /** A player, maybe this one, discarded a card face up. */
+  public void onDiscard(Card card, boolean ownCard) {
+    int idx = index(card);
+    if (!ownCard) {
+      if (pickedUpByOthers[idx] > 0) {
+        pickedUpByOthers[idx]--;
+      } else {
+        onSeen(card);
+      }
+    }
+    discarded[idx]++;
+  }
+
+  /** A player, maybe this one, picked up the top discard. */
+  public void onPickup(Card card, boolean ownPickup) {
+    int idx = index(card);
+    discarded[idx]--;
+    if (!ownPickup) {
+      pickedUpByOthers[idx]++;
+    }
+  }
+
+  /**
+   * The discard pile, except for the current top card, was shuffled back into the deck. Those
+   * cards can be drawn again.
+   */
+  public void onReshuffle(Card top) {
+    if (top != null) {
+      discarded[index(top)]--;
+    }
+    for (int idx = 0; idx <= JOKER_IDX; idx++) {
+      unseen[idx] += discarded[idx];
+      totalUnseen += discarded[idx];
+      if (isWild(idx)) {
+        wildUnseen += discarded[idx];
+      }
+      discarded[idx] = 0;
+    }
+    if (top != null) {
+      discarded[index(top)]++;
+    }
+  }
+
+  public int unseen(Card card) {
+    return unseen[index(card)];
+  }
+
+  public int totalUnseen() {
+    return totalUnseen;
+  }
+
+  /**
+   * Samples up to count draws, without replacement, from the cards this player has not seen, each
+   * unseen copy equally likely. Those include the other players' hands, which the player can't
+   * tell apart from the deck. Each draw is a copy that none of the held cards is, nor an earlier
+   * draw, so it can be added to the player's hand.
+   */
+  public List<Card> sampleUnseen(int count, List<Card> held, SplitMix64 random) {
+    int[] left = unseen.clone();
+    int total = totalUnseen;
+    boolean[] taken = new boolean[Card.NUM_IDS];
+    for (int i = 0; i < held.size(); i++) {
+      taken[held.get(i).id()] = true;
+    }
+    List<Card> draws = new ArrayList<>(Math.min(count, total));
+    while (draws.size() < count && total > 0) {
+      int r = random.nextInt(total);
+      int idx = 0;
+      while (r >= left[idx]) {
+        r -= left[idx];
+        idx++;
+      }
+      left[idx]--;
+      total--;
+      Card card = freeCopy(idx, taken);
+      if (card != null) {
+        taken[card.id()] = true;
+        draws.add(card);
+      }
+    }
+    return draws;
+  }
+
+  // A copy of the card at the given index whose id is not taken, or null if the held cards were
+  // not all seen and so left none.
+  private Card freeCopy(int idx, boolean[] taken) {
+    int copies = idx == JOKER_IDX ? numJokers : numDecks;
+    for (int copy = 0; copy < copies; copy++) {
+      int id = idx == JOKER_IDX ? Card.MAX_DECKS * 52 + copy : copy * 52 + idx;
+      if (!taken[id]) {
+        return Card.fromId(id);
+      }
+    }
+    return null;
+  }
+
+  /** Probability the next draw is a copy of the given card. */
+  public double drawProbability(Card card) {
+    return probability(unseen[index(card)]);
+  }
+
+  /** Probability the next draw is a printed joker or a face joker. */
+  public double wildProbability() {
+    return probability(wildUnseen);
+  }
+
+  /**
+   * Probability the next draw completes the given part into a rummy or set. Complete parts return
+   * 1, singles return 0. A partial rummy completes with the card on either end (Q-K also with the
+   * ace), a partial set with its face in a missing suit, and either with any joker.
+   */
+  public double completionProbability(Part part) {
+    switch (part.type) {
+      case NATURAL_RUMMY:
+      case RUMMY:
+      case SET:
+        return 1;
+      case SINGLE:
+        return 0;
+      case PARTIAL_RUMMY: {
+        Card low = part.cards.get(0);
+        Card high = part.cards.get(1);
+        if (high.value < low.value) {
+          Card temp = low;
+          low = high;
+          high = temp;
+        }
+        int suitBase = low.suit.ordinal() * 13;
+        int count = wildUnseen;
+        if (low.face != Face.ACE) {
+          count += natural(suitBase + low.face.ordinal() - 1);
+        }
+        if (high.face != Face.KING) {
+          count += natural(suitBase + high.face.ordinal() + 1);
+        } else {
+          count += natural(suitBase + Face.ACE.ordinal());
+        }
+        return probability(count);
+      }
+      case PARTIAL_SET: {
+        int count = wildUnseen;
+        int face = part.cards.get(0).face.ordinal();
+        int suit1 = part.cards.get(0).suit.ordinal();
+        int suit2 = part.cards.get(1).suit.ordinal();
+        for (int suit = 0; suit < 4; suit++) {
+          if (suit != suit1 && suit != suit2) {
+            count += natural(suit * 13 + face);
+          }
+        }
+        return probability(count);
+      }
+      default:
+        throw new IllegalStateException("bad part type");
+    }
+  }
+
+  // Unseen copies of a card value that are not already counted as wild.
+  private int natural(int idx) {
+    return isWild(idx) ? 0 : unseen[idx];
+  }
+
+  private double probability(int count) {
+    return totalUnseen == 0 ? 0 : (double) count / totalUnseen;
+  }
+}
@@ -1,18 +1,20 @@
 package rummy.computer;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 import rummy.core.Card;
 import rummy.core.Card.Face;
 import rummy.core.Deck;
 import rummy.core.Hand;
+import rummy.jfr.DecisionEvent;
+import rummy.log.HandCapture;
 import rummy.parts.Part;
-import rummy.parts.PartsSolver;
 import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SolverEngine;
 import rummy.scorer.ScoreUtil;
 import rummy.scorer.ScorerFactory;
-import rummy.tokenizer.AggregateTokenizer;
-import rummy.tokenizer.PartsTokenizer;
+import rummy.scorer.ScorerWeights.Weight;
 
 /**
  * Represents a AI-controller player (eg computer or bot), than uses a back-tracking algorithm
@@ -25,19 +27,77 @@ public class Computer {
   int currentPoints = ScoreUtil.FULL_HAND_POINTS;
   final Face faceJoker;
   final ScorerFactory scorerFactory;
+  final SolverEngine engine;
+  // Picks up the discard if it raises the hand's score by this factor.
+  final double pickupThreshold;
+  // The most a discard that can only be a single can raise the score, see PickupFilter.
+  final int maxSingleGain;
+  RolloutEvaluator rollouts;
+  CardTracker tracker;
+  // Solution of the current hand, which the next decision can repair instead of solving anew.
+  Solution currentSolution;
+  boolean repair;
+  HandCapture capture;
 
   public Computer(Face faceJoker, ScorerFactory scorerFactory) {
+    this(faceJoker, SolverEngine.forScorer(scorerFactory));
+  }
+
+  /** Creates a computer that solves its hands with the given, possibly shared, engine. */
+  public Computer(Face faceJoker, SolverEngine engine) {
     this.faceJoker = faceJoker;
-    this.scorerFactory = scorerFactory;
+    this.engine = engine;
+    this.scorerFactory = engine.getScorerFactory();
+    this.pickupThreshold = scorerFactory.getWeights().get(Weight.PICKUP_THRESHOLD);
+    this.maxSingleGain = PickupFilter.maxSingleGain(scorerFactory.getWeights());
+  }
+
+  /**
+   * Makes pickup and discard decisions by Monte Carlo rollouts, whenever the deck is passed in.
+   * Without an evaluator (the default), decisions use the static rules.
+   */
+  public void setRolloutEvaluator(RolloutEvaluator rollouts) {
+    this.rollouts = rollouts;
+  }
+
+  /** Gives this computer a memory of which cards are still unseen. */
+  public void setCardTracker(CardTracker tracker) {
+    this.tracker = tracker;
+  }
+
+  public CardTracker getCardTracker() {
+    return tracker;
+  }
+
+  /**
+   * Solves each hand with a new card by repairing the current hand's solution, see
+   * {@link SolverEngine#repair}.
+   */
+  public void setSolutionRepair(boolean repair) {
+    this.repair = repair;
+  }
+
+  /** Captures the hands this computer was slow to solve, see {@link HandCapture}. */
+  public void setHandCapture(HandCapture capture) {
+    this.capture = capture;
   }
 
   public void drawNewHand(Deck deck) {
-    hand = new Hand();
-    for (int i = 0; i < 13; i++) {
-      hand.cards.add(deck.draw());
+    Hand newHand = new Hand();
+    for (int i = 0; i < engine.getHandSize(); i++) {
+      newHand.cards.add(deck.draw());
     }
+    dealHand(newHand);
+  }
 
+  /**
+   * Replaces this computer's hand, eg with a hand dealt elsewhere or one read back from a game
+   * log.
+   */
+  public void dealHand(Hand newHand) {
+    hand = new Hand(newHand);
     Solution solution = computeScore(hand, false);
+    currentSolution = solution;
     currentHandScore = solution.score;
     currentPoints = solution.points;
   }
@@ -52,10 +112,25 @@ public class Computer {
   }
 
   public PickupResult checkPickup(Card card) {
+    return checkPickup(card, null /* deck */);
+  }
+
+  // Decides by the static rule alone.
+  private PickupResult decidePickup(Card card) {
+    if (currentPoints > 0
+        && engine.isExact()
+        && !repair
+        && currentHandScore + maxSingleGain < currentHandScore * pickupThreshold
+        && !PickupFilter.canConnect(PickupFilter.handMask(hand), card, faceJoker)) {
+      // The card could only be a single, which can't raise the score as far as the threshold.
+      // That holds only against the optimal score of the current hand, which only exact solves
+      // find.
+      return new PickupResult(false, null);
+    }
     Hand newHand = new Hand(hand);
     newHand.cards.add(card);
-    Solution solution = computeScore(newHand, true);
-    boolean keepCard = solution.isWinning || solution.score >= currentHandScore * 1.15;
+    Solution solution = solveWithNewCard(newHand);
+    boolean keepCard = solution.isWinning || solution.score >= currentHandScore * pickupThreshold;
 
     if (keepCard) {
       return new PickupResult(true, formHand(solution));
@@ -64,16 +139,115 @@ public class Computer {
     }
   }
 
+  /**
+   * Like {@link #checkPickup(Card)}, but decides with rollouts over the cards this computer has not
+   * seen if a {@link RolloutEvaluator} and {@link CardTracker} are set.
+   */
+  public PickupResult checkPickup(Card card, Deck deck) {
+    DecisionEvent event = new DecisionEvent();
+    event.begin();
+    List<Card> cardsBefore = event.isEnabled() ? new ArrayList<>(hand.cards) : null;
+    PickupResult result = decidePickup(card, deck);
+    event.end();
+    if (event.shouldCommit()) {
+      cardsBefore.add(card);
+      event.setHand(cardsBefore, faceJoker);
+      event.setParts(currentParts());
+      event.setOutcome(result.keepCard
+          ? "picked up " + card + ", discarded " + result.freeCard
+          : "passed on " + card);
+      event.commit();
+    }
+    return result;
+  }
+
+  // Parts in the current hand's solution, or 0 if it has none.
+  private int currentParts() {
+    return currentSolution == null || currentSolution.parts == null
+        ? 0
+        : currentSolution.parts.size();
+  }
+
+  private PickupResult decidePickup(Card card, Deck deck) {
+    if (rollouts == null || deck == null) {
+      return decidePickup(card);
+    }
+    Hand newHand = new Hand(hand);
+    newHand.cards.add(card);
+    Solution solution = solve(newHand, true);
+    Boolean keepCard = rollouts.shouldTakeTop(this, solution, deck);
+    if (keepCard == null) {
+      return decidePickup(card);
+    } else if (keepCard) {
+      return new PickupResult(true, discard(newHand, solution, deck));
+    } else {
+      return new PickupResult(false, null);
+    }
+  }
+
   public Card drawAndDiscard(Card card) {
+    return drawAndDiscard(card, null /* deck */);
+  }
+
+  // Discards by the static rule alone.
+  private Card decideDiscard(Card card) {
     hand.cards.add(card);
-    Solution solution = computeScore(hand, true);
+    Solution solution = solveWithNewCard(hand);
     return formHand(solution);
   }
 
+  /**
+   * Like {@link #drawAndDiscard(Card)}, but chooses the discard with rollouts over the cards this
+   * computer has not seen if a {@link RolloutEvaluator} and {@link CardTracker} are set.
+   */
+  public Card drawAndDiscard(Card card, Deck deck) {
+    DecisionEvent event = new DecisionEvent();
+    event.begin();
+    List<Card> cardsBefore = event.isEnabled() ? new ArrayList<>(hand.cards) : null;
+    Card discard = decideDiscard(card, deck);
+    event.end();
+    if (event.shouldCommit()) {
+      cardsBefore.add(card);
+      event.setHand(cardsBefore, faceJoker);
+      event.setParts(currentParts());
+      event.setOutcome(
+          "drew " + card + ", " + (discard == null ? "declared" : "discarded " + discard));
+      event.commit();
+    }
+    return discard;
+  }
+
+  private Card decideDiscard(Card card, Deck deck) {
+    if (rollouts == null || deck == null) {
+      return decideDiscard(card);
+    }
+    hand.cards.add(card);
+    Solution solution = solve(hand, true);
+    return discard(new Hand(hand), solution, deck);
+  }
+
+  // Discards the card chosen by rollouts from a hand holding an extra card.
+  private Card discard(Hand fullHand, Solution solution, Deck deck) {
+    if (solution.isWinning) {
+      return formHand(solution);
+    }
+    Card discard = rollouts.chooseDiscard(this, fullHand, solution, deck);
+    if (discard == null || discard.equals(solution.freeCards.get(0))) {
+      return formHand(solution);
+    }
+    Hand keptHand = new Hand(fullHand);
+    keptHand.cards.remove(discard);
+    return formHand(solve(keptHand, false), discard);
+  }
+
   private Card formHand(Solution solution) {
+    return formHand(solution, solution.freeCards.get(0));
+  }
+
+  private Card formHand(Solution solution, Card freeCard) {
+    currentSolution = solution;
     currentHandScore = solution.score;
     currentPoints = solution.points;
-    Card freeCard = solution.freeCards.get(0);
     hand.cards.clear();
     for (Part part : solution.parts) {
       hand.cards.addAll(part.cards);
@@ -84,10 +258,37 @@ public class Computer {
     return freeCard;
   }
 
+  // Solves the current hand plus a new card, repairing the current solution if enabled.
+  private Solution solveWithNewCard(Hand fullHand) {
+    if (!repair) {
+      return computeScore(fullHand, true);
+    }
+    long start = System.nanoTime();
+    Solution solution = engine.repair(fullHand, faceJoker, true /* extraCard */, currentSolution);
+    offer(fullHand, true /* extraCard */, start, solution);
+    return solution;
+  }
+
+  // Solves through the rollout cache when there is one.
+  Solution solve(Hand hand, boolean extraCard) {
+    if (rollouts == null) {
+      return computeScore(hand, extraCard);
+    }
+    return rollouts.cache.get(hand, faceJoker, extraCard, engine, capture);
+  }
+
   public Solution computeScore(Hand hand, boolean extraCard) {
-    PartsTokenizer tokenizer = new AggregateTokenizer();
-    Set<Part> parts = tokenizer.tokenize(hand, faceJoker);
-    PartsSolver solver = new PartsSolver(parts, extraCard, scorerFactory);
-    return solver.findBestHand();
+    long start = System.nanoTime();
+    Solution solution = engine.solve(hand, faceJoker, extraCard);
+    offer(hand, extraCard, start, solution);
+    return solution;
+  }
+
+  // Captures the hand if its solve, started at the given time, was slow.
+  private void offer(Hand hand, boolean extraCard, long start, Solution solution) {
+    if (capture != null) {
+      capture.offer(
+          hand, faceJoker, extraCard, scorerFactory.getName(), System.nanoTime() - start, solution);
+    }
   }
 }
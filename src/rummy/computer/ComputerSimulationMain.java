@@ -1,76 +1,131 @@
 package rummy.computer;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
-import rummy.computer.Computer.PickupResult;
-import rummy.core.Card;
-import rummy.core.Card.Face;
+import rummy.log.GameEventWriter;
+import rummy.log.HandCapture;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolutionCache;
+import rummy.parts.SolverEngine;
 import rummy.scorer.ScorerFactory;
-import rummy.core.Deck;
 
 /**
  * Have a set of computers play a game of rummy against each other.
+ *
+ * <pre>
+ * usage: ComputerSimulationMain [--seed N] [--events DIR] [--quiet]
+ *                               [--rollouts SAMPLES] [--rollout-budget-ms MS]
+ *                               [--hand-size N] [--decks N] [--jokers N] [--solve-budget-ms MS]
+ *                               [--repair] [--pruning exact|heuristic|aggressive]
+ *                               [--capture DIR] [--capture-ms MS] [--capture-nodes N]
+ *                               [--streaming]
+ * </pre>
+ *
+ * With --events the game is appended to a binary event log, which {@link GameReplayer} can replay.
+ * With --quiet the text trace is not printed. With --rollouts the computers decide by Monte Carlo
+ * rollouts of the given number of sampled draws, see {@link RolloutEvaluator}. Larger variants, eg
+ * 21-card hands from 3 decks, should set --solve-budget-ms to bound each solve. With --repair the
+ * computers repair the previous turn's solution rather than solving each hand from scratch.
+ * --pruning picks how much the solvers prune, see {@link PruningPolicy}. With --capture the hands
+ * that took at least --capture-ms (default 50) or --capture-nodes search nodes to solve are saved
+ * to a corpus, which {@link rummy.bench.CorpusReplayBenchmark} replays. With --streaming the
+ * solvers tokenize lazily, skipping the partial parts of hands their rummys and sets already close.
  */
 public class ComputerSimulationMain {
 
-  public static void main(String args[]) {
+  public static void main(String args[]) throws IOException {
     int numComputers = 2;
     int numDecks = 2;
     int numJokers = 4;
 
-    Deck deck = new Deck(numDecks, numJokers);
-    deck.shuffle();
-    Face faceJoker = deck.draw().face;
-    System.out.println("Face joker: " + faceJoker);
+    long seed = System.nanoTime();
+    String eventsDir = null;
+    boolean quiet = false;
+    int rolloutSamples = 0;
+    long rolloutBudgetNanos = RolloutEvaluator.DEFAULT_BUDGET_NANOS;
+    int handSize = 0;
+    long solveBudgetMillis = 0;
+    boolean repair = false;
+    PruningPolicy pruningPolicy = null;
+    String captureDir = null;
+    long captureMillis = 50;
+    long captureNodes = Long.MAX_VALUE;
+    boolean streaming = false;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        case "--events": eventsDir = args[++i]; break;
+        case "--quiet": quiet = true; break;
+        case "--rollouts": rolloutSamples = Integer.parseInt(args[++i]); break;
+        case "--rollout-budget-ms":
+          rolloutBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args[++i]));
+          break;
+        case "--hand-size": handSize = Integer.parseInt(args[++i]); break;
+        case "--decks": numDecks = Integer.parseInt(args[++i]); break;
+        case "--jokers": numJokers = Integer.parseInt(args[++i]); break;
+        case "--solve-budget-ms": solveBudgetMillis = Long.parseLong(args[++i]); break;
+        case "--repair": repair = true; break;
+        case "--pruning": pruningPolicy = PruningPolicy.forName(args[++i]); break;
+        case "--capture": captureDir = args[++i]; break;
+        case "--capture-ms": captureMillis = Long.parseLong(args[++i]); break;
+        case "--capture-nodes": captureNodes = Long.parseLong(args[++i]); break;
+        case "--streaming": streaming = true; break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
 
-    List<Computer> computers = new ArrayList<>(numComputers);
+    List<ScorerFactory> players = new ArrayList<>(numComputers);
     for (int i = 0; i < numComputers; i++) {
-      Computer computer =
-          new Computer(faceJoker, i == 0 ? ScorerFactory.COMPLEX : ScorerFactory.SIMPLE);
-      computer.drawNewHand(deck);
-      computers.add(computer);
+      players.add(i == 0 ? ScorerFactory.COMPLEX : ScorerFactory.SIMPLE);
     }
 
-    Card top = deck.draw();
-    int turn = 1;
-    while (true) {
-      for (int i = 0; i < computers.size(); i++) {
-        if (deck.empty()) {
-          deck.reshuffleDiscardPile();
-          System.out.println("RESHUFFLING !!");
-        }
-
-        Computer computer = computers.get(i);
-        System.out.println(
-            "T" + turn++ + " Computer: " + (i + 1) + ": " + computer.hand + " top:" + top);
-
-        PickupResult pickupResult = computer.checkPickup(top);
-        if (pickupResult.keepCard) {
-          top = pickupResult.freeCard;
-          System.out.println("drew top, discared " + top);
-        } else {
-          deck.addToDiscard(top);
-          Card deckCard = deck.draw();
-          top = computer.drawAndDiscard(deckCard);
-          System.out.println("drew from deck " + deckCard + ", discarded " + top);
-        }
-
-        if (top == null) {
-          break;
-        }
+    Game game = new Game(numDecks, numJokers, seed, players);
+    if (!quiet) {
+      game.setTrace(System.out);
+    }
+    if (handSize > 0 || solveBudgetMillis > 0 || pruningPolicy != null || streaming) {
+      SolverEngine.Builder engine = SolverEngine.builder().streaming(streaming);
+      if (handSize > 0) {
+        engine.handSize(handSize);
       }
-      if (top == null) {
-        break;
+      if (solveBudgetMillis > 0) {
+        engine.timeBudget(solveBudgetMillis, TimeUnit.MILLISECONDS);
       }
+      if (pruningPolicy != null) {
+        engine.pruningPolicy(pruningPolicy);
+      }
+      game.setEngine(engine);
     }
-
-    System.out.println();
-    System.out.println("winner!");
-    for (int i = 0; i < computers.size() ; i++) {
-      Computer computer = computers.get(i);
-      System.out.println(
-          "computer " + (i + 1) + ": " + computer.hand + " " + computer.currentPoints);
+    if (repair) {
+      game.setSolutionRepair(true);
+    }
+    if (rolloutSamples > 0) {
+      game.setRolloutEvaluator(new RolloutEvaluator(
+          rolloutSamples, rolloutBudgetNanos, ForkJoinPool.commonPool(), new SolutionCache()));
+    }
+    HandCapture capture = null;
+    if (captureDir != null) {
+      capture = new HandCapture(
+          Paths.get(captureDir), TimeUnit.MILLISECONDS.toNanos(captureMillis), captureNodes);
+      game.setHandCapture(capture);
+    }
+    try {
+      if (eventsDir == null) {
+        game.play();
+        return;
+      }
+      try (GameEventWriter eventLog = new GameEventWriter(Paths.get(eventsDir))) {
+        game.setEventLog(eventLog).play();
+      }
+    } finally {
+      if (capture != null) {
+        capture.close();
+      }
     }
   }
 }
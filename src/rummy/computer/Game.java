@@ -0,0 +1,292 @@
+package rummy.computer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import rummy.computer.Computer.PickupResult;
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Deck;
+import rummy.log.GameEventType;
+import rummy.log.GameEventWriter;
+import rummy.log.HandCapture;
+import rummy.metrics.Histogram;
+import rummy.metrics.MetricsRegistry;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * A single game of rummy between computers, from the deal until one of them declares, or until an
+ * optional cap on the number of turns. Progress can be recorded to a binary {@link GameEventWriter}
+ * log, and/or traced as text.
+ */
+public class Game {
+
+  /** Seat recorded for the card the dealer turns over to start the discard pile. */
+  public static final int DEALER_SEAT = 255;
+
+  /** Winner of a game stopped by the turn cap. */
+  public static final int NO_WINNER = -1;
+
+  /** The outcome of a game. */
+  public static class Result {
+    /** Seat of the computer that declared, or NO_WINNER. */
+    public final int winner;
+    public final int turns;
+    public final int[] points;
+
+    Result(int winner, int turns, int[] points) {
+      this.winner = winner;
+      this.turns = turns;
+      this.points = points;
+    }
+  }
+
+  private final Deck deck;
+  private final int numDecks;
+  private final int numJokers;
+  private final long seed;
+  private final List<ScorerFactory> players;
+  private final List<SolverEngine> engines;
+  private GameEventWriter eventLog;
+  private PrintStream trace;
+  private RolloutEvaluator rollouts;
+  private boolean repair;
+  private MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+  private HandCapture capture;
+  private int maxTurns = Integer.MAX_VALUE;
+
+  final List<Computer> computers;
+
+  public Game(int numDecks, int numJokers, long seed, List<ScorerFactory> players) {
+    this(numDecks, numJokers, seed, players, defaultEngines(players));
+  }
+
+  private Game(
+      int numDecks,
+      int numJokers,
+      long seed,
+      List<ScorerFactory> players,
+      List<SolverEngine> engines) {
+    this.deck = new Deck(numDecks, numJokers, seed);
+    this.numDecks = numDecks;
+    this.numJokers = numJokers;
+    this.seed = seed;
+    this.players = players;
+    this.engines = engines;
+    this.computers = new ArrayList<>(players.size());
+  }
+
+  /**
+   * A game between computers solving with the given engines, one per seat. Engines may be shared
+   * between games, eg by a tuner playing many games with each of its candidate scorers.
+   */
+  public static Game withEngines(
+      int numDecks, int numJokers, long seed, List<SolverEngine> engines) {
+    List<ScorerFactory> players = new ArrayList<>(engines.size());
+    for (SolverEngine engine : engines) {
+      players.add(engine.getScorerFactory());
+    }
+    return new Game(numDecks, numJokers, seed, players, new ArrayList<>(engines));
+  }
+
+  private static List<SolverEngine> defaultEngines(List<ScorerFactory> players) {
+    List<SolverEngine> engines = new ArrayList<>(players.size());
+    for (ScorerFactory player : players) {
+      engines.add(SolverEngine.forScorer(player));
+    }
+    return engines;
+  }
+
+  /**
+   * Has every computer solve with the given engine's hand size, pruning and budget, keeping each
+   * player's own scorer. Eg a budgeted 21-card engine for the 3 deck variant.
+   */
+  public Game setEngine(SolverEngine.Builder engineBuilder) {
+    for (int i = 0; i < players.size(); i++) {
+      engines.set(i, engineBuilder.scorerFactory(players.get(i)).build());
+    }
+    return this;
+  }
+
+  /** Records every event of the game to the given log. */
+  public Game setEventLog(GameEventWriter eventLog) {
+    this.eventLog = eventLog;
+    return this;
+  }
+
+  /** Prints a human readable trace of the game to the given stream. */
+  public Game setTrace(PrintStream trace) {
+    this.trace = trace;
+    return this;
+  }
+
+  /** Has every computer make its decisions with Monte Carlo rollouts. */
+  public Game setRolloutEvaluator(RolloutEvaluator rollouts) {
+    this.rollouts = rollouts;
+    return this;
+  }
+
+  /** Has every computer repair its previous solution each turn, see Computer#setSolutionRepair. */
+  public Game setSolutionRepair(boolean repair) {
+    this.repair = repair;
+    return this;
+  }
+
+  /** Records each turn's decision time into the given registry, by default the shared one. */
+  public Game setMetrics(MetricsRegistry metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /** Has every computer capture the hands it was slow to solve into the given corpus. */
+  public Game setHandCapture(HandCapture capture) {
+    this.capture = capture;
+    return this;
+  }
+
+  /**
+   * Stops the game without a winner once the computers have taken the given number of turns in
+   * all, so that two computers that never declare can't hold up a match. Unbounded by default.
+   */
+  public Game setMaxTurns(int maxTurns) {
+    this.maxTurns = maxTurns;
+    return this;
+  }
+
+  public Result play() throws IOException {
+    deck.shuffle();
+    Card faceJokerCard = deck.draw();
+    Face faceJoker = faceJokerCard.face;
+    if (eventLog != null) {
+      eventLog.gameStart(players.size(), seed);
+      eventLog.faceJoker(faceJokerCard);
+    }
+    if (trace != null) {
+      trace("Face joker: " + faceJoker);
+    }
+
+    Histogram[] turnNanos = new Histogram[players.size()];
+    for (int i = 0; i < players.size(); i++) {
+      turnNanos[i] = metrics.timer(
+          "rummy_turn_seconds", "Time for a computer to decide a turn.",
+          "scorer", players.get(i).getName());
+      Computer computer = new Computer(faceJoker, engines.get(i));
+      computer.setRolloutEvaluator(rollouts);
+      computer.setSolutionRepair(repair);
+      computer.setHandCapture(capture);
+      computer.setCardTracker(new CardTracker(numDecks, numJokers));
+      computer.getCardTracker().onFaceJoker(faceJokerCard);
+      computer.drawNewHand(deck);
+      computer.getCardTracker().onSeen(computer.hand.cards);
+      computers.add(computer);
+      if (eventLog != null) {
+        eventLog.deal(i, computer.hand.cards);
+      }
+    }
+
+    Card top = deck.draw();
+    if (eventLog != null) {
+      eventLog.discard(DEALER_SEAT, top);
+    }
+    for (Computer computer : computers) {
+      computer.getCardTracker().onDiscard(top, false /* ownCard */);
+    }
+    int turn = 1;
+    while (true) {
+      for (int i = 0; i < computers.size(); i++) {
+        if (turn > maxTurns) {
+          return declare(NO_WINNER, turn - 1);
+        }
+        if (deck.empty()) {
+          deck.reshuffleDiscardPile();
+          if (eventLog != null) {
+            eventLog.reshuffle();
+          }
+          for (Computer other : computers) {
+            other.getCardTracker().onReshuffle(top);
+          }
+          trace("RESHUFFLING !!");
+        }
+
+        Computer computer = computers.get(i);
+        if (trace != null) {
+          trace("T" + turn + " Computer: " + (i + 1) + ": " + computer.hand + " top:" + top);
+        }
+        turn++;
+
+        long start = System.nanoTime();
+        PickupResult pickupResult = computer.checkPickup(top, deck);
+        long decisionNanos = System.nanoTime() - start;
+        if (eventLog != null) {
+          eventLog.pickupDecision(i, top, pickupResult.keepCard);
+        }
+        if (pickupResult.keepCard) {
+          if (eventLog != null) {
+            eventLog.draw(i, GameEventType.SOURCE_DISCARD_PILE, top);
+          }
+          for (Computer other : computers) {
+            other.getCardTracker().onPickup(top, other == computer);
+          }
+          top = pickupResult.freeCard;
+          if (trace != null) {
+            trace("drew top, discared " + top);
+          }
+        } else {
+          deck.addToDiscard(top);
+          Card deckCard = deck.draw();
+          if (eventLog != null) {
+            eventLog.draw(i, GameEventType.SOURCE_DECK, deckCard);
+          }
+          computer.getCardTracker().onSeen(deckCard);
+          start = System.nanoTime();
+          top = computer.drawAndDiscard(deckCard, deck);
+          decisionNanos += System.nanoTime() - start;
+          if (trace != null) {
+            trace("drew from deck " + deckCard + ", discarded " + top);
+          }
+        }
+
+        turnNanos[i].record(decisionNanos);
+
+        if (top == null) {
+          return declare(i, turn - 1);
+        }
+        if (eventLog != null) {
+          eventLog.discard(i, top);
+        }
+        for (Computer other : computers) {
+          other.getCardTracker().onDiscard(top, other == computer);
+        }
+      }
+    }
+  }
+
+  private Result declare(int winner, int turns) throws IOException {
+    int[] points = new int[computers.size()];
+    for (int i = 0; i < computers.size(); i++) {
+      points[i] = computers.get(i).currentPoints;
+    }
+    if (eventLog != null && winner != NO_WINNER) {
+      eventLog.declare(winner, points);
+    }
+
+    if (trace != null) {
+      trace.println();
+      trace.println(winner == NO_WINNER ? "no winner after " + turns + " turns" : "winner!");
+      for (int i = 0; i < computers.size(); i++) {
+        Computer computer = computers.get(i);
+        trace.println("computer " + (i + 1) + ": " + computer.hand + " " + computer.currentPoints);
+      }
+    }
+    return new Result(winner, turns, points);
+  }
+
+  private void trace(String line) {
+    if (trace != null) {
+      trace.println(line);
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package rummy.computer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rummy.computer.Computer.PickupResult;
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.log.GameEventReader;
+import rummy.log.GameEventType;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Replays a game event log, re-running every pickup and discard decision with fresh
+ * {@link Computer}s and comparing it with the decision that was logged. Useful both to check a new
+ * engine against recorded games, and to benchmark decision making without dealing or printing.
+ *
+ * <p>After a decision differs from the log, the seat's hand is reset to the logged hand before its
+ * next decision, so later decisions are still compared from the same position.
+ */
+public class GameReplayer {
+
+  /** Totals over a replayed log. */
+  public static class Report {
+    public int games;
+    public int decisions;
+    public int mismatches;
+    public long decisionNanos;
+
+    public double decisionsPerSecond() {
+      if (decisionNanos == 0) {
+        return 0;
+      }
+      return decisions * (double) TimeUnit.SECONDS.toNanos(1) / decisionNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "games: " + games
+          + " decisions: " + decisions
+          + " mismatches: " + mismatches
+          + String.format(" decisions/sec: %.1f", decisionsPerSecond());
+    }
+  }
+
+  private final List<ScorerFactory> players;
+  private final List<SolverEngine> engines;
+  private boolean repair;
+
+  // State of the game currently being replayed.
+  private Face faceJoker;
+  private final List<Computer> computers = new ArrayList<>();
+  private final List<Hand> loggedHands = new ArrayList<>();
+  private final List<Boolean> inSync = new ArrayList<>();
+  private boolean replayedKeep;
+  private Card replayedDiscard;
+
+  /**
+   * @param players the scorer used for each seat. If there are fewer scorers than seats, they are
+   *     reused in order.
+   */
+  public GameReplayer(List<ScorerFactory> players) {
+    this.players = players;
+    this.engines = new ArrayList<>(players.size());
+    for (ScorerFactory player : players) {
+      engines.add(SolverEngine.forScorer(player));
+    }
+  }
+
+  /**
+   * Solves with the given engine's hand size, pruning and budget, keeping each player's own scorer.
+   * Must match the engine the log was recorded with, see {@link Game#setEngine}.
+   */
+  public GameReplayer setEngine(SolverEngine.Builder engineBuilder) {
+    for (int i = 0; i < players.size(); i++) {
+      engines.set(i, engineBuilder.scorerFactory(players.get(i)).build());
+    }
+    return this;
+  }
+
+  /** Repairs solutions across turns, as the game being replayed did. */
+  public GameReplayer setSolutionRepair(boolean repair) {
+    this.repair = repair;
+    return this;
+  }
+
+  public Report replay(Path directory) throws IOException {
+    Report report = new Report();
+    try (GameEventReader reader = new GameEventReader(directory)) {
+      while (reader.next()) {
+        onEvent(reader, report);
+      }
+    }
+    return report;
+  }
+
+  private void onEvent(GameEventReader event, Report report) {
+    int seat = event.seat();
+    switch (event.type()) {
+      case GAME_START:
+        report.games++;
+        computers.clear();
+        loggedHands.clear();
+        inSync.clear();
+        break;
+      case FACE_JOKER:
+        faceJoker = event.card(0).face;
+        break;
+      case DEAL:
+        Hand hand = new Hand();
+        for (int i = 0; i < event.payloadBytes(); i++) {
+          hand.cards.add(event.card(i));
+        }
+        Computer computer = new Computer(faceJoker, engines.get(seat % engines.size()));
+        computer.setSolutionRepair(repair);
+        computer.dealHand(hand);
+        computers.add(computer);
+        loggedHands.add(hand);
+        inSync.add(true);
+        break;
+      case PICKUP_DECISION:
+        onPickupDecision(seat, event.card(0), event.payload(1) == 1, report);
+        break;
+      case DRAW:
+        loggedHands.get(seat).cards.add(event.card(1));
+        if (event.payload(0) == GameEventType.SOURCE_DECK && inSync.get(seat) && !replayedKeep) {
+          long start = System.nanoTime();
+          replayedDiscard = computers.get(seat).drawAndDiscard(event.card(1));
+          report.decisionNanos += System.nanoTime() - start;
+          report.decisions++;
+        }
+        break;
+      case DISCARD:
+        if (seat == Game.DEALER_SEAT) {
+          break;
+        }
+        Card discard = event.card(0);
+        loggedHands.get(seat).cards.remove(discard);
+        checkDiscard(seat, discard, report);
+        break;
+      case DECLARE:
+        checkDiscard(seat, null /* logged discard */, report);
+        break;
+      case RESHUFFLE:
+      case END:
+        break;
+      default:
+        throw new IllegalStateException("bad event type: " + event.type());
+    }
+  }
+
+  private void onPickupDecision(int seat, Card top, boolean loggedKeep, Report report) {
+    Computer computer = computers.get(seat);
+    if (!inSync.get(seat)) {
+      computer.dealHand(loggedHands.get(seat));
+      inSync.set(seat, true);
+    }
+
+    long start = System.nanoTime();
+    PickupResult result = computer.checkPickup(top);
+    report.decisionNanos += System.nanoTime() - start;
+    report.decisions++;
+
+    replayedKeep = result.keepCard;
+    replayedDiscard = result.freeCard;
+    if (result.keepCard != loggedKeep) {
+      report.mismatches++;
+      inSync.set(seat, false);
+    }
+  }
+
+  private void checkDiscard(int seat, Card loggedDiscard, Report report) {
+    if (!inSync.get(seat)) {
+      return;
+    }
+    boolean same = (replayedDiscard == null)
+        ? loggedDiscard == null
+        : replayedDiscard.equals(loggedDiscard);
+    if (!same) {
+      report.mismatches++;
+      inSync.set(seat, false);
+    }
+  }
+
+  /**
+   * Replays the log in DIR with the given scorers seated in order, and prints the {@link Report}.
+   *
+   * <pre>
+   * usage: GameReplayer DIR [simple|complex ...]
+   *                     [--hand-size N] [--solve-budget-ms MS] [--repair]
+   *                     [--pruning exact|heuristic|aggressive] [--streaming]
+   * </pre>
+   *
+   * The options must be those the game was played with by {@link ComputerSimulationMain}, or the
+   * replayed decisions differ. Its --decks and --jokers are not needed, as the log holds every
+   * card.
+   */
+  public static void main(String args[]) throws IOException {
+    List<ScorerFactory> players = new ArrayList<>();
+    int handSize = 0;
+    long solveBudgetMillis = 0;
+    boolean repair = false;
+    PruningPolicy pruningPolicy = null;
+    boolean streaming = false;
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "--hand-size": handSize = Integer.parseInt(args[++i]); break;
+        case "--solve-budget-ms": solveBudgetMillis = Long.parseLong(args[++i]); break;
+        case "--repair": repair = true; break;
+        case "--pruning": pruningPolicy = PruningPolicy.forName(args[++i]); break;
+        case "--streaming": streaming = true; break;
+        default: players.add(ScorerFactory.forName(args[i])); break;
+      }
+    }
+    if (players.isEmpty()) {
+      // Same seating as ComputerSimulationMain
+      players.add(ScorerFactory.COMPLEX);
+      players.add(ScorerFactory.SIMPLE);
+    }
+
+    GameReplayer replayer = new GameReplayer(players).setSolutionRepair(repair);
+    if (handSize > 0 || solveBudgetMillis > 0 || pruningPolicy != null || streaming) {
+      SolverEngine.Builder engine = SolverEngine.builder().streaming(streaming);
+      if (handSize > 0) {
+        engine.handSize(handSize);
+      }
+      if (solveBudgetMillis > 0) {
+        engine.timeBudget(solveBudgetMillis, TimeUnit.MILLISECONDS);
+      }
+      if (pruningPolicy != null) {
+        engine.pruningPolicy(pruningPolicy);
+      }
+      replayer.setEngine(engine);
+    }
+    System.out.println(replayer.replay(Paths.get(args[0])));
+  }
+}
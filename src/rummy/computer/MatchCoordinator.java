@@ -0,0 +1,265 @@
+package rummy.computer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Plays the pairs of a match in worker processes, each a {@link MatchWorker} talking the line
+ * protocol over its stdin and stdout. Sharding the games across JVMs lifts the cap one JVM's heap
+ * and collector put on a match, and the protocol only needs a byte stream, so a worker command
+ * may as well start the worker on another machine.
+ *
+ * <p>Pairs are queued as they are submitted, and each worker takes the next one whenever it has
+ * fewer than {@link #PIPELINE} in flight, so a fast worker takes on work a slow one would have
+ * had. If a worker exits or breaks the protocol, its pairs go back to the front of the queue and
+ * it is restarted, up to {@link #MAX_RESTARTS} times. The crash is charged to the pair it was
+ * playing, the first of those sent, and a pair charged {@link #MAX_ATTEMPTS} crashes fails; the
+ * pairs waiting behind it are requeued free. Every pair is dealt from its own seed, so its result
+ * does not depend on the worker that played it.
+ */
+class MatchCoordinator implements Closeable {
+
+  /** Pairs sent to a worker ahead of its results, so it never waits on the coordinator. */
+  static final int PIPELINE = 2;
+  static final int MAX_RESTARTS = 3;
+  static final int MAX_ATTEMPTS = 3;
+
+  private static final long QUIT_TIMEOUT_SECONDS = 10;
+
+  // A pair of games to play.
+  private static class Job {
+    final long seed;
+    final SettableFuture<MatchRunner.PairResult> future = SettableFuture.create();
+    int attempts;
+
+    Job(long seed) {
+      this.seed = seed;
+    }
+  }
+
+  // A worker process, and the pairs it has been sent but not answered, in the order sent.
+  private class Worker {
+    final int id;
+    final int restarts;
+    final Process process;
+    final Writer in;
+    final List<Job> inFlight = new ArrayList<>();
+    boolean alive = true;
+
+    Worker(int id, int restarts) throws IOException {
+      this.id = id;
+      this.restarts = restarts;
+      this.process = new ProcessBuilder(command)
+          .redirectError(ProcessBuilder.Redirect.INHERIT)
+          .start();
+      this.in = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+      for (String line : setup) {
+        in.write(line + "\n");
+      }
+      in.flush();
+      Thread reader = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          read(Worker.this);
+        }
+      }, "match-worker-" + id);
+      reader.setDaemon(true);
+      reader.start();
+    }
+  }
+
+  private final List<String> command;
+  private final List<String> setup;
+  private final Worker[] workers;
+  private final Deque<Job> queue = new ArrayDeque<>();
+  private boolean closed;
+
+  /**
+   * Starts the workers, each with the given command, and sends each the setup requests, eg the
+   * PLAYER and GAME lines of {@link MatchWorker}.
+   */
+  MatchCoordinator(List<String> command, int numWorkers, List<String> setup) throws IOException {
+    this.command = new ArrayList<>(command);
+    this.setup = new ArrayList<>(setup);
+    this.workers = new Worker[numWorkers];
+    synchronized (this) {
+      try {
+        for (int i = 0; i < numWorkers; i++) {
+          workers[i] = new Worker(i, 0);
+        }
+      } catch (IOException e) {
+        for (Worker worker : workers) {
+          if (worker != null) {
+            worker.process.destroyForcibly();
+          }
+        }
+        throw e;
+      }
+    }
+  }
+
+  /** Queues a pair of games dealt with the seed. The future fails if the pair can't be played. */
+  synchronized Future<MatchRunner.PairResult> submit(long seed) {
+    Job job = new Job(seed);
+    if (closed || liveWorkers() == 0) {
+      job.future.setException(new IOException("no workers left"));
+      return job.future;
+    }
+    queue.add(job);
+    dispatch();
+    return job.future;
+  }
+
+  // Sends queued pairs to every worker with room for them, skipping pairs no longer wanted.
+  private synchronized void dispatch() {
+    for (Worker worker : workers) {
+      while (worker.alive && worker.inFlight.size() < PIPELINE && !queue.isEmpty()) {
+        Job job = queue.remove();
+        if (job.future.isCancelled()) {
+          continue;
+        }
+        worker.inFlight.add(job);
+        try {
+          worker.in.write("PLAY " + job.seed + "\n");
+          worker.in.flush();
+        } catch (IOException e) {
+          crashed(worker);
+          return;
+        }
+      }
+    }
+  }
+
+  // Reads the worker's answers until it exits, or breaks the protocol.
+  private void read(Worker worker) {
+    try (BufferedReader out = new BufferedReader(
+        new InputStreamReader(worker.process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line = out.readLine();
+      if (!("READY " + MatchWorker.PROTOCOL_VERSION).equals(line)) {
+        throw new IOException("bad greeting: " + line);
+      }
+      while ((line = out.readLine()) != null) {
+        String[] words = line.trim().split(" +", 3);
+        if (words.length < 2 || !answered(worker, words[0], Long.parseLong(words[1]), line)) {
+          throw new IOException("bad answer: " + line);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // Treated as a crash, as is the worker exiting.
+    }
+    crashed(worker);
+  }
+
+  // Completes the pair a RESULT or ERROR answers. False if the worker wasn't playing it.
+  private synchronized boolean answered(Worker worker, String answer, long seed, String line) {
+    if (worker.inFlight.isEmpty() || worker.inFlight.get(0).seed != seed) {
+      return false;
+    }
+    Job job = worker.inFlight.get(0);
+    if (answer.equals("RESULT")) {
+      job.future.set(MatchWorker.pairFromResult(line.trim().split(" +")));
+    } else if (answer.equals("ERROR")) {
+      job.future.setException(new IOException("game failed on worker " + worker.id + ": " + line));
+    } else {
+      return false;
+    }
+    worker.inFlight.remove(0);
+    dispatch();
+    return true;
+  }
+
+  // Requeues a dead worker's pairs, and restarts it if it has restarts left. Only the pair it was
+  // playing is charged an attempt, as the others had not started.
+  private synchronized void crashed(Worker worker) {
+    if (!worker.alive || closed) {
+      return;
+    }
+    worker.alive = false;
+    worker.process.destroyForcibly();
+    for (int i = worker.inFlight.size() - 1; i >= 0; i--) {
+      Job job = worker.inFlight.get(i);
+      if (i == 0 && ++job.attempts >= MAX_ATTEMPTS) {
+        job.future.setException(
+            new IOException("pair " + job.seed + " failed " + job.attempts + " workers"));
+      } else {
+        queue.addFirst(job);
+      }
+    }
+    worker.inFlight.clear();
+    if (worker.restarts < MAX_RESTARTS) {
+      try {
+        workers[worker.id] = new Worker(worker.id, worker.restarts + 1);
+      } catch (IOException e) {
+        // Left dead.
+      }
+    }
+    if (liveWorkers() == 0) {
+      for (Job job : queue) {
+        job.future.setException(new IOException("no workers left"));
+      }
+      queue.clear();
+    }
+    dispatch();
+  }
+
+  private int liveWorkers() {
+    int live = 0;
+    for (Worker worker : workers) {
+      live += worker.alive ? 1 : 0;
+    }
+    return live;
+  }
+
+  /** Asks the workers to quit, and kills those that don't. Pairs not yet played are cancelled. */
+  @Override
+  public void close() {
+    List<Process> processes = new ArrayList<>();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (Job job : queue) {
+        job.future.cancel(false /* mayInterruptIfRunning */);
+      }
+      queue.clear();
+      for (Worker worker : workers) {
+        for (Job job : worker.inFlight) {
+          job.future.cancel(false /* mayInterruptIfRunning */);
+        }
+        if (worker.alive) {
+          try {
+            worker.in.write("QUIT\n");
+            worker.in.close();
+          } catch (IOException e) {
+            // Killed below.
+          }
+          processes.add(worker.process);
+        }
+      }
+    }
+    for (Process process : processes) {
+      try {
+        if (!process.waitFor(QUIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          process.destroyForcibly();
+        }
+      } catch (InterruptedException e) {
+        process.destroyForcibly();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,313 @@
+package rummy.computer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+import rummy.scorer.ScorerWeights;
+
+/**
+ * Plays a head-to-head match between two computers, until a sequential test decides which is the
+ * stronger, see {@link Sprt}. Games are played in pairs with the same seed, so both computers get
+ * the same deals, once from each seat. The pairs are played in parallel, but fed to the test in
+ * seed order, so a match with a given seed always plays out the same way.
+ *
+ * <p>Each pair is one observation of the test: either computer A's score over the two games (1 a
+ * win, 0.5 a game stopped by the turn cap, 0 a loss), or how many points fewer A ended the games
+ * with than B, on average. The test is symmetric: H1 is that A is better by the given margin, H0
+ * that B is.
+ *
+ * <pre>
+ * usage: MatchRunner [--a simple|complex] [--b simple|complex] [--metric wins|points]
+ *                    [--margin X] [--alpha P] [--beta P] [--max-pairs N] [--threads N]
+ *                    [--seed N] [--decks N] [--jokers N] [--max-turns N]
+ *                    [--a-weights FILE] [--b-weights FILE] [--workers N]
+ * </pre>
+ *
+ * By default complex plays simple on win rate, with a margin of 0.05 (a 55% win rate) and error
+ * rates of 5%. A --margin for points is in points per game. --a-weights and --b-weights make the
+ * player a complex scorer with the given {@link ScorerWeights}, eg from {@link WeightTuner}. With
+ * --workers the pairs are played in that many worker JVMs rather than in threads, see
+ * {@link MatchCoordinator}. Either way a match with a given seed plays out the same.
+ */
+public class MatchRunner {
+
+  /** What a pair of games is scored on. */
+  public enum Metric {
+    WINS,
+    POINTS
+  }
+
+  /** The outcome of a match. */
+  public static class Report {
+    public int pairs;
+    public int winsA;
+    public int winsB;
+    public int draws;
+    /** Sum of B's points minus A's points at the end of each game. */
+    public long pointsAhead;
+    public Sprt.Decision decision;
+    public double llr;
+
+    @Override
+    public String toString() {
+      int games = 2 * pairs;
+      return String.format(Locale.ROOT,
+          "pairs: %d  A wins: %d  B wins: %d  no winner: %d  A points ahead: %.2f/game  "
+              + "llr: %.2f  decision: %s",
+          pairs, winsA, winsB, draws, games == 0 ? 0.0 : (double) pointsAhead / games, llr,
+          decision == Sprt.Decision.ACCEPT_H1 ? "A is better"
+              : decision == Sprt.Decision.ACCEPT_H0 ? "B is better" : "undecided");
+    }
+  }
+
+  // The results of one pair of games, from A's side.
+  static class PairResult {
+    int wins;
+    int losses;
+    int draws;
+    int pointsAhead;
+
+    // A's score over the pair, from 0 to 1.
+    double score() {
+      return (wins + 0.5 * draws) / 2;
+    }
+
+    // Plays A against B with the same deal, A sitting first, then second.
+    static PairResult play(
+        SolverEngine engineA,
+        SolverEngine engineB,
+        int numDecks,
+        int numJokers,
+        int maxTurns,
+        long seed) throws IOException {
+      PairResult pair = new PairResult();
+      for (int seatA = 0; seatA < 2; seatA++) {
+        Game.Result result = Game.withEngines(numDecks, numJokers, seed,
+            seatA == 0 ? Arrays.asList(engineA, engineB) : Arrays.asList(engineB, engineA))
+            .setMaxTurns(maxTurns)
+            .play();
+        if (result.winner == Game.NO_WINNER) {
+          pair.draws++;
+        } else if (result.winner == seatA) {
+          pair.wins++;
+        } else {
+          pair.losses++;
+        }
+        pair.pointsAhead += result.points[1 - seatA] - result.points[seatA];
+      }
+      return pair;
+    }
+  }
+
+  private final ScorerFactory playerA;
+  private final ScorerFactory playerB;
+  private Metric metric = Metric.WINS;
+  private double margin = 0.05;
+  private double alpha = 0.05;
+  private double beta = 0.05;
+  private int maxPairs = 5000;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private long seed = 1;
+  private int numDecks = 2;
+  private int numJokers = 4;
+  private int maxTurns = 500;
+  private int workers = 0;
+
+  public MatchRunner(ScorerFactory playerA, ScorerFactory playerB) {
+    this.playerA = playerA;
+    this.playerB = playerB;
+  }
+
+  /** Scores each pair on the given metric, with the smallest difference worth detecting. */
+  public MatchRunner setMetric(Metric metric, double margin) {
+    this.metric = metric;
+    this.margin = margin;
+    return this;
+  }
+
+  /** The chances of wrongly deciding for A, and for B. */
+  public MatchRunner setErrorRates(double alpha, double beta) {
+    this.alpha = alpha;
+    this.beta = beta;
+    return this;
+  }
+
+  /** Stops the match undecided after this many pairs of games. */
+  public MatchRunner setMaxPairs(int maxPairs) {
+    this.maxPairs = maxPairs;
+    return this;
+  }
+
+  public MatchRunner setThreads(int threads) {
+    this.threads = threads;
+    return this;
+  }
+
+  /** Pair i of the match is dealt with seed + i. */
+  public MatchRunner setSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public MatchRunner setDecks(int numDecks, int numJokers) {
+    this.numDecks = numDecks;
+    this.numJokers = numJokers;
+    return this;
+  }
+
+  /** See {@link Game#setMaxTurns}. */
+  public MatchRunner setMaxTurns(int maxTurns) {
+    this.maxTurns = maxTurns;
+    return this;
+  }
+
+  /**
+   * Plays the pairs in this many worker processes, rather than in threads of this JVM, or in
+   * threads if 0.
+   */
+  public MatchRunner setWorkers(int workers) {
+    this.workers = workers;
+    return this;
+  }
+
+  public Report run() throws IOException {
+    Sprt sprt = metric == Metric.WINS
+        ? new Sprt(0.5 - margin, 0.5 + margin, alpha, beta)
+        : new Sprt(-margin, margin, alpha, beta);
+    Report report = new Report();
+    MatchCoordinator coordinator = workers > 0
+        ? new MatchCoordinator(MatchWorker.localCommand(), workers, Arrays.asList(
+            MatchWorker.playerLine('A', playerA),
+            MatchWorker.playerLine('B', playerB),
+            MatchWorker.gameLine(numDecks, numJokers, maxTurns)))
+        : null;
+    ExecutorService pool = coordinator == null ? Executors.newFixedThreadPool(threads) : null;
+    try {
+      // Keep a few pairs queued per thread or worker, ahead of the one the test is waiting on.
+      int queued = coordinator == null ? 2 * threads : 2 * MatchCoordinator.PIPELINE * workers;
+      Deque<Future<PairResult>> pending = new ArrayDeque<>();
+      int submitted = 0;
+      while (report.pairs < maxPairs) {
+        while (submitted < maxPairs && pending.size() < queued) {
+          pending.add(coordinator == null
+              ? pool.submit(playPair(seed + submitted))
+              : coordinator.submit(seed + submitted));
+          submitted++;
+        }
+        PairResult pair = pending.remove().get();
+        report.pairs++;
+        report.winsA += pair.wins;
+        report.winsB += pair.losses;
+        report.draws += pair.draws;
+        report.pointsAhead += pair.pointsAhead;
+        sprt.add(metric == Metric.WINS ? pair.score() : pair.pointsAhead / 2.0);
+        if (sprt.decision() != Sprt.Decision.CONTINUE) {
+          break;
+        }
+      }
+      for (Future<PairResult> future : pending) {
+        future.cancel(false /* mayInterruptIfRunning */);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("match interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("game failed", e.getCause());
+    } finally {
+      if (coordinator == null) {
+        pool.shutdown();
+      } else {
+        coordinator.close();
+      }
+    }
+    report.decision = sprt.decision();
+    report.llr = sprt.llr();
+    return report;
+  }
+
+  private Callable<PairResult> playPair(final long pairSeed) {
+    final SolverEngine engineA = SolverEngine.forScorer(playerA);
+    final SolverEngine engineB = SolverEngine.forScorer(playerB);
+    return new Callable<PairResult>() {
+      @Override
+      public PairResult call() throws IOException {
+        return PairResult.play(engineA, engineB, numDecks, numJokers, maxTurns, pairSeed);
+      }
+    };
+  }
+
+  public static void main(String args[]) throws IOException {
+    ScorerFactory playerA = ScorerFactory.COMPLEX;
+    ScorerFactory playerB = ScorerFactory.SIMPLE;
+    Metric metric = Metric.WINS;
+    double margin = Double.NaN;
+    double alpha = 0.05;
+    double beta = 0.05;
+    int maxPairs = 0;
+    int threads = 0;
+    long seed = 1;
+    int numDecks = 2;
+    int numJokers = 4;
+    int maxTurns = 0;
+    int workers = 0;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--a": playerA = ScorerFactory.forName(args[++i]); break;
+        case "--b": playerB = ScorerFactory.forName(args[++i]); break;
+        case "--metric": metric = Metric.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+        case "--margin": margin = Double.parseDouble(args[++i]); break;
+        case "--alpha": alpha = Double.parseDouble(args[++i]); break;
+        case "--beta": beta = Double.parseDouble(args[++i]); break;
+        case "--max-pairs": maxPairs = Integer.parseInt(args[++i]); break;
+        case "--threads": threads = Integer.parseInt(args[++i]); break;
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        case "--decks": numDecks = Integer.parseInt(args[++i]); break;
+        case "--jokers": numJokers = Integer.parseInt(args[++i]); break;
+        case "--max-turns": maxTurns = Integer.parseInt(args[++i]); break;
+        case "--a-weights":
+          playerA = ScorerFactory.complex(ScorerWeights.load(Paths.get(args[++i])));
+          break;
+        case "--b-weights":
+          playerB = ScorerFactory.complex(ScorerWeights.load(Paths.get(args[++i])));
+          break;
+        case "--workers": workers = Integer.parseInt(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+    if (Double.isNaN(margin)) {
+      margin = metric == Metric.WINS ? 0.05 : 2;
+    }
+
+    MatchRunner match = new MatchRunner(playerA, playerB)
+        .setMetric(metric, margin)
+        .setErrorRates(alpha, beta)
+        .setSeed(seed)
+        .setDecks(numDecks, numJokers)
+        .setWorkers(workers);
+    if (maxPairs > 0) {
+      match.setMaxPairs(maxPairs);
+    }
+    if (threads > 0) {
+      match.setThreads(threads);
+    }
+    if (maxTurns > 0) {
+      match.setMaxTurns(maxTurns);
+    }
+    long start = System.nanoTime();
+    Report report = match.run();
+    System.out.println("A: " + playerA.getName() + "  B: " + playerB.getName());
+    System.out.println(report);
+    System.out.println(String.format(Locale.ROOT, "%.1f s", (System.nanoTime() - start) / 1e9));
+  }
+}
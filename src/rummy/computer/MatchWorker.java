@@ -0,0 +1,166 @@
+package rummy.computer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+import rummy.scorer.ScorerWeights;
+import rummy.scorer.ScorerWeights.Weight;
+
+/**
+ * Plays pairs of games of a match for a {@link MatchCoordinator}, reading requests from stdin and
+ * writing results to stdout, one line each. The protocol is plain text, so the worker may run on
+ * any machine a byte stream reaches, eg behind ssh:
+ *
+ * <pre>
+ * worker:      READY 1
+ * coordinator: PLAYER A|B simple|complex [weight=value ..]
+ * coordinator: GAME decks jokers maxTurns
+ * coordinator: PLAY seed
+ * worker:      RESULT seed wins losses draws pointsAhead
+ * worker:      ERROR seed message
+ * coordinator: QUIT
+ * </pre>
+ *
+ * The worker greets with the protocol version. Both players and the game must be set before the
+ * first PLAY. Each PLAY is answered, in order, by a RESULT from A's side (see
+ * {@link MatchRunner}), or an ERROR if the games failed. The worker exits on QUIT or at the end of
+ * its input, and on a malformed line, which the coordinator treats as a crash.
+ */
+public class MatchWorker {
+
+  static final int PROTOCOL_VERSION = 1;
+
+  private final ScorerFactory[] players = new ScorerFactory[2];
+  private int numDecks;
+  private int numJokers;
+  private int maxTurns;
+
+  /** The request setting a player, see {@link #playerFromLine}. */
+  static String playerLine(char player, ScorerFactory scorerFactory) {
+    StringBuilder line = new StringBuilder("PLAYER ").append(player).append(' ');
+    if (scorerFactory.isSimple()) {
+      line.append(ScorerFactory.SIMPLE.getName());
+    } else {
+      line.append(ScorerFactory.COMPLEX.getName());
+      ScorerWeights weights = scorerFactory.getWeights();
+      for (Weight weight : Weight.values()) {
+        line.append(' ').append(weight.key()).append('=').append(weights.get(weight));
+      }
+    }
+    return line.toString();
+  }
+
+  static String gameLine(int numDecks, int numJokers, int maxTurns) {
+    return "GAME " + numDecks + " " + numJokers + " " + maxTurns;
+  }
+
+  static String resultLine(long seed, MatchRunner.PairResult pair) {
+    return "RESULT " + seed + " " + pair.wins + " " + pair.losses + " " + pair.draws + " "
+        + pair.pointsAhead;
+  }
+
+  /** The pair of a RESULT line, split into words. */
+  static MatchRunner.PairResult pairFromResult(String[] words) {
+    MatchRunner.PairResult pair = new MatchRunner.PairResult();
+    pair.wins = Integer.parseInt(words[2]);
+    pair.losses = Integer.parseInt(words[3]);
+    pair.draws = Integer.parseInt(words[4]);
+    pair.pointsAhead = Integer.parseInt(words[5]);
+    return pair;
+  }
+
+  private static ScorerFactory playerFromLine(String[] words) {
+    ScorerFactory scorerFactory = ScorerFactory.forName(words[2]);
+    if (words.length == 3) {
+      return scorerFactory;
+    }
+    double[] values = ScorerWeights.DEFAULT.toArray();
+    for (int i = 3; i < words.length; i++) {
+      int split = words[i].indexOf('=');
+      Weight weight = Weight.valueOf(words[i].substring(0, split).toUpperCase(Locale.ROOT));
+      values[weight.ordinal()] = Double.parseDouble(words[i].substring(split + 1));
+    }
+    return ScorerFactory.complex(ScorerWeights.of(values));
+  }
+
+  /** Answers requests from in until QUIT or the end of in. */
+  void serve(BufferedReader in, Writer out) throws IOException {
+    out.write("READY " + PROTOCOL_VERSION + "\n");
+    out.flush();
+    String line;
+    while ((line = in.readLine()) != null) {
+      String[] words = line.trim().split(" +");
+      switch (words[0]) {
+        case "PLAYER":
+          players[words[1].equals("A") ? 0 : 1] = playerFromLine(words);
+          break;
+        case "GAME":
+          numDecks = Integer.parseInt(words[1]);
+          numJokers = Integer.parseInt(words[2]);
+          maxTurns = Integer.parseInt(words[3]);
+          break;
+        case "PLAY":
+          out.write(play(Long.parseLong(words[1])) + "\n");
+          out.flush();
+          break;
+        case "QUIT":
+          return;
+        default:
+          throw new IOException("bad request: " + line);
+      }
+    }
+  }
+
+  private String play(long seed) {
+    if (players[0] == null || players[1] == null || numDecks == 0) {
+      return "ERROR " + seed + " players and game not set";
+    }
+    try {
+      return resultLine(seed, MatchRunner.PairResult.play(
+          SolverEngine.forScorer(players[0]),
+          SolverEngine.forScorer(players[1]),
+          numDecks,
+          numJokers,
+          maxTurns,
+          seed));
+    } catch (IOException | RuntimeException e) {
+      return "ERROR " + seed + " " + String.valueOf(e).replace('\n', ' ');
+    }
+  }
+
+  /**
+   * The command that starts a worker in a new JVM like this one, with the same JVM options, eg
+   * heap size and --add-modules.
+   */
+  static List<String> localCommand() {
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + "/bin/java");
+    for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      // Debugger and recording options would have every worker take the same port or file.
+      if (!argument.startsWith("-agentlib:jdwp") && !argument.startsWith("-Xrunjdwp")
+          && !argument.startsWith("-XX:StartFlightRecording")) {
+        command.add(argument);
+      }
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(MatchWorker.class.getName());
+    return command;
+  }
+
+  public static void main(String args[]) throws IOException {
+    new MatchWorker().serve(
+        new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+        new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+  }
+}
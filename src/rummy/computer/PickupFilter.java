@@ -0,0 +1,88 @@
+package rummy.computer;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.scorer.ScorerWeights;
+import rummy.scorer.ScorerWeights.Weight;
+
+/**
+ * Decides from card masks alone whether a card could join any part but a single in a hand, so a
+ * computer can pass on a discard without solving the hand with it.
+ *
+ * <p>A hand is a mask of the card values it holds (see {@link Card#value}), over all decks. A card
+ * could join a part only if it is a joker, or the hand holds a card of the same face, or of the
+ * same suit within two ranks (a rummy may bridge a gap of one with a joker, and Q-K-A wraps). The
+ * test is a single mask lookup, and is conservative: it passes every card that could join a part,
+ * and some that can not, eg a card two ranks from its neighbour without a joker to bridge them.
+ */
+class PickupFilter {
+
+  private static final int NUM_VALUES = 52;
+  private static final int NUM_FACES = 13;
+
+  // The values a card of each value could form a part with.
+  private static final long[] NEIGHBOURS = new long[NUM_VALUES];
+  static {
+    for (int value = 0; value < NUM_VALUES; value++) {
+      int suit = value / NUM_FACES;
+      int face = value % NUM_FACES;
+      long neighbours = 0;
+      for (int otherSuit = 0; otherSuit < NUM_VALUES / NUM_FACES; otherSuit++) {
+        neighbours |= 1L << (otherSuit * NUM_FACES + face);
+      }
+      for (int distance = -2; distance <= 2; distance++) {
+        int otherFace = face + distance;
+        if (otherFace < 0) {
+          // Only the ace has cards before it, the king and queen.
+          if (face != 0) {
+            continue;
+          }
+          otherFace += NUM_FACES;
+        } else if (otherFace >= NUM_FACES) {
+          // Only the ace comes after the king, and nothing after the ace.
+          if (otherFace != NUM_FACES) {
+            continue;
+          }
+          otherFace = 0;
+        }
+        neighbours |= 1L << (suit * NUM_FACES + otherFace);
+      }
+      NEIGHBOURS[value] = neighbours;
+    }
+  }
+
+  private PickupFilter() {}
+
+  /** The values of the hand's cards, less its jokers. */
+  static long handMask(Hand hand) {
+    long mask = 0;
+    for (Card card : hand.cards) {
+      if (!card.isJoker()) {
+        mask |= 1L << card.value;
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * The most a hand's score can rise by taking a card that can only be a single, under the given
+   * weights. The card is either left free, or held as a single in place of another card. Without
+   * that card the rest of the hand scores at most the hand's score less the card's own score as a
+   * single, so the rise is at most a single's points less the lowest a single can score.
+   */
+  static int maxSingleGain(ScorerWeights weights) {
+    long single = Math.round(weights.get(Weight.SINGLE));
+    long joker = Math.round(weights.get(Weight.JOKER));
+    long penalty = Math.round(weights.get(Weight.MULTIPLE_SINGLE_PENALTY));
+    return (int) (single - Math.min(single, joker) - Math.min(0, penalty));
+  }
+
+  /**
+   * Whether the card could join a part other than a single, in a hand with the given mask. Never
+   * false for a card that could.
+   */
+  static boolean canConnect(long handMask, Card card, Face faceJoker) {
+    return card.isJoker() || card.face == faceJoker || (handMask & NEIGHBOURS[card.value]) != 0;
+  }
+}
@@ -0,0 +1,191 @@
+package rummy.computer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import rummy.core.Card;
+import rummy.core.Deck;
+import rummy.core.Hand;
+import rummy.core.SplitMix64;
+import rummy.parts.Part;
+import rummy.parts.PartType;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SolutionCache;
+
+/**
+ * Monte Carlo decision maker for a {@link Computer}. Rather than judging a hand only by how well it
+ * solves now, each candidate action is judged by the expected score of the hand after sampled
+ * future draws. Draws are sampled from the cards the computer has not seen, as its
+ * {@link CardTracker} counts them, so it learns nothing from the order of the real deck or the
+ * other hands. Without a tracker the computer decides by its static rule.
+ *
+ * <p>The sampled hands are solved in parallel and through a shared {@link SolutionCache}, since the
+ * same hands recur across candidates, turns and games. Each decision has a time budget; samples
+ * that have not finished by then are dropped, and if none finished the computer falls back to its
+ * static rule.
+ */
+public class RolloutEvaluator {
+
+  public static final int DEFAULT_SAMPLES = 8;
+  public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+  private final int samples;
+  private final long budgetNanos;
+  private final ExecutorService pool;
+  final SolutionCache cache;
+
+  public RolloutEvaluator(
+      int samples, long budgetNanos, ExecutorService pool, SolutionCache cache) {
+    this.samples = samples;
+    this.budgetNanos = budgetNanos;
+    this.pool = pool;
+    this.cache = cache;
+  }
+
+  // Expected outcome of one candidate action, averaged over the samples that finished in time.
+  private static class Estimate {
+    long scoreSum;
+    long pointsSum;
+    int count;
+
+    double score() {
+      return (double) scoreSum / count;
+    }
+
+    double points() {
+      return (double) pointsSum / count;
+    }
+
+    boolean betterThan(Estimate other) {
+      if (score() != other.score()) {
+        return score() > other.score();
+      }
+      return points() < other.points();
+    }
+  }
+
+  /**
+   * Decides whether taking the top discard beats drawing blind from the deck, by comparing the
+   * solved hand with the top card against the expected solved hand over sampled deck draws.
+   * Returns null if no sample finished within the budget.
+   */
+  Boolean shouldTakeTop(Computer computer, Solution takeSolution, Deck deck) {
+    if (takeSolution.isWinning) {
+      return true;
+    }
+    long deadline = System.nanoTime() + budgetNanos;
+    List<Card> draws = sampleDraws(computer, computer.hand, deck);
+
+    List<Future<Solution>> futures = new ArrayList<>(draws.size());
+    for (Card draw : draws) {
+      futures.add(submit(computer, withCard(computer.hand, draw), deadline));
+    }
+    Estimate drawBlind = collect(futures, deadline);
+    if (drawBlind == null) {
+      return null;
+    }
+    return takeSolution.score >= drawBlind.score();
+  }
+
+  /**
+   * Chooses which card to discard from a hand holding an extra card. The candidates are the free
+   * card and the singles of the static solution; each is judged by the expected solved hand after
+   * one more sampled draw. Returns null if no candidate could be judged within the budget.
+   */
+  Card chooseDiscard(Computer computer, Hand fullHand, Solution staticSolution, Deck deck) {
+    Set<Card> candidates = new LinkedHashSet<>(staticSolution.freeCards);
+    for (Part part : staticSolution.parts) {
+      if (part.type == PartType.SINGLE) {
+        candidates.addAll(part.cards);
+      }
+    }
+    if (candidates.size() <= 1) {
+      return null;
+    }
+
+    long deadline = System.nanoTime() + budgetNanos;
+    List<Card> draws = sampleDraws(computer, fullHand, deck);
+    List<Card> candidateList = new ArrayList<>(candidates);
+    List<List<Future<Solution>>> futures = new ArrayList<>(candidateList.size());
+    for (Card candidate : candidateList) {
+      Hand keptHand = new Hand(fullHand);
+      keptHand.cards.remove(candidate);
+      List<Future<Solution>> candidateFutures = new ArrayList<>(draws.size());
+      for (Card draw : draws) {
+        candidateFutures.add(submit(computer, withCard(keptHand, draw), deadline));
+      }
+      futures.add(candidateFutures);
+    }
+
+    Card best = null;
+    Estimate bestEstimate = null;
+    for (int i = 0; i < candidateList.size(); i++) {
+      Estimate estimate = collect(futures.get(i), deadline);
+      if (estimate != null && (bestEstimate == null || estimate.betterThan(bestEstimate))) {
+        best = candidateList.get(i);
+        bestEstimate = estimate;
+      }
+    }
+    return best;
+  }
+
+  // Samples the next draws from the cards the computer, holding the given hand, has not seen. The
+  // deck only seeds the sampling, so decisions are reproducible given the deck's seed.
+  private List<Card> sampleDraws(Computer computer, Hand hand, Deck deck) {
+    if (computer.tracker == null) {
+      return new ArrayList<>();
+    }
+    return computer.tracker.sampleUnseen(
+        samples, hand.cards, new SplitMix64(deck.nextForkSeed()));
+  }
+
+  private static Hand withCard(Hand hand, Card card) {
+    Hand newHand = new Hand(hand);
+    newHand.cards.add(card);
+    return newHand;
+  }
+
+  private Future<Solution> submit(final Computer computer, final Hand hand, final long deadline) {
+    return pool.submit(new Callable<Solution>() {
+      @Override
+      public Solution call() {
+        // Skip samples that could no longer be used.
+        if (System.nanoTime() > deadline) {
+          return null;
+        }
+        return computer.solve(hand, true /* extraCard */);
+      }
+    });
+  }
+
+  private static Estimate collect(List<Future<Solution>> futures, long deadline) {
+    Estimate estimate = new Estimate();
+    for (Future<Solution> future : futures) {
+      try {
+        Solution solution =
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (solution != null) {
+          estimate.scoreSum += solution.score;
+          estimate.pointsSum += solution.points;
+          estimate.count++;
+        }
+      } catch (TimeoutException e) {
+        future.cancel(false);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.cancel(false);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("rollout failed", e.getCause());
+      }
+    }
+    return estimate.count > 0 ? estimate : null;
+  }
+}
@@ -0,0 +1,103 @@
+package rummy.computer;
+
+/**
+ * A sequential probability ratio test between two hypotheses on the mean of a series of
+ * observations: that it is {@code mean0}, or that it is {@code mean1}. Observations are added one
+ * at a time, and the test decides as soon as the evidence is strong enough for the given error
+ * rates, which usually takes far fewer observations than a test of fixed size.
+ *
+ * <p>This is the generalized SPRT, as used for engine testing in computer chess: the observations
+ * are taken to be normally distributed, with the variance estimated from the observations so far.
+ * So it works for any bounded observation, eg a win (1), draw (0.5) or loss (0), or a point
+ * differential.
+ */
+public class Sprt {
+
+  /** The state of the test. */
+  public enum Decision {
+    /** Not yet decided. */
+    CONTINUE,
+    /** The mean is mean0. */
+    ACCEPT_H0,
+    /** The mean is mean1. */
+    ACCEPT_H1
+  }
+
+  /** Observations needed before deciding, so the variance estimate means something. */
+  static final int MIN_OBSERVATIONS = 16;
+
+  private final double mean0;
+  private final double mean1;
+  private final double lowerBound;
+  private final double upperBound;
+  private long count;
+  private double sum;
+  private double sumSquares;
+
+  /**
+   * @param alpha the chance of accepting H1 when H0 is true
+   * @param beta the chance of accepting H0 when H1 is true
+   */
+  public Sprt(double mean0, double mean1, double alpha, double beta) {
+    if (mean0 == mean1 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+      throw new IllegalArgumentException("bad test: " + mean0 + " " + mean1 + " " + alpha + " "
+          + beta);
+    }
+    this.mean0 = mean0;
+    this.mean1 = mean1;
+    this.lowerBound = Math.log(beta / (1 - alpha));
+    this.upperBound = Math.log((1 - beta) / alpha);
+  }
+
+  public void add(double observation) {
+    count++;
+    sum += observation;
+    sumSquares += observation * observation;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public double mean() {
+    return count == 0 ? 0 : sum / count;
+  }
+
+  /** The log likelihood ratio of H1 over H0, given the observations so far. */
+  public double llr() {
+    if (count == 0) {
+      return 0;
+    }
+    double mean = sum / count;
+    double variance = sumSquares / count - mean * mean;
+    // (mean - mean0)^2 - (mean - mean1)^2, which has the sign of the better fitting hypothesis.
+    double fit = (mean1 - mean0) * (2 * mean - mean0 - mean1);
+    if (variance <= 0) {
+      // Every observation was the same.
+      return fit == 0 ? 0 : fit > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+    return count * fit / (2 * variance);
+  }
+
+  public double lowerBound() {
+    return lowerBound;
+  }
+
+  public double upperBound() {
+    return upperBound;
+  }
+
+  public Decision decision() {
+    if (count < MIN_OBSERVATIONS) {
+      return Decision.CONTINUE;
+    }
+    double llr = llr();
+    if (llr >= upperBound) {
+      return Decision.ACCEPT_H1;
+    }
+    if (llr <= lowerBound) {
+      return Decision.ACCEPT_H0;
+    }
+    return Decision.CONTINUE;
+  }
+}
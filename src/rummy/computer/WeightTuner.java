@@ -0,0 +1,359 @@
+package rummy.computer;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import rummy.computer.MatchRunner.PairResult;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+import rummy.scorer.ScorerWeights;
+import rummy.scorer.ScorerWeights.Weight;
+
+/**
+ * Tunes the {@link ScorerWeights} of the complex scorer by self-play against a baseline, with a
+ * successive halving search. Each generation perturbs the best weights so far into a bracket of
+ * candidates. The bracket plays rounds of paired games against the baseline, see
+ * {@link MatchRunner}; after each round the worse half is dropped, and the rest play twice as
+ * many more pairs. The last one standing seeds the next generation. Every candidate of a round
+ * plays the same deals, so they are compared on equal luck.
+ *
+ * <p>All games of a round are played in parallel, on a thread per core. Each candidate's engine is
+ * built once and shared by all its games, and the baseline's engine by every game of the run, so
+ * the per-thread solvers of each engine are reused from game to game.
+ *
+ * <p>The state is checkpointed to a file after every round, and a run started with an existing
+ * checkpoint resumes from it, against the baseline the checkpoint was played against.
+ *
+ * <pre>
+ * usage: WeightTuner --checkpoint FILE [--out FILE] [--baseline FILE] [--generations N]
+ *                    [--candidates N] [--pairs N] [--sigma X] [--threads N] [--seed N]
+ *                    [--decks N] [--jokers N] [--max-turns N]
+ * </pre>
+ *
+ * --pairs is the number of pairs each candidate plays in the first round (default 8), and --sigma
+ * the size of the perturbations as a fraction of each weight's range (default 0.1), which shrinks
+ * by a quarter each generation. The best weights are written to --out, or printed.
+ */
+public class WeightTuner {
+
+  private static final double SIGMA_DECAY = 0.75;
+
+  private static class Candidate {
+    final ScorerWeights weights;
+    final SolverEngine engine;
+    int pairs;
+    double scoreSum;
+
+    Candidate(ScorerWeights weights) {
+      this.weights = weights;
+      this.engine = SolverEngine.builder().scorerFactory(ScorerFactory.complex(weights)).build();
+    }
+
+    double score() {
+      return pairs == 0 ? 0 : scoreSum / pairs;
+    }
+  }
+
+  private static final Comparator<Candidate> BY_SCORE = new Comparator<Candidate>() {
+    @Override
+    public int compare(Candidate c1, Candidate c2) {
+      return Double.compare(c2.score(), c1.score());
+    }
+  };
+
+  private final Path checkpoint;
+  private ScorerWeights baseline = ScorerWeights.DEFAULT;
+  private int generations = 10;
+  private int numCandidates = 16;
+  private int initialPairs = 8;
+  private double initialSigma = 0.1;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private long seed = 1;
+  private int numDecks = 2;
+  private int numJokers = 4;
+  private int maxTurns = 500;
+
+  // The search state, as checkpointed.
+  private int generation;
+  private int round;
+  private double sigma;
+  private ScorerWeights center;
+  private List<Candidate> bracket;
+
+  public WeightTuner(Path checkpoint) {
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * The weights candidates play against, and that the first generation starts from. A resumed run
+   * keeps the baseline of its checkpoint instead, as the candidates' scores were played against it.
+   */
+  public WeightTuner setBaseline(ScorerWeights baseline) {
+    this.baseline = baseline;
+    return this;
+  }
+
+  public WeightTuner setGenerations(int generations) {
+    this.generations = generations;
+    return this;
+  }
+
+  /**
+   * @param numCandidates candidates per generation
+   * @param initialPairs pairs of games each candidate plays in the first round
+   * @param sigma size of the first generation's perturbations, as a fraction of weight ranges
+   */
+  public WeightTuner setBracket(int numCandidates, int initialPairs, double sigma) {
+    this.numCandidates = numCandidates;
+    this.initialPairs = initialPairs;
+    this.initialSigma = sigma;
+    return this;
+  }
+
+  public WeightTuner setThreads(int threads) {
+    this.threads = threads;
+    return this;
+  }
+
+  public WeightTuner setSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public WeightTuner setDecks(int numDecks, int numJokers) {
+    this.numDecks = numDecks;
+    this.numJokers = numJokers;
+    return this;
+  }
+
+  /** See {@link Game#setMaxTurns}. */
+  public WeightTuner setMaxTurns(int maxTurns) {
+    this.maxTurns = maxTurns;
+    return this;
+  }
+
+  /** Runs or resumes the search, and returns the best weights found. */
+  public ScorerWeights tune() throws IOException {
+    if (Files.exists(checkpoint)) {
+      readCheckpoint();
+      log("resumed against baseline " + baseline);
+    } else {
+      generation = 0;
+      sigma = initialSigma;
+      center = baseline;
+      newBracket();
+    }
+    SolverEngine baselineEngine =
+        SolverEngine.builder().scorerFactory(ScorerFactory.complex(baseline)).build();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      while (generation < generations) {
+        while (bracket.size() > 1) {
+          playRound(pool, baselineEngine, initialPairs << round);
+          Collections.sort(bracket, BY_SCORE);
+          bracket = new ArrayList<>(bracket.subList(0, (bracket.size() + 1) / 2));
+          round++;
+          log(String.format(Locale.ROOT, "best %.3f over %d pairs",
+              bracket.get(0).score(), bracket.get(0).pairs));
+          writeCheckpoint();
+        }
+        center = bracket.get(0).weights;
+        generation++;
+        sigma *= SIGMA_DECAY;
+        newBracket();
+        writeCheckpoint();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("tuning interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("game failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    return center;
+  }
+
+  // The center, and numCandidates - 1 perturbations of it, seeded by the generation.
+  private void newBracket() {
+    round = 0;
+    bracket = new ArrayList<>(numCandidates);
+    bracket.add(new Candidate(center));
+    Random random = new Random(seed * 31 + generation);
+    Weight[] weights = Weight.values();
+    for (int i = 1; i < numCandidates; i++) {
+      double[] values = center.toArray();
+      for (Weight weight : weights) {
+        double value = values[weight.ordinal()]
+            + sigma * (weight.max - weight.min) * random.nextGaussian();
+        values[weight.ordinal()] = Math.max(weight.min, Math.min(weight.max, value));
+      }
+      bracket.add(new Candidate(ScorerWeights.of(values)));
+    }
+  }
+
+  // Plays every candidate another numPairs pairs, on the same deals.
+  private void playRound(ExecutorService pool, final SolverEngine baselineEngine, int numPairs)
+      throws InterruptedException, ExecutionException {
+    List<Future<PairResult>> results = new ArrayList<>(bracket.size() * numPairs);
+    int firstPair = bracket.get(0).pairs;
+    for (final Candidate candidate : bracket) {
+      for (int i = 0; i < numPairs; i++) {
+        // Deals differ by generation, so no generation overfits the same games.
+        final long pairSeed = seed + generation * 1000003L + firstPair + i;
+        results.add(pool.submit(new Callable<PairResult>() {
+          @Override
+          public PairResult call() throws IOException {
+            return PairResult.play(
+                candidate.engine, baselineEngine, numDecks, numJokers, maxTurns, pairSeed);
+          }
+        }));
+      }
+    }
+    for (int c = 0; c < bracket.size(); c++) {
+      Candidate candidate = bracket.get(c);
+      for (int i = 0; i < numPairs; i++) {
+        candidate.scoreSum += results.get(c * numPairs + i).get().score();
+      }
+      candidate.pairs += numPairs;
+    }
+  }
+
+  private void writeCheckpoint() throws IOException {
+    Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      out.write("generation=" + generation + "\n");
+      out.write("round=" + round + "\n");
+      out.write("sigma=" + sigma + "\n");
+      out.write("candidates=" + bracket.size() + "\n");
+      writeWeights(out, "baseline.", baseline);
+      writeWeights(out, "center.", center);
+      for (int i = 0; i < bracket.size(); i++) {
+        Candidate candidate = bracket.get(i);
+        out.write("candidate." + i + ".pairs=" + candidate.pairs + "\n");
+        out.write("candidate." + i + ".score_sum=" + candidate.scoreSum + "\n");
+        writeWeights(out, "candidate." + i + ".", candidate.weights);
+      }
+    }
+    // Replaced in one step, so a run killed mid-write keeps the previous checkpoint.
+    Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeWeights(Writer out, String prefix, ScorerWeights weights)
+      throws IOException {
+    for (Weight weight : Weight.values()) {
+      out.write(prefix + weight.key() + "=" + weights.get(weight) + "\n");
+    }
+  }
+
+  private void readCheckpoint() throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    generation = Integer.parseInt(properties.getProperty("generation"));
+    round = Integer.parseInt(properties.getProperty("round"));
+    sigma = Double.parseDouble(properties.getProperty("sigma"));
+    baseline = readWeights(properties, "baseline.");
+    center = readWeights(properties, "center.");
+    int size = Integer.parseInt(properties.getProperty("candidates"));
+    bracket = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      String prefix = "candidate." + i + ".";
+      Candidate candidate = new Candidate(readWeights(properties, prefix));
+      candidate.pairs = Integer.parseInt(properties.getProperty(prefix + "pairs"));
+      candidate.scoreSum = Double.parseDouble(properties.getProperty(prefix + "score_sum"));
+      bracket.add(candidate);
+    }
+  }
+
+  private static ScorerWeights readWeights(Properties properties, String prefix) {
+    double[] values = new double[Weight.values().length];
+    for (Weight weight : Weight.values()) {
+      String value = properties.getProperty(prefix + weight.key());
+      values[weight.ordinal()] = value == null ? weight.defaultValue : Double.parseDouble(value);
+    }
+    return ScorerWeights.of(values);
+  }
+
+  private void log(String message) {
+    System.err.println(String.format(Locale.ROOT, "generation %d round %d, %d candidates: %s",
+        generation, round, bracket.size(), message));
+  }
+
+  public static void main(String args[]) throws IOException {
+    String checkpointFile = null;
+    String outFile = null;
+    ScorerWeights baseline = ScorerWeights.DEFAULT;
+    int generations = 10;
+    int numCandidates = 16;
+    int initialPairs = 8;
+    double sigma = 0.1;
+    int threads = 0;
+    long seed = 1;
+    int numDecks = 2;
+    int numJokers = 4;
+    int maxTurns = 0;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--checkpoint": checkpointFile = args[++i]; break;
+        case "--out": outFile = args[++i]; break;
+        case "--baseline": baseline = ScorerWeights.load(Paths.get(args[++i])); break;
+        case "--generations": generations = Integer.parseInt(args[++i]); break;
+        case "--candidates": numCandidates = Integer.parseInt(args[++i]); break;
+        case "--pairs": initialPairs = Integer.parseInt(args[++i]); break;
+        case "--sigma": sigma = Double.parseDouble(args[++i]); break;
+        case "--threads": threads = Integer.parseInt(args[++i]); break;
+        case "--seed": seed = Long.parseLong(args[++i]); break;
+        case "--decks": numDecks = Integer.parseInt(args[++i]); break;
+        case "--jokers": numJokers = Integer.parseInt(args[++i]); break;
+        case "--max-turns": maxTurns = Integer.parseInt(args[++i]); break;
+        default: throw new IllegalArgumentException("unknown argument: " + args[i]);
+      }
+    }
+    if (checkpointFile == null) {
+      throw new IllegalArgumentException("--checkpoint is required");
+    }
+
+    WeightTuner tuner = new WeightTuner(Paths.get(checkpointFile))
+        .setBaseline(baseline)
+        .setGenerations(generations)
+        .setBracket(numCandidates, initialPairs, sigma)
+        .setSeed(seed)
+        .setDecks(numDecks, numJokers);
+    if (threads > 0) {
+      tuner.setThreads(threads);
+    }
+    if (maxTurns > 0) {
+      tuner.setMaxTurns(maxTurns);
+    }
+    ScorerWeights best = tuner.tune();
+    if (outFile == null) {
+      best.write(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+      return;
+    }
+    try (Writer out = Files.newBufferedWriter(Paths.get(outFile), StandardCharsets.UTF_8)) {
+      best.write(out);
+    }
+  }
+}
@@ -45,6 +45,13 @@ public class Card {
         {ACE, TWO, THREE, FOUR, FIVE, SIX, SEVEN, EIGHT, NINE, TEN, JACK, QUEEN, KING};
   }
 
+  /** Number of decks, and of jokers, that can be told apart by {@link #id()}. */
+  public static final int MAX_DECKS = 4;
+  public static final int MAX_JOKERS = 48;
+
+  /** Number of distinct card ids, so an id always fits in a single unsigned byte. */
+  public static final int NUM_IDS = MAX_DECKS * 52 + MAX_JOKERS;
+
   public final Face face;
   public final Suit suit;
   public final int value;
@@ -71,6 +78,30 @@ public class Card {
     return jokerIdx > 0;
   }
 
+  /**
+   * A canonical id for this card, unique within a game of up to {@link #MAX_DECKS} decks and
+   * {@link #MAX_JOKERS} jokers. Normal cards map to deckIdx * 52 + value, jokers follow after all
+   * decks.
+   */
+  public int id() {
+    if (isJoker()) {
+      return MAX_DECKS * 52 + jokerIdx - 1;
+    }
+    return deckIdx * 52 + value;
+  }
+
+  /** Inverse of {@link #id()}. */
+  public static Card fromId(int id) {
+    if (id < 0 || id >= NUM_IDS) {
+      throw new IllegalArgumentException("bad card id: " + id);
+    }
+    if (id >= MAX_DECKS * 52) {
+      return new Card(id - MAX_DECKS * 52 + 1);
+    }
+    int value = id % 52;
+    return new Card(Face.FACES[value % 13], Suit.SUITS[value / 13], id / 52);
+  }
+
   public String toString() {
     if (isJoker()) {
       return "jk" + jokerIdx;
@@ -126,6 +157,8 @@ public class Card {
 
   @Override
   public int hashCode() {
-    return Objects.hash(face, suit, value, jokerIdx, deckIdx);
+    // Hash on ordinals rather than the enums themselves, whose identity hash codes change between
+    // runs. This keeps hash set iteration order, and so the solver's choices, reproducible.
+    return Objects.hash(face.ordinal(), suit.ordinal(), value, jokerIdx, deckIdx);
   }
 }
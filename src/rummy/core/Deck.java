@@ -1,70 +1,231 @@
 package rummy.core;
 
-import java.util.Random;
-import java.util.Stack;
+import java.util.Arrays;
 
 import rummy.core.Card.Face;
 import rummy.core.Card.Suit;
 
+/**
+ * The draw pile and discard pile of a game.
+ *
+ * <p>All cards live in one array which is always a permutation of the full deck, split into three
+ * regions: the undrawn cards (the top of the pile is the last one), the cards held by players, and
+ * the discard pile. Drawing, discarding and resetting only move region boundaries or swap pairs of
+ * cards, so a deck can be reused for game after game without allocating.
+ *
+ * <pre>
+ *   [0, numUndrawn)                              undrawn
+ *   [numUndrawn, cards.length - numDiscards)     held
+ *   [cards.length - numDiscards, cards.length)   discarded
+ * </pre>
+ */
 public class Deck {
 
-  private static final int NUM_SHUFFLE_SWAPS = 1000;
-
-  private final Random random;
-  private final Stack<Card> cards;
-  private final Stack<Card> discards;
+  private final Card[] cards;
+  // Index of each card in #cards, by card id.
+  private final int[] positions;
+  private final SplitMix64 random;
+  // Seeds forks, apart from #random so forking never moves this deck's own stream.
+  private final SplitMix64 forkSeeds;
+  private int numUndrawn;
+  private int numDiscards;
 
   /**
-   * Constructs a deck of 52-cards, one card of each face/suit pair.
+   * Constructs a deck of 52-cards per deck, one card of each face/suit pair, plus the jokers.
    */
-  public Deck(int numDecks, int numJokers, Integer seed) {
-    this.random = (seed != null) ? new Random(seed) : new Random();
-    this.cards = new Stack<>();
-    this.discards = new Stack<>();
+  public Deck(int numDecks, int numJokers, long seed) {
+    if (numDecks > Card.MAX_DECKS || numJokers > Card.MAX_JOKERS) {
+      throw new IllegalArgumentException("too many decks or jokers");
+    }
+    this.random = new SplitMix64(seed);
+    this.forkSeeds = new SplitMix64(SplitMix64.mix(seed));
+    this.cards = new Card[numDecks * 52 + numJokers];
+    this.positions = new int[Card.NUM_IDS];
+    int idx = 0;
     for (int i = 0; i < numDecks; i++){
       for (Suit suit : Suit.SUITS) {
         for (Face face: Face.FACES) {
-          cards.add(new Card(face, suit, i));
+          cards[idx++] = new Card(face, suit, i);
         }
       }
     }
     for (int i = 0; i < numJokers; i++) {
-      cards.add(new Card(1 + i));
+      cards[idx++] = new Card(1 + i);
     }
+    for (int i = 0; i < cards.length; i++) {
+      positions[cards[i].id()] = i;
+    }
+    reset();
+  }
+
+  public Deck(int numDecks, int numJokers, Integer seed) {
+    this(numDecks, numJokers, (seed != null) ? seed : System.nanoTime());
   }
 
   public Deck(int numDecks, int numJokers) {
     this(numDecks, numJokers, null /* seed */);
   }
 
+  // Copies the state of another deck, for forking.
+  private Deck(Deck other, long seed) {
+    this.cards = other.cards.clone();
+    this.positions = other.positions.clone();
+    this.random = new SplitMix64(seed);
+    this.forkSeeds = new SplitMix64(SplitMix64.mix(seed));
+    this.numUndrawn = other.numUndrawn;
+    this.numDiscards = other.numDiscards;
+  }
+
   public Card draw() {
-    return cards.pop();
+    return cards[--numUndrawn];
   }
 
   public boolean empty() {
-    return cards.empty();
+    return numUndrawn == 0;
+  }
+
+  /** Number of cards left to draw. */
+  public int size() {
+    return numUndrawn;
+  }
+
+  /** Returns the undrawn card at the given index; the next card drawn is at size() - 1. */
+  public Card peek(int idx) {
+    if (idx < 0 || idx >= numUndrawn) {
+      throw new IndexOutOfBoundsException("undrawn card index: " + idx);
+    }
+    return cards[idx];
   }
 
   public void addToDiscard(Card card) {
-    discards.add(card);
+    int pos = positions[card.id()];
+    int heldEnd = cards.length - numDiscards;
+    if (pos < numUndrawn || pos >= heldEnd || !cards[pos].equals(card)) {
+      throw new IllegalArgumentException("card is not held by a player: " + card);
+    }
+    swap(pos, heldEnd - 1);
+    numDiscards++;
   }
 
   public void reshuffleDiscardPile() {
-    while(!discards.isEmpty()) {
-      cards.add(discards.pop());
+    // Swap the discard pile down next to the undrawn cards, then fold it into them.
+    int discardStart = cards.length - numDiscards;
+    for (int i = 0; i < numDiscards; i++) {
+      swap(numUndrawn + i, discardStart + i);
     }
+    numUndrawn += numDiscards;
+    numDiscards = 0;
     shuffle();
   }
 
+  /** Unbiased Fisher-Yates shuffle of the undrawn cards. */
   public void shuffle() {
-    int numCards = cards.size();
-
-    for (int i = 0; i < NUM_SHUFFLE_SWAPS; i++) {
-      int c1idx = random.nextInt(numCards);
-      int c2idx = random.nextInt(numCards);
-      Card temp = cards.get(c1idx);
-      cards.set(c1idx, cards.get(c2idx));
-      cards.set(c2idx, temp);
+    for (int i = numUndrawn - 1; i > 0; i--) {
+      swap(i, random.nextInt(i + 1));
     }
   }
+
+  /**
+   * Returns every card to the draw pile, ready for the next game. Call {@link #shuffle()} before
+   * drawing.
+   */
+  public void reset() {
+    numUndrawn = cards.length;
+    numDiscards = 0;
+  }
+
+  /** Reseeds the random generator, eg to replay a game from its seed. */
+  public void reseed(long seed) {
+    random.setState(seed);
+    forkSeeds.setState(SplitMix64.mix(seed));
+  }
+
+  /**
+   * Returns an independent copy of this deck. The copy's seed comes from a stream of fork seeds
+   * derived from this deck's seed, so forking is deterministic given the seed and the number of
+   * earlier forks. Neither forking nor shuffling the copy (eg to sample unknown future draws)
+   * touches this deck's cards or random stream.
+   */
+  public Deck fork() {
+    return new Deck(this, nextForkSeed());
+  }
+
+  /** The next seed from the stream {@link #fork()} draws from, eg to sample without a fork. */
+  public long nextForkSeed() {
+    return forkSeeds.nextLong();
+  }
+
+  /**
+   * Overwrites the given deck, which must have the same cards, with a fork of this deck. Lets
+   * rollouts reuse one scratch deck instead of allocating a fork each time.
+   */
+  public void forkInto(Deck target) {
+    if (target.cards.length != cards.length) {
+      throw new IllegalArgumentException("decks have different cards");
+    }
+    System.arraycopy(cards, 0, target.cards, 0, cards.length);
+    System.arraycopy(positions, 0, target.positions, 0, positions.length);
+    target.numUndrawn = numUndrawn;
+    target.numDiscards = numDiscards;
+    long seed = forkSeeds.nextLong();
+    target.random.setState(seed);
+    target.forkSeeds.setState(SplitMix64.mix(seed));
+  }
+
+  /** Saved state of a deck, see {@link #save(Snapshot)}. */
+  public static class Snapshot {
+    private final Card[] cards;
+    private final int[] positions;
+    private int numUndrawn;
+    private int numDiscards;
+    private long randomState;
+    private long forkSeedsState;
+
+    private Snapshot(int numCards) {
+      this.cards = new Card[numCards];
+      this.positions = new int[Card.NUM_IDS];
+    }
+  }
+
+  /** Allocates a snapshot that can hold this deck's state. */
+  public Snapshot newSnapshot() {
+    return new Snapshot(cards.length);
+  }
+
+  /** Saves the whole state of this deck, including its random generator, into a snapshot. */
+  public void save(Snapshot snapshot) {
+    System.arraycopy(cards, 0, snapshot.cards, 0, cards.length);
+    System.arraycopy(positions, 0, snapshot.positions, 0, positions.length);
+    snapshot.numUndrawn = numUndrawn;
+    snapshot.numDiscards = numDiscards;
+    snapshot.randomState = random.getState();
+    snapshot.forkSeedsState = forkSeeds.getState();
+  }
+
+  /** Restores a state saved by {@link #save(Snapshot)}. */
+  public void restore(Snapshot snapshot) {
+    if (snapshot.cards.length != cards.length) {
+      throw new IllegalArgumentException("snapshot is of a different deck");
+    }
+    System.arraycopy(snapshot.cards, 0, cards, 0, cards.length);
+    System.arraycopy(snapshot.positions, 0, positions, 0, positions.length);
+    numUndrawn = snapshot.numUndrawn;
+    numDiscards = snapshot.numDiscards;
+    random.setState(snapshot.randomState);
+    forkSeeds.setState(snapshot.forkSeedsState);
+  }
+
+  @Override
+  public String toString() {
+    return "undrawn: " + Arrays.toString(Arrays.copyOfRange(cards, 0, numUndrawn))
+        + " discards: " + numDiscards;
+  }
+
+  private void swap(int i, int j) {
+    Card temp = cards[i];
+    cards[i] = cards[j];
+    cards[j] = temp;
+    positions[cards[i].id()] = i;
+    positions[cards[j].id()] = j;
+  }
 }
@@ -1,6 +1,11 @@
 package rummy.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
 
 /**
  * A hand is a holder of cards. Normally consists of 13 cards, and will have an additional card
@@ -30,4 +35,73 @@ public class Hand {
     }
     return result;
   }
+
+  /**
+   * Parses a hand written in the {@link Card#toString()} notation, eg "A\u2665 10\u2660 jk1".
+   * Suits may also be given as the letters H, D, S and C. Identical cards are assigned increasing
+   * deck indexes, and jokers written as a bare "jk" are numbered in order. Throws
+   * IllegalArgumentException for more than {@link Card#MAX_DECKS} copies of a card, or a joker
+   * past {@link Card#MAX_JOKERS}, which would have no {@link Card#id()} of their own.
+   */
+  public static Hand parse(String in) {
+    Hand hand = new Hand();
+    Map<Integer, Integer> cardCount = new HashMap<>();
+    int nextJokerIdx = 1;
+    for (String token : in.trim().split("\\s+")) {
+      if (token.isEmpty()) {
+        continue;
+      }
+      if (token.startsWith("jk")) {
+        int jokerIdx = token.length() > 2 ? Integer.parseInt(token.substring(2)) : nextJokerIdx;
+        if (jokerIdx < 1 || jokerIdx > Card.MAX_JOKERS) {
+          throw new IllegalArgumentException("bad joker: " + token);
+        }
+        nextJokerIdx = Math.max(nextJokerIdx, jokerIdx + 1);
+        hand.cards.add(new Card(jokerIdx));
+        continue;
+      }
+
+      Face face = parseFace(token.substring(0, token.length() - 1));
+      Suit suit = parseSuit(token.charAt(token.length() - 1));
+      int value = suit.ordinal() * 13 + face.ordinal();
+      Integer deckIdx = cardCount.get(value);
+      if (deckIdx == null) {
+        deckIdx = 0;
+      } else if (deckIdx == Card.MAX_DECKS) {
+        throw new IllegalArgumentException("more than " + Card.MAX_DECKS + " copies of " + token);
+      }
+      cardCount.put(value, deckIdx + 1);
+      hand.cards.add(new Card(face, suit, deckIdx));
+    }
+    return hand;
+  }
+
+  private static Face parseFace(String face) {
+    switch (face) {
+      case "A": return Face.ACE;
+      case "2": return Face.TWO;
+      case "3": return Face.THREE;
+      case "4": return Face.FOUR;
+      case "5": return Face.FIVE;
+      case "6": return Face.SIX;
+      case "7": return Face.SEVEN;
+      case "8": return Face.EIGHT;
+      case "9": return Face.NINE;
+      case "10": return Face.TEN;
+      case "J": return Face.JACK;
+      case "Q": return Face.QUEEN;
+      case "K": return Face.KING;
+      default: throw new IllegalArgumentException("bad face: " + face);
+    }
+  }
+
+  private static Suit parseSuit(char suit) {
+    switch (suit) {
+      case 'H': case '\u2665': return Suit.HEARTS;
+      case 'D': case '\u2666': return Suit.DIAMONDS;
+      case 'S': case '\u2660': return Suit.SPADES;
+      case 'C': case '\u2663': return Suit.CLUBS;
+      default: throw new IllegalArgumentException("bad suit: " + suit);
+    }
+  }
 }
@@ -0,0 +1,61 @@
+package rummy.core;
+
+/**
+ * A small, fast, splittable pseudo random number generator (SplitMix64). Unlike
+ * {@link java.util.Random} its whole state is one long, so it can be saved, restored and split
+ * into independent, reproducible streams without allocating.
+ */
+public final class SplitMix64 {
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private long state;
+
+  public SplitMix64(long seed) {
+    this.state = seed;
+  }
+
+  public long nextLong() {
+    return mix(state += GOLDEN_GAMMA);
+  }
+
+  /** Scrambles a value into a well mixed one, eg to derive an unrelated seed from a seed. */
+  public static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /** Returns an unbiased int in [0, bound). */
+  public int nextInt(int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("bound must be positive: " + bound);
+    }
+    // Rejection sampling on the top 31 bits, so every value is equally likely.
+    int bits;
+    int value;
+    do {
+      bits = (int) (nextLong() >>> 33);
+      value = bits % bound;
+    } while (bits - value + (bound - 1) < 0);
+    return value;
+  }
+
+  /** Returns a double in [0, 1). */
+  public double nextDouble() {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+
+  /** Returns a new generator whose stream is independent of, but determined by, this one. */
+  public SplitMix64 split() {
+    return new SplitMix64(nextLong());
+  }
+
+  public long getState() {
+    return state;
+  }
+
+  public void setState(long state) {
+    this.state = state;
+  }
+}
@@ -0,0 +1,79 @@
+package rummy.features;
+
+/**
+ * Computes the {@link HandFeatures} of a {@link HandBatch}. The {@link #SCALAR} kernel works a hand
+ * at a time; {@link #best()} gives a kernel on the incubating Vector API, which works on as many
+ * hands at once as the CPU has lanes. Every kernel gives identical features.
+ *
+ * <p>The vector kernel lives in the separate src-vector source root, so the rest builds with a
+ * plain javac. It is only used if src-vector was compiled onto the classpath with
+ * {@code javac --add-modules jdk.incubator.vector}, and the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} too.
+ */
+public abstract class FeatureKernel {
+
+  public static final FeatureKernel SCALAR = new ScalarFeatureKernel();
+
+  private static final FeatureKernel BEST = loadBest();
+
+  // Faces are 13 bits, and a 14th repeats the ace above the king, for Q-K-A runs.
+  static final int FACES = 0x1FFF;
+  static final int ACE_HIGH_SHIFT = 13;
+  static final int RUN_STARTS = 0xFFF;
+  static final int[] FACE_POINTS = {10, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10};
+
+  FeatureKernel() {}
+
+  /** The vector kernel if it was built and the Vector API is available, else the scalar one. */
+  public static FeatureKernel best() {
+    return BEST;
+  }
+
+  private static FeatureKernel loadBest() {
+    try {
+      return (FeatureKernel) Class.forName("rummy.features.VectorFeatureKernel")
+          .getDeclaredConstructor()
+          .newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // src-vector was not built, or the jdk.incubator.vector module is not in the boot layer.
+      return SCALAR;
+    }
+  }
+
+  /** Computes the features of every hand in the batch into features, resizing it to fit. */
+  public abstract void compute(HandBatch hands, HandFeatures features);
+
+  /** Lower case name of the kernel, eg for benchmark output. */
+  public abstract String getName();
+
+  /**
+   * Computes the features of hands [from, to) one at a time. The vector kernel uses it for the
+   * hands left over after its last full vector.
+   */
+  static void computeScalar(HandBatch hands, HandFeatures features, int from, int to) {
+    int[][] suits = hands.suitMasks;
+    for (int i = from; i < to; i++) {
+      int hearts = suits[0][i];
+      int diamonds = suits[1][i];
+      int spades = suits[2][i];
+      int clubs = suits[3][i];
+      int setFaces =
+          (hearts & diamonds & (spades | clubs)) | (spades & clubs & (hearts | diamonds));
+      features.setFaces[i] = setFaces;
+      int deadwood = 0;
+      for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+        int faces = suits[suit][i];
+        int aceHigh = faces | ((faces & 1) << ACE_HIGH_SHIFT);
+        int starts = aceHigh & (aceHigh >>> 1) & (aceHigh >>> 2) & RUN_STARTS;
+        features.runStarts[suit][i] = starts;
+        int inRun = starts | (starts << 1) | (starts << 2);
+        inRun = (inRun | (inRun >>> ACE_HIGH_SHIFT)) & FACES;
+        int rest = faces & ~(inRun | setFaces);
+        for (int face = 0; face < FACE_POINTS.length; face++) {
+          deadwood += ((rest >>> face) & 1) * FACE_POINTS[face];
+        }
+      }
+      features.deadwood[i] = deadwood;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package rummy.features;
+
+import java.util.Arrays;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+
+/**
+ * Many hands encoded as card masks, one array element per hand, for {@link FeatureKernel}s to
+ * work on together. Each hand is a 13-bit mask of faces per suit, bit 0 the ace, and a count of
+ * jokers. Cards of the face joker count both as real cards and as jokers, as the tokenizers use
+ * them either way. Identical cards from different decks share a bit.
+ */
+public final class HandBatch {
+
+  public static final int NUM_SUITS = 4;
+
+  final int[][] suitMasks = new int[NUM_SUITS][];
+  int[] jokers;
+  private int size;
+
+  public HandBatch(int capacity) {
+    for (int suit = 0; suit < NUM_SUITS; suit++) {
+      suitMasks[suit] = new int[capacity];
+    }
+    jokers = new int[capacity];
+  }
+
+  /** Encodes a hand into the next element, and returns its index. */
+  public int add(Hand hand, Face faceJoker) {
+    if (size == jokers.length) {
+      int capacity = Math.max(16, size * 2);
+      for (int suit = 0; suit < NUM_SUITS; suit++) {
+        suitMasks[suit] = Arrays.copyOf(suitMasks[suit], capacity);
+      }
+      jokers = Arrays.copyOf(jokers, capacity);
+    }
+    int numJokers = 0;
+    for (int suit = 0; suit < NUM_SUITS; suit++) {
+      suitMasks[suit][size] = 0;
+    }
+    for (Card card : hand.cards) {
+      if (card.isJoker()) {
+        numJokers++;
+        continue;
+      }
+      if (card.face == faceJoker) {
+        numJokers++;
+      }
+      suitMasks[card.suit.ordinal()][size] |= 1 << card.face.ordinal();
+    }
+    jokers[size] = numJokers;
+    return size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** The faces of a suit held by a hand, bit 0 the ace. */
+  public int suitMask(int hand, int suit) {
+    return suitMasks[suit][hand];
+  }
+
+  public int jokers(int hand) {
+    return jokers[hand];
+  }
+
+  /** Empties the batch, keeping its arrays for the next hands. */
+  public void clear() {
+    size = 0;
+  }
+}
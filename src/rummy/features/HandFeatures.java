@@ -0,0 +1,84 @@
+package rummy.features;
+
+import java.util.Arrays;
+
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+
+/**
+ * Features of each hand of a {@link HandBatch}, as computed by a {@link FeatureKernel}:
+ * <ul>
+ *   <li>run starts: per suit, the faces starting a natural 3-card run, bit 11 for Q-K-A
+ *   <li>set faces: the faces held in at least three suits
+ *   <li>deadwood: points of the cards in neither a natural 3-card run nor a set, counting
+ *       identical cards once and ignoring jokers
+ * </ul>
+ * A hand without a run start has no natural rummy, so can not be a winning hand. The deadwood is
+ * only a guide to a hand's points, which jokers, duplicates and longer parts change.
+ */
+public final class HandFeatures {
+
+  final int[][] runStarts = new int[HandBatch.NUM_SUITS][];
+  int[] setFaces;
+  int[] deadwood;
+  int size;
+
+  public HandFeatures(int capacity) {
+    for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+      runStarts[suit] = new int[capacity];
+    }
+    setFaces = new int[capacity];
+    deadwood = new int[capacity];
+  }
+
+  /** The features of a single hand, by the scalar kernel. */
+  public static HandFeatures of(Hand hand, Face faceJoker) {
+    HandBatch batch = new HandBatch(1);
+    batch.add(hand, faceJoker);
+    HandFeatures features = new HandFeatures(1);
+    FeatureKernel.SCALAR.compute(batch, features);
+    return features;
+  }
+
+  // Holds the features of the given number of hands, growing the arrays if needed.
+  void resize(int size) {
+    if (size > setFaces.length) {
+      for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+        runStarts[suit] = Arrays.copyOf(runStarts[suit], size);
+      }
+      setFaces = Arrays.copyOf(setFaces, size);
+      deadwood = Arrays.copyOf(deadwood, size);
+    }
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int runStarts(int hand, int suit) {
+    return runStarts[suit][hand];
+  }
+
+  /** Whether the hand holds a natural 3-card run, which every winning hand needs. */
+  public boolean hasNatural(int hand) {
+    for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+      if (runStarts[suit][hand] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int setFaces(int hand) {
+    return setFaces[hand];
+  }
+
+  public int setCount(int hand) {
+    return Integer.bitCount(setFaces[hand]);
+  }
+
+  public int deadwood(int hand) {
+    return deadwood[hand];
+  }
+}
@@ -0,0 +1,16 @@
+package rummy.features;
+
+/** Computes features one hand at a time, see {@link FeatureKernel}. */
+final class ScalarFeatureKernel extends FeatureKernel {
+
+  @Override
+  public void compute(HandBatch hands, HandFeatures features) {
+    features.resize(hands.size());
+    computeScalar(hands, features, 0, hands.size());
+  }
+
+  @Override
+  public String getName() {
+    return "scalar";
+  }
+}
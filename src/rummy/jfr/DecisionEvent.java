@@ -0,0 +1,16 @@
+package rummy.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A computer deciding whether to pick up the top discard, or which card to discard after drawing.
+ * Only decisions of 10 ms or more are recorded by default.
+ */
+@Name("rummy.Decision")
+@Label("Computer Decision")
+@Description("A computer deciding to pick up the top discard, or what to discard.")
+@Threshold("10 ms")
+public final class DecisionEvent extends HandEvent {}
@@ -0,0 +1,69 @@
+package rummy.jfr;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.parts.SuitCanonicalizer;
+
+/**
+ * Base of the Flight Recorder events for one phase of handling a hand. Events are created, begun
+ * and committed unconditionally, which costs next to nothing while they are disabled; the fields,
+ * which do allocate, are only filled in once {@link #shouldCommit()} says the event will be kept.
+ * Each phase is its own event type, so it can be enabled and given a threshold on its own through
+ * the usual JFR settings.
+ */
+@Category("Rummy")
+abstract class HandEvent extends Event {
+
+  @Label("Hand")
+  @Description("Card ids of the hand after relabelling its suits, see SuitCanonicalizer")
+  String hand;
+
+  @Label("Face Joker")
+  @Description("Face of the face joker, if known")
+  String faceJoker;
+
+  @Label("Parts")
+  @Description("Number of parts searched or in the solution")
+  int parts;
+
+  @Label("Nodes")
+  @Description("Search nodes visited, for phases that search")
+  long nodes;
+
+  @Label("Outcome")
+  String outcome;
+
+  /** Sets the hand from its cards, in canonical form so relabelled hands read the same. */
+  public void setHand(List<Card> cards, Face faceJoker) {
+    Hand handCopy = new Hand();
+    handCopy.cards.addAll(cards);
+    List<Card> canonical = SuitCanonicalizer.canonicalize(handCopy).hand.cards;
+    int[] ids = new int[canonical.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = canonical.get(i).id();
+    }
+    this.hand = Arrays.toString(ids);
+    this.faceJoker = faceJoker == null ? null : faceJoker.name();
+  }
+
+  public void setParts(int parts) {
+    this.parts = parts;
+  }
+
+  public void setNodes(long nodes) {
+    this.nodes = nodes;
+  }
+
+  public void setOutcome(String outcome) {
+    this.outcome = outcome;
+  }
+}
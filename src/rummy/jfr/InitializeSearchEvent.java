@@ -0,0 +1,13 @@
+package rummy.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A solver loading a hand's parts into its part table. Disabled by default. */
+@Name("rummy.InitializeSearch")
+@Label("Initialize Search")
+@Description("Loads a hand's parts into the part table and sizes the search stacks.")
+@Enabled(false)
+public final class InitializeSearchEvent extends HandEvent {}
@@ -0,0 +1,13 @@
+package rummy.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A solver ordering and pruning a hand's parts. Disabled by default. */
+@Name("rummy.PrepareSearch")
+@Label("Prepare Search")
+@Description("Orders and prunes a hand's parts before searching them.")
+@Enabled(false)
+public final class PrepareSearchEvent extends HandEvent {}
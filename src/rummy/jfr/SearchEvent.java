@@ -0,0 +1,16 @@
+package rummy.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A solver searching a hand's parts. Only searches of 10 ms or more are recorded by default, so a
+ * continuous recording holds the slow ones.
+ */
+@Name("rummy.Search")
+@Label("Search Hand")
+@Description("Searches a hand's parts for the best hand.")
+@Threshold("10 ms")
+public final class SearchEvent extends HandEvent {}
@@ -0,0 +1,13 @@
+package rummy.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Tokenizing a hand. Disabled by default, as every solve tokenizes. */
+@Name("rummy.Tokenize")
+@Label("Tokenize Hand")
+@Description("Splits a hand into all the parts it could be solved with.")
+@Enabled(false)
+public final class TokenizeEvent extends HandEvent {}
@@ -0,0 +1,111 @@
+package rummy.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import rummy.core.Card;
+
+/**
+ * Reads back the events written by a {@link GameEventWriter}, in order, across all segments of a
+ * log directory. The reader is a cursor: {@link #next()} advances to the next event, and the
+ * accessors describe the current one.
+ */
+public class GameEventReader implements Closeable {
+
+  private final Path directory;
+  private int segmentIdx = -1;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+
+  private GameEventType type;
+  private int seat;
+  private int payloadStart;
+  private int payloadBytes;
+
+  public GameEventReader(Path directory) throws IOException {
+    this.directory = directory;
+    if (!nextSegment()) {
+      throw new IOException("no event segments in " + directory);
+    }
+  }
+
+  /** Advances to the next event, returning false once the log is exhausted. */
+  public boolean next() throws IOException {
+    while (true) {
+      if (buffer.remaining() >= GameEventWriter.HEADER_BYTES) {
+        int code = buffer.get(buffer.position());
+        if (code != GameEventType.END.code) {
+          type = GameEventType.fromCode(code);
+          buffer.get();
+          seat = buffer.get() & 0xff;
+          payloadBytes = buffer.get() & 0xff;
+          payloadStart = buffer.position();
+          buffer.position(payloadStart + payloadBytes);
+          return true;
+        }
+      }
+      // End of this segment's events, continue with the next segment if there is one.
+      if (!nextSegment()) {
+        type = null;
+        return false;
+      }
+    }
+  }
+
+  public GameEventType type() {
+    return type;
+  }
+
+  public int seat() {
+    return seat;
+  }
+
+  public int payloadBytes() {
+    return payloadBytes;
+  }
+
+  /** Returns an unsigned payload byte of the current event. */
+  public int payload(int idx) {
+    return buffer.get(payloadStart + idx) & 0xff;
+  }
+
+  /** Returns the card whose id is stored at the given payload index. */
+  public Card card(int idx) {
+    return Card.fromId(payload(idx));
+  }
+
+  /** Returns the 2-byte value stored at the given payload index. */
+  public int payloadShort(int idx) {
+    return buffer.getShort(payloadStart + idx);
+  }
+
+  /** Returns the 8-byte value stored at the given payload index. */
+  public long payloadLong(int idx) {
+    return buffer.getLong(payloadStart + idx);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private boolean nextSegment() throws IOException {
+    Path path = GameEventWriter.segmentPath(directory, segmentIdx + 1);
+    if (!Files.exists(path)) {
+      return false;
+    }
+    close();
+    segmentIdx++;
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    return true;
+  }
+}
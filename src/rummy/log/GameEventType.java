@@ -0,0 +1,60 @@
+package rummy.log;
+
+/**
+ * The kinds of events recorded in a game event log. Each event is stored as a type byte, a seat
+ * byte, a payload length byte and the payload. Cards in a payload are single-byte card ids (see
+ * {@link rummy.core.Card#id()}).
+ */
+public enum GameEventType {
+
+  /** Marks unwritten space at the end of a segment. */
+  END(0),
+
+  /** A new game. Payload: number of players, then the 8-byte deck seed. */
+  GAME_START(1),
+
+  /** The face joker was revealed. Payload: the revealed card. */
+  FACE_JOKER(2),
+
+  /** A player was dealt a hand. Payload: the dealt cards. */
+  DEAL(3),
+
+  /** A player decided whether to keep the top discard. Payload: the card, then 1 if kept. */
+  PICKUP_DECISION(4),
+
+  /** A player drew a card. Payload: the draw source, then the card. */
+  DRAW(5),
+
+  /** A player discarded a card. Payload: the card. */
+  DISCARD(6),
+
+  /** A player declared a winning hand. Payload: every player's 2-byte final points, by seat. */
+  DECLARE(7),
+
+  /** The discard pile was shuffled back into the deck. No payload. */
+  RESHUFFLE(8);
+
+  /** Draw source values stored in a {@link #DRAW} payload. */
+  public static final int SOURCE_DECK = 0;
+  public static final int SOURCE_DISCARD_PILE = 1;
+
+  private static final GameEventType[] BY_CODE = new GameEventType[values().length];
+  static {
+    for (GameEventType type : values()) {
+      BY_CODE[type.code] = type;
+    }
+  }
+
+  public final byte code;
+
+  GameEventType(int code) {
+    this.code = (byte) code;
+  }
+
+  public static GameEventType fromCode(int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("bad event code: " + code);
+    }
+    return BY_CODE[code];
+  }
+}
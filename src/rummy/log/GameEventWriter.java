@@ -0,0 +1,143 @@
+package rummy.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import rummy.core.Card;
+
+/**
+ * Appends game events to a directory of memory-mapped segment files. Each segment is preallocated
+ * to a fixed size and mapped once, so appending an event is a handful of byte writes into the
+ * mapping and allocates nothing. A new segment is started when the current one can not hold the
+ * next event. A writer opened on a directory that already holds a log starts after its last
+ * segment, so the log then holds the games of both.
+ *
+ * <p>Not thread-safe; use one writer per table.
+ */
+public class GameEventWriter implements Closeable {
+
+  public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+  // type + seat + payload length
+  static final int HEADER_BYTES = 3;
+  static final int MAX_PAYLOAD_BYTES = 255;
+
+  private final Path directory;
+  private final int segmentBytes;
+  private int segmentIdx = -1;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+
+  public GameEventWriter(Path directory, int segmentBytes) throws IOException {
+    if (segmentBytes < HEADER_BYTES + MAX_PAYLOAD_BYTES + 1) {
+      throw new IllegalArgumentException("segment too small: " + segmentBytes);
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    Files.createDirectories(directory);
+    while (Files.exists(segmentPath(directory, segmentIdx + 1))) {
+      segmentIdx++;
+    }
+    nextSegment();
+  }
+
+  public GameEventWriter(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_BYTES);
+  }
+
+  static Path segmentPath(Path directory, int segmentIdx) {
+    return directory.resolve(String.format("segment-%06d.log", segmentIdx));
+  }
+
+  public void gameStart(int numPlayers, long seed) throws IOException {
+    begin(GameEventType.GAME_START, 0, 9);
+    buffer.put((byte) numPlayers);
+    buffer.putLong(seed);
+  }
+
+  public void faceJoker(Card card) throws IOException {
+    begin(GameEventType.FACE_JOKER, 0, 1);
+    buffer.put((byte) card.id());
+  }
+
+  public void deal(int seat, List<Card> cards) throws IOException {
+    begin(GameEventType.DEAL, seat, cards.size());
+    for (int i = 0; i < cards.size(); i++) {
+      buffer.put((byte) cards.get(i).id());
+    }
+  }
+
+  public void pickupDecision(int seat, Card top, boolean keep) throws IOException {
+    begin(GameEventType.PICKUP_DECISION, seat, 2);
+    buffer.put((byte) top.id());
+    buffer.put((byte) (keep ? 1 : 0));
+  }
+
+  public void draw(int seat, int source, Card card) throws IOException {
+    begin(GameEventType.DRAW, seat, 2);
+    buffer.put((byte) source);
+    buffer.put((byte) card.id());
+  }
+
+  public void discard(int seat, Card card) throws IOException {
+    begin(GameEventType.DISCARD, seat, 1);
+    buffer.put((byte) card.id());
+  }
+
+  public void declare(int seat, int[] points) throws IOException {
+    begin(GameEventType.DECLARE, seat, 2 * points.length);
+    for (int i = 0; i < points.length; i++) {
+      buffer.putShort((short) points[i]);
+    }
+  }
+
+  public void reshuffle() throws IOException {
+    begin(GameEventType.RESHUFFLE, 0, 0);
+  }
+
+  /** Forces written events out to the segment file. */
+  public void flush() {
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  // Writes an event header, first rolling to a new segment if the event would not fit. One byte is
+  // always left free at the end of a segment, so the reader finds an END marker there.
+  private void begin(GameEventType type, int seat, int payloadBytes) throws IOException {
+    if (payloadBytes > MAX_PAYLOAD_BYTES) {
+      throw new IllegalArgumentException("payload too large: " + payloadBytes);
+    }
+    if (buffer.remaining() < HEADER_BYTES + payloadBytes + 1) {
+      nextSegment();
+    }
+    buffer.put(type.code);
+    buffer.put((byte) seat);
+    buffer.put((byte) payloadBytes);
+  }
+
+  private void nextSegment() throws IOException {
+    if (channel != null) {
+      close();
+    }
+    segmentIdx++;
+    channel = FileChannel.open(
+        segmentPath(directory, segmentIdx),
+        StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    // Mapping past the end of the file grows it, preallocating the whole segment with zeros (END).
+    buffer = channel.map(MapMode.READ_WRITE, 0, segmentBytes);
+  }
+}
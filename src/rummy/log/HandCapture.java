@@ -0,0 +1,247 @@
+package rummy.log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+
+/**
+ * Captures hands that were slow to solve into an on-disk corpus, so incidents seen in play become
+ * benchmark cases, see {@link rummy.bench.CorpusReplayBenchmark}. A hand is captured when its
+ * solve took at least the latency threshold or visited at least the node threshold.
+ *
+ * <p>The corpus is a directory of tab separated text files, one hand per line: scorer, face joker
+ * ("-" if none), extra card flag, solve latency in microseconds, search nodes, score, points and
+ * the card ids of the hand. Files are rotated once they reach a size limit, and only the newest
+ * few are kept, so capture can stay on in a long running service.
+ *
+ * <p>Thread-safe. Only captured hands take the lock, so hands under the thresholds cost a compare.
+ */
+public class HandCapture implements Closeable {
+
+  public static final long DEFAULT_FILE_BYTES = 4 * 1024 * 1024;
+  public static final int DEFAULT_MAX_FILES = 8;
+
+  private static final String HEADER =
+      "# scorer\tface_joker\textra_card\tlatency_us\tnodes\tscore\tpoints\tcard_ids";
+
+  /** A captured hand and the stats of the solve that captured it. */
+  public static class CapturedHand {
+    public final String scorer;
+    public final Face faceJoker;
+    public final boolean extraCard;
+    public final long latencyMicros;
+    public final long nodes;
+    public final int score;
+    public final int points;
+    public final Hand hand;
+
+    CapturedHand(
+        String scorer,
+        Face faceJoker,
+        boolean extraCard,
+        long latencyMicros,
+        long nodes,
+        int score,
+        int points,
+        Hand hand) {
+      this.scorer = scorer;
+      this.faceJoker = faceJoker;
+      this.extraCard = extraCard;
+      this.latencyMicros = latencyMicros;
+      this.nodes = nodes;
+      this.score = score;
+      this.points = points;
+      this.hand = hand;
+    }
+  }
+
+  private final Path directory;
+  private final long latencyThresholdNanos;
+  private final long nodeThreshold;
+  private final long fileBytes;
+  private final int maxFiles;
+  private int fileIdx;
+  private BufferedWriter writer;
+  private long written;
+
+  /**
+   * @param latencyThresholdNanos captures solves taking at least this long, Long.MAX_VALUE for no
+   *     latency threshold
+   * @param nodeThreshold captures solves visiting at least this many nodes, Long.MAX_VALUE for no
+   *     node threshold
+   */
+  public HandCapture(
+      Path directory,
+      long latencyThresholdNanos,
+      long nodeThreshold,
+      long fileBytes,
+      int maxFiles) throws IOException {
+    if (maxFiles < 1) {
+      throw new IllegalArgumentException("must keep at least one file");
+    }
+    this.directory = directory;
+    this.latencyThresholdNanos = latencyThresholdNanos;
+    this.nodeThreshold = nodeThreshold;
+    this.fileBytes = fileBytes;
+    this.maxFiles = maxFiles;
+    Files.createDirectories(directory);
+    List<Path> files = corpusFiles(directory);
+    // Continue after the newest file of an earlier run.
+    fileIdx = files.isEmpty() ? 0 : fileIndex(files.get(files.size() - 1));
+    nextFile();
+  }
+
+  public HandCapture(Path directory, long latencyThresholdNanos, long nodeThreshold)
+      throws IOException {
+    this(directory, latencyThresholdNanos, nodeThreshold, DEFAULT_FILE_BYTES, DEFAULT_MAX_FILES);
+  }
+
+  static Path filePath(Path directory, int fileIdx) {
+    return directory.resolve(String.format("hands-%06d.tsv", fileIdx));
+  }
+
+  private static int fileIndex(Path file) {
+    String name = file.getFileName().toString();
+    return Integer.parseInt(name.substring("hands-".length(), name.length() - ".tsv".length()));
+  }
+
+  // The corpus files in a directory, oldest first.
+  private static List<Path> corpusFiles(Path directory) throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "hands-*.tsv")) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  /** Whether a solve with the given stats would be captured. */
+  public boolean isSlow(long latencyNanos, long nodes) {
+    return latencyNanos >= latencyThresholdNanos || nodes >= nodeThreshold;
+  }
+
+  /**
+   * Captures the hand if its solve was slow. Returns whether it was captured. Write errors are
+   * swallowed, as capture must never fail the solve it watches.
+   */
+  public boolean offer(
+      Hand hand,
+      Face faceJoker,
+      boolean extraCard,
+      String scorer,
+      long latencyNanos,
+      Solution solution) {
+    if (!isSlow(latencyNanos, solution.nodes)) {
+      return false;
+    }
+    StringBuilder line = new StringBuilder()
+        .append(scorer).append('\t')
+        .append(faceJoker == null ? "-" : faceJoker.name()).append('\t')
+        .append(extraCard).append('\t')
+        .append(TimeUnit.NANOSECONDS.toMicros(latencyNanos)).append('\t')
+        .append(solution.nodes).append('\t')
+        .append(solution.score).append('\t')
+        .append(solution.points).append('\t');
+    for (int i = 0; i < hand.cards.size(); i++) {
+      line.append(i > 0 ? " " : "").append(hand.cards.get(i).id());
+    }
+    line.append('\n');
+    try {
+      append(line.toString());
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private synchronized void append(String line) throws IOException {
+    if (writer == null) {
+      throw new IOException("capture closed");
+    }
+    if (written + line.length() > fileBytes) {
+      writer.close();
+      nextFile();
+    }
+    writer.write(line);
+    // Flushed per hand, so a crashing service keeps what it captured.
+    writer.flush();
+    written += line.length();
+  }
+
+  private void nextFile() throws IOException {
+    fileIdx++;
+    writer = Files.newBufferedWriter(
+        filePath(directory, fileIdx),
+        StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    writer.write(HEADER + "\n");
+    written = HEADER.length() + 1;
+    List<Path> files = corpusFiles(directory);
+    for (int i = 0; i < files.size() - maxFiles; i++) {
+      Files.delete(files.get(i));
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  /** Reads every hand of a corpus directory, oldest first. */
+  public static List<CapturedHand> read(Path directory) throws IOException {
+    List<CapturedHand> hands = new ArrayList<>();
+    for (Path file : corpusFiles(directory)) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          hands.add(parse(line));
+        }
+      }
+    }
+    return hands;
+  }
+
+  private static CapturedHand parse(String line) {
+    String[] fields = line.split("\t");
+    if (fields.length != 8) {
+      throw new IllegalArgumentException("bad captured hand: " + line);
+    }
+    Hand hand = new Hand();
+    for (String id : fields[7].split(" ")) {
+      hand.cards.add(Card.fromId(Integer.parseInt(id)));
+    }
+    return new CapturedHand(
+        fields[0],
+        fields[1].equals("-") ? null : Face.valueOf(fields[1]),
+        Boolean.parseBoolean(fields[2]),
+        Long.parseLong(fields[3]),
+        Long.parseLong(fields[4]),
+        Integer.parseInt(fields[5]),
+        Integer.parseInt(fields[6]),
+        hand);
+  }
+}
@@ -0,0 +1,21 @@
+package rummy.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** A lock-free, monotonically increasing count. */
+public final class Counter {
+
+  private final LongAdder count = new LongAdder();
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void add(long amount) {
+    count.add(amount);
+  }
+
+  public long get() {
+    return count.sum();
+  }
+}
@@ -0,0 +1,80 @@
+package rummy.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative longs, eg latencies in nanoseconds. Values are counted in
+ * log-linear buckets, as in HdrHistogram: each power of two is split into {@code 2^SUB_BITS} equal
+ * buckets, so any value is known to within about 6%, whatever its magnitude. Recording is a few
+ * atomic adds and never allocates, so it is safe on hot paths and from any number of threads.
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  // Enough buckets for any positive long.
+  private static final int NUM_BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    buckets.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  // The highest value counted in the given bucket.
+  static long bucketMax(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return low + (1L << shift) - 1;
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  public long sum() {
+    return sum.sum();
+  }
+
+  /**
+   * Returns an upper bound on the value at the given quantile (0 to 1), accurate to the bucket
+   * width, or 0 if nothing was recorded. Values recorded while this runs may or may not count.
+   */
+  public long valueAtQuantile(double quantile) {
+    long total = 0;
+    long[] counts = new long[NUM_BUCKETS];
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return bucketMax(i);
+      }
+    }
+    return 0;
+  }
+}
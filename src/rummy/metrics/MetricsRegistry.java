@@ -0,0 +1,123 @@
+package rummy.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named counters and histograms, each with optional labels (eg scorer="complex"). Metrics are
+ * looked up once, when the code using them is set up, and then recorded into directly, so the
+ * registry's lock is never taken on a hot path. Asking again for the same name and labels returns
+ * the same metric.
+ *
+ * <p>Reporters read the metrics through a {@link Visitor}, see {@link MetricsReporter}.
+ */
+public final class MetricsRegistry {
+
+  /** The registry used unless another is given. */
+  public static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  /** Nanoseconds per second, the unit timers are reported in. */
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /** Receives each metric, all metrics of one name in a row. */
+  public interface Visitor {
+    void counter(String name, String help, String[] labels, Counter counter) throws IOException;
+
+    /**
+     * @param unitDivisor recorded values are divided by this when reported, eg to report
+     *     nanoseconds as seconds
+     */
+    void histogram(
+        String name, String help, String[] labels, Histogram histogram, double unitDivisor)
+        throws IOException;
+  }
+
+  private static final class Metric {
+    final String name;
+    final String help;
+    final String[] labels;
+    final Object metric;
+    final double unitDivisor;
+
+    Metric(String name, String help, String[] labels, Object metric, double unitDivisor) {
+      this.name = name;
+      this.help = help;
+      this.labels = labels;
+      this.metric = metric;
+      this.unitDivisor = unitDivisor;
+    }
+  }
+
+  private static final Comparator<Metric> BY_NAME = new Comparator<Metric>() {
+    @Override
+    public int compare(Metric m1, Metric m2) {
+      return m1.name.compareTo(m2.name);
+    }
+  };
+
+  // Keyed by name and labels.
+  private final Map<List<String>, Metric> metrics = new LinkedHashMap<>();
+
+  /** @param labels alternating label names and values */
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) register(name, help, labels, Counter.class, 1);
+  }
+
+  /** A histogram of plain values, eg parts per hand. */
+  public Histogram histogram(String name, String help, String... labels) {
+    return (Histogram) register(name, help, labels, Histogram.class, 1);
+  }
+
+  /** A histogram of durations, recorded in nanoseconds and reported in seconds. */
+  public Histogram timer(String name, String help, String... labels) {
+    return (Histogram) register(name, help, labels, Histogram.class, NANOS_PER_SECOND);
+  }
+
+  private synchronized Object register(
+      String name, String help, String[] labels, Class<?> type, double unitDivisor) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("labels must be name/value pairs: " + name);
+    }
+    List<String> key = new ArrayList<>(labels.length + 1);
+    key.add(name);
+    key.addAll(Arrays.asList(labels));
+    Metric metric = metrics.get(key);
+    if (metric == null) {
+      for (Metric other : metrics.values()) {
+        if (other.name.equals(name)
+            && (other.metric.getClass() != type || other.unitDivisor != unitDivisor)) {
+          throw new IllegalArgumentException("metric registered with another type: " + name);
+        }
+      }
+      Object value = type == Counter.class ? new Counter() : new Histogram();
+      metric = new Metric(name, help, labels.clone(), value, unitDivisor);
+      metrics.put(key, metric);
+    } else if (metric.metric.getClass() != type || metric.unitDivisor != unitDivisor) {
+      throw new IllegalArgumentException("metric registered with another type: " + name);
+    }
+    return metric.metric;
+  }
+
+  /** Passes every metric to the visitor, ordered by name. */
+  public void visit(Visitor visitor) throws IOException {
+    List<Metric> snapshot;
+    synchronized (this) {
+      snapshot = new ArrayList<>(metrics.values());
+    }
+    // Stable, so metrics of one name keep the order they were registered in.
+    snapshot.sort(BY_NAME);
+    for (Metric metric : snapshot) {
+      if (metric.metric instanceof Counter) {
+        visitor.counter(metric.name, metric.help, metric.labels, (Counter) metric.metric);
+      } else {
+        visitor.histogram(
+            metric.name, metric.help, metric.labels, (Histogram) metric.metric, metric.unitDivisor);
+      }
+    }
+  }
+}
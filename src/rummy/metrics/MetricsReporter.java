@@ -0,0 +1,13 @@
+package rummy.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Exports the metrics of a {@link MetricsRegistry}, eg by serving them over HTTP or writing them
+ * out periodically. Closing a reporter stops it.
+ */
+public interface MetricsReporter extends Closeable {
+
+  void start(MetricsRegistry registry) throws IOException;
+}
@@ -0,0 +1,124 @@
+package rummy.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the metrics of a registry at {@code /metrics} in the Prometheus text format, from the
+ * JDK's built-in HTTP server. Histograms are served as summaries: the 0.5, 0.9, 0.99 and 0.999
+ * quantiles, plus the sum and count.
+ */
+public class PrometheusReporter implements MetricsReporter {
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final InetSocketAddress address;
+  private HttpServer server;
+
+  public PrometheusReporter(int port) {
+    this(new InetSocketAddress(port));
+  }
+
+  public PrometheusReporter(InetSocketAddress address) {
+    this.address = address;
+  }
+
+  @Override
+  public void start(final MetricsRegistry registry) throws IOException {
+    server = HttpServer.create(address, 0 /* default backlog */);
+    server.createContext("/metrics", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        StringWriter text = new StringWriter();
+        write(registry, text);
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    });
+    server.start();
+  }
+
+  /** The port being served, useful when started on port 0. */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0 /* seconds to wait for exchanges */);
+      server = null;
+    }
+  }
+
+  /** Writes every metric of the registry in the Prometheus text format. */
+  public static void write(MetricsRegistry registry, final Writer out) throws IOException {
+    registry.visit(new MetricsRegistry.Visitor() {
+      private String lastName;
+
+      @Override
+      public void counter(String name, String help, String[] labels, Counter counter)
+          throws IOException {
+        header(name, help, "counter");
+        out.write(name + labels(labels, null) + " " + counter.get() + "\n");
+      }
+
+      @Override
+      public void histogram(
+          String name, String help, String[] labels, Histogram histogram, double unitDivisor)
+          throws IOException {
+        header(name, help, "summary");
+        for (double quantile : QUANTILES) {
+          out.write(name + labels(labels, Double.toString(quantile)) + " "
+              + histogram.valueAtQuantile(quantile) / unitDivisor + "\n");
+        }
+        out.write(name + "_sum" + labels(labels, null) + " "
+            + histogram.sum() / unitDivisor + "\n");
+        out.write(name + "_count" + labels(labels, null) + " " + histogram.count() + "\n");
+      }
+
+      private void header(String name, String help, String type) throws IOException {
+        if (!name.equals(lastName)) {
+          out.write("# HELP " + name + " " + help + "\n");
+          out.write("# TYPE " + name + " " + type + "\n");
+          lastName = name;
+        }
+      }
+    });
+    out.flush();
+  }
+
+  private static String labels(String[] labels, String quantile) {
+    if (labels.length == 0 && quantile == null) {
+      return "";
+    }
+    StringBuilder text = new StringBuilder("{");
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        text.append(',');
+      }
+      text.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+    }
+    if (quantile != null) {
+      text.append(labels.length > 0 ? "," : "").append("quantile=\"").append(quantile).append('"');
+    }
+    return text.append('}').toString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
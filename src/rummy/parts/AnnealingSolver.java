@@ -0,0 +1,347 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import rummy.core.SplitMix64;
+import rummy.parts.PartsSolver.Solution;
+import rummy.scorer.ScoreUtil;
+import rummy.scorer.Scorer;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Finds a good, but not necessarily optimal, hand by simulated annealing, for hands too large to
+ * search exhaustively. A hand is a cover of the cards by non-overlapping parts, leaving the extra
+ * card free. The search starts from a greedy cover, and each move brings one part into the hand,
+ * replacing the parts it overlaps with singles for their remaining cards.
+ *
+ * <p>Hands are compared by points first, then score. Several restarts run in parallel, each from a
+ * differently randomized greedy cover, and the best hand of all of them is returned. Results are
+ * deterministic for a given seed, since each restart draws from its own random stream.
+ */
+class AnnealingSolver {
+
+  // Weight of a point against the score while annealing, large enough that fewer points nearly
+  // always wins, as when comparing hands.
+  private static final int POINT_WEIGHT = 1000;
+  private static final double START_TEMPERATURE = 200;
+  private static final double END_TEMPERATURE = 1;
+  // The clock is only read every this many moves.
+  private static final int CLOCK_CHECK_MOVES = 256;
+
+  private static final int SINGLE = PartType.SINGLE.ordinal();
+
+  private final int handSize;
+  private final ScorerFactory scorerFactory;
+  private final MoveOrdering moveOrdering;
+  private final int iterations;
+  private final int restarts;
+  private final long seed;
+  private final ExecutorService pool;
+  private final PartTable table = new PartTable();
+  // Single part of each card number.
+  private int[] singles = new int[PartTable.MAX_CARDS];
+
+  AnnealingSolver(
+      int handSize,
+      ScorerFactory scorerFactory,
+      MoveOrdering moveOrdering,
+      int iterations,
+      int restarts,
+      long seed,
+      ExecutorService pool) {
+    this.handSize = handSize;
+    this.scorerFactory = scorerFactory;
+    this.moveOrdering = moveOrdering;
+    this.iterations = iterations;
+    this.restarts = restarts;
+    this.seed = seed;
+    this.pool = pool;
+  }
+
+  /**
+   * Solves the given parts, stopping every restart at the deadline (a System.nanoTime() value) if
+   * it comes before the restart's iterations are used up.
+   */
+  Solution solve(Set<Part> parts, boolean extraCard, long deadline) {
+    table.load(moveOrdering.order(new ArrayList<>(parts)));
+    int numFree = extraCard ? 1 : 0;
+    if (table.numCards() != handSize + numFree || !findSingles()) {
+      // No hand can be formed.
+      return new Solution();
+    }
+
+    List<Future<Restart>> futures = new ArrayList<>(restarts);
+    for (int r = 1; r < restarts && pool != null; r++) {
+      final Restart restart = new Restart(r, numFree, deadline);
+      futures.add(pool.submit(new Callable<Restart>() {
+        @Override
+        public Restart call() {
+          restart.run();
+          return restart;
+        }
+      }));
+    }
+    // Restart 0 runs on this thread, as do all restarts without a pool.
+    Restart best = null;
+    for (int r = 0; r < (pool == null ? restarts : 1); r++) {
+      Restart restart = new Restart(r, numFree, deadline);
+      restart.run();
+      best = better(best, restart);
+    }
+    for (Future<Restart> future : futures) {
+      try {
+        best = better(best, future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("annealing restart failed", e.getCause());
+      }
+    }
+    return best.toSolution();
+  }
+
+  private boolean findSingles() {
+    Arrays.fill(singles, 0, table.numCards(), -1);
+    for (int idx = 0; idx < table.size(); idx++) {
+      if (table.type[idx] == SINGLE) {
+        singles[Long.numberOfTrailingZeros(table.cardMask[idx])] = idx;
+      }
+    }
+    for (int number = 0; number < table.numCards(); number++) {
+      if (singles[number] < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Restart better(Restart best, Restart candidate) {
+    if (best == null || best.beats(candidate.bestPoints, candidate.bestScore)) {
+      return candidate;
+    }
+    return best;
+  }
+
+  // One annealing run. Reads the shared table, and keeps all of its own state.
+  private class Restart {
+    private final int index;
+    private final SplitMix64 random;
+    private final int numFree;
+    private final long deadline;
+    private final Scorer scorer = scorerFactory.get();
+    private final int numCards = table.numCards();
+
+    // Part covering each card number, or -1 for a free card.
+    private int[] cover = new int[numCards];
+    private int[] candidate = new int[numCards];
+    private final int[] handParts = new int[numCards];
+    private int numHandParts;
+
+    private final int[] bestCover = new int[numCards];
+    private int bestScore;
+    private int bestPoints;
+    // Score and points of the last evaluated cover.
+    private int lastScore;
+    private int lastPoints;
+
+    Restart(int index, int numFree, long deadline) {
+      this.index = index;
+      this.random = new SplitMix64(seed + index * 0x9E3779B97F4A7C15L);
+      this.numFree = numFree;
+      this.deadline = deadline;
+    }
+
+    void run() {
+      greedyCover(index > 0 /* randomize */, cover);
+      int value = evaluate(cover);
+      bestScore = lastScore;
+      bestPoints = lastPoints;
+      System.arraycopy(cover, 0, bestCover, 0, numCards);
+
+      double cooling = Math.pow(END_TEMPERATURE / START_TEMPERATURE, 1.0 / iterations);
+      double temperature = START_TEMPERATURE;
+      for (int i = 0; i < iterations; i++, temperature *= cooling) {
+        if (deadline != Long.MAX_VALUE
+            && i % CLOCK_CHECK_MOVES == 0
+            && System.nanoTime() > deadline) {
+          break;
+        }
+        if (!move(random.nextInt(table.size()))) {
+          continue;
+        }
+        int candidateValue = evaluate(candidate);
+        int delta = candidateValue - value;
+        if (delta >= 0 || random.nextDouble() < Math.exp(delta / temperature)) {
+          int[] temp = cover;
+          cover = candidate;
+          candidate = temp;
+          value = candidateValue;
+          if (beats(lastPoints, lastScore)) {
+            bestScore = lastScore;
+            bestPoints = lastPoints;
+            System.arraycopy(cover, 0, bestCover, 0, numCards);
+          }
+        }
+      }
+    }
+
+    // Covers the cards with parts in table order, optionally skipping parts at random, then frees
+    // the last card not yet covered and fills the rest with singles.
+    private void greedyCover(boolean randomize, int[] target) {
+      Arrays.fill(target, -1);
+      long used = 0;
+      int numUsed = 0;
+      for (int idx = 0; idx < table.size() && numUsed < handSize; idx++) {
+        if (table.type[idx] == SINGLE || (randomize && random.nextInt(2) == 0)) {
+          continue;
+        }
+        long mask = table.cardMask[idx];
+        if ((used & mask) == 0 && numUsed + table.cardCount[idx] <= handSize) {
+          assign(target, idx);
+          used |= mask;
+          numUsed += table.cardCount[idx];
+        }
+      }
+      int freeLeft = numFree;
+      for (int number = numCards - 1; number >= 0; number--) {
+        if ((used & (1L << number)) == 0) {
+          if (freeLeft > 0) {
+            freeLeft--;
+          } else {
+            target[number] = singles[number];
+          }
+        }
+      }
+    }
+
+    private void assign(int[] target, int idx) {
+      long mask = table.cardMask[idx];
+      while (mask != 0) {
+        target[Long.numberOfTrailingZeros(mask)] = idx;
+        mask &= mask - 1;
+      }
+    }
+
+    // Forms the candidate cover by bringing the given part into the current hand. Returns false if
+    // the part is already in the hand or the move is not possible.
+    private boolean move(int idx) {
+      long mask = table.cardMask[idx];
+      int first = Long.numberOfTrailingZeros(mask);
+      if (cover[first] == idx) {
+        return false;
+      }
+      System.arraycopy(cover, 0, candidate, 0, numCards);
+
+      // Cards of the displaced parts that the new part does not cover.
+      long displaced = 0;
+      long freed = 0;
+      long m = mask;
+      while (m != 0) {
+        int number = Long.numberOfTrailingZeros(m);
+        m &= m - 1;
+        int covering = cover[number];
+        if (covering >= 0) {
+          displaced |= table.cardMask[covering];
+        } else {
+          freed |= 1L << number;
+        }
+      }
+      displaced &= ~mask;
+      assign(candidate, idx);
+      m = displaced;
+      while (m != 0) {
+        int number = Long.numberOfTrailingZeros(m);
+        m &= m - 1;
+        candidate[number] = singles[number];
+      }
+
+      // The new part took over free cards, so free others in their place.
+      int toFree = Long.bitCount(freed);
+      while (toFree > 0) {
+        int number = pickSingle(candidate, displaced, mask);
+        if (number < 0) {
+          return false;
+        }
+        candidate[number] = -1;
+        displaced &= ~(1L << number);
+        toFree--;
+      }
+      return true;
+    }
+
+    // Picks a random card covered by a single in the candidate, preferring the displaced cards.
+    private int pickSingle(int[] target, long displaced, long newPart) {
+      if (displaced != 0) {
+        int count = Long.bitCount(displaced);
+        long m = displaced;
+        for (int skip = random.nextInt(count); skip > 0; skip--) {
+          m &= m - 1;
+        }
+        return Long.numberOfTrailingZeros(m);
+      }
+      int start = random.nextInt(numCards);
+      for (int i = 0; i < numCards; i++) {
+        int number = (start + i) % numCards;
+        if ((newPart & (1L << number)) == 0
+            && target[number] >= 0
+            && table.type[target[number]] == SINGLE) {
+          return number;
+        }
+      }
+      return -1;
+    }
+
+    // Scores a cover, with its parts in table order as the exhaustive search would, and returns
+    // the value annealing maximizes.
+    private int evaluate(int[] target) {
+      collectParts(target);
+      lastScore = scorer.scoreParts(table, handParts, numHandParts);
+      lastPoints = ScoreUtil.calculatePoints(table, handParts, numHandParts);
+      return lastScore - POINT_WEIGHT * lastPoints;
+    }
+
+    private void collectParts(int[] target) {
+      numHandParts = 0;
+      for (int number = 0; number < numCards; number++) {
+        int idx = target[number];
+        // Count each part once, at its lowest card.
+        if (idx >= 0 && Long.numberOfTrailingZeros(table.cardMask[idx]) == number) {
+          handParts[numHandParts++] = idx;
+        }
+      }
+      Arrays.sort(handParts, 0, numHandParts);
+    }
+
+    // Whether a hand with the given points and score beats this restart's best.
+    boolean beats(int points, int score) {
+      return points < bestPoints || (points == bestPoints && score > bestScore);
+    }
+
+    Solution toSolution() {
+      collectParts(bestCover);
+      Solution solution = new Solution();
+      solution.parts = new ArrayList<>(numHandParts);
+      for (int i = 0; i < numHandParts; i++) {
+        solution.parts.add(table.part(handParts[i]));
+      }
+      solution.freeCards = new ArrayList<>(numFree);
+      for (int number = 0; number < numCards; number++) {
+        if (bestCover[number] < 0) {
+          solution.freeCards.add(table.card(number));
+        }
+      }
+      solution.score = bestScore;
+      solution.points = bestPoints;
+      solution.isWinning = bestPoints == 0;
+      return solution;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Solves many hands at once. The batch is split over a work-stealing pool of threads sharing one
+ * {@link SolverEngine}, which keeps lookup tables and bit sets per thread, so they are allocated
+ * once per thread rather than once per hand. Solutions are handed back in input order.
+ */
+public class BatchSolver {
+
+  // Number of hands a task solves directly instead of splitting further.
+  private static final int HANDS_PER_TASK = 16;
+
+  /** Receives solutions in input order, as soon as every earlier hand has been solved. */
+  public interface Listener {
+    void onSolution(int index, Hand hand, Solution solution);
+  }
+
+  /** The solutions of a batch, in input order, plus its throughput. */
+  public static class BatchResult {
+    public final List<Solution> solutions;
+    public final long elapsedNanos;
+
+    BatchResult(List<Solution> solutions, long elapsedNanos) {
+      this.solutions = solutions;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    public double handsPerSecond() {
+      if (elapsedNanos == 0) {
+        return 0;
+      }
+      return solutions.size() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+  }
+
+  private final ForkJoinPool pool;
+
+  public BatchSolver(int parallelism) {
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  public BatchSolver() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public BatchResult solveBatch(List<Hand> hands, Face faceJoker, ScorerFactory scorerFactory) {
+    return solveBatch(hands, faceJoker, scorerFactory, null /* listener */);
+  }
+
+  public BatchResult solveBatch(
+      List<Hand> hands, Face faceJoker, ScorerFactory scorerFactory, Listener listener) {
+    return solveBatch(hands, faceJoker, SolverEngine.forScorer(scorerFactory), listener);
+  }
+
+  /**
+   * Solves each hand, treating hands with more than the engine's hand size as holding an extra
+   * card to discard. If a listener is given, it is called in input order as solutions complete.
+   */
+  public BatchResult solveBatch(
+      List<Hand> hands, Face faceJoker, SolverEngine engine, Listener listener) {
+    Preconditions.checkNotNull(engine);
+    long start = System.nanoTime();
+    OrderedResults results = new OrderedResults(hands, listener);
+    pool.invoke(new SolveTask(hands, faceJoker, engine, results, 0, hands.size()));
+    long elapsed = System.nanoTime() - start;
+    return new BatchResult(Arrays.asList(results.solutions), elapsed);
+  }
+
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  // Collects solutions out of order, and releases them to the listener in order.
+  private static class OrderedResults {
+    final List<Hand> hands;
+    final Solution[] solutions;
+    final Listener listener;
+    int nextToEmit = 0;
+
+    OrderedResults(List<Hand> hands, Listener listener) {
+      this.hands = hands;
+      this.solutions = new Solution[hands.size()];
+      this.listener = listener;
+    }
+
+    synchronized void complete(int index, Solution solution) {
+      solutions[index] = solution;
+      if (listener == null) {
+        return;
+      }
+      while (nextToEmit < solutions.length && solutions[nextToEmit] != null) {
+        listener.onSolution(nextToEmit, hands.get(nextToEmit), solutions[nextToEmit]);
+        nextToEmit++;
+      }
+    }
+  }
+
+  // Splits the range of hands in half until it is small enough to solve directly, letting idle
+  // workers steal the other halves.
+  private static class SolveTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Hand> hands;
+    private final Face faceJoker;
+    private final SolverEngine engine;
+    private final OrderedResults results;
+    private final int from;
+    private final int to;
+
+    SolveTask(
+        List<Hand> hands,
+        Face faceJoker,
+        SolverEngine engine,
+        OrderedResults results,
+        int from,
+        int to) {
+      this.hands = hands;
+      this.faceJoker = faceJoker;
+      this.engine = engine;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= HANDS_PER_TASK) {
+        for (int i = from; i < to; i++) {
+          results.complete(i, engine.solve(hands.get(i), faceJoker));
+        }
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      List<SolveTask> halves = new ArrayList<>(2);
+      halves.add(new SolveTask(hands, faceJoker, engine, results, from, mid));
+      halves.add(new SolveTask(hands, faceJoker, engine, results, mid, to));
+      invokeAll(halves);
+    }
+  }
+}
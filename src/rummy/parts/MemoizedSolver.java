@@ -0,0 +1,350 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import rummy.parts.PartsSolver.Solution;
+import rummy.scorer.IncrementalScorer;
+import rummy.scorer.ScoreUtil;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Finds the best hand by dynamic programming over the non-single parts in table order, memoizing
+ * the best completion of each subproblem. A subproblem is the next part to consider, the cards
+ * used so far, the scorer's state (see {@link IncrementalScorer}), whether the parts so far hold a
+ * natural rummy and another rummy, and if not, the points of the parts so far. Two ways of
+ * reaching the same subproblem, eg rummys taken in a different combination covering the same
+ * cards, then share one search of what follows. Once the non-single parts are chosen, the rest of
+ * the hand is forced: the remaining cards are singles, less the free card.
+ *
+ * <p>Hands are compared by points first, then score, as by {@link AnnealingSolver}. A hand's
+ * points only count its parts once it holds a natural rummy and another rummy, see
+ * {@link ScoreUtil}, so until then a subproblem's best completion depends on the points so far.
+ *
+ * <p>The memo is an open addressing hash table of primitive arrays, of a fixed size. When a probe
+ * sequence is full, the entry at its start is replaced, so a hand with more subproblems than the
+ * table holds is still solved exactly, only with some subproblems searched more than once. The
+ * search budget does not apply. Part pruning does, as for {@link PartsSolver}, but not the
+ * policy's cut of early singles.
+ */
+class MemoizedSolver {
+
+  static final int DEFAULT_MEMO_BITS = 16;
+
+  private static final int SINGLE = PartType.SINGLE.ordinal();
+  private static final int NATURAL_RUMMY = PartType.NATURAL_RUMMY.ordinal();
+  private static final int RUMMY = PartType.RUMMY.ordinal();
+  private static final int SET = PartType.SET.ordinal();
+
+  // Whether the parts so far hold a natural rummy, and another rummy, see ScoreUtil.
+  private static final int GATE_NATURAL = 1;
+  private static final int GATE_RUMMY = 2;
+  private static final int GATE_OPEN = GATE_NATURAL | GATE_RUMMY;
+
+  // A completion's value packs its points subtracted from POINTS_LIMIT, then its score offset to
+  // be non-negative, so the greater value is the better completion. Once the parts so far hold a
+  // natural and another rummy, the points are those the completion adds, else the hand's.
+  private static final int POINTS_SHIFT = 32;
+  private static final long POINTS_LIMIT = (1L << 28) - 1;
+  private static final long SCORE_OFFSET = 1L << 31;
+  private static final int PREFIX_POINTS_SHIFT = 22 + IncrementalScorer.STATE_BITS;
+  private static final long NO_HAND = -1;
+
+  private static final int PROBES = 8;
+
+  private final int handSize;
+  private final PruningPolicy pruningPolicy;
+  private final MoveOrdering moveOrdering;
+  private final IncrementalScorer scorer;
+  private final PartTable table = new PartTable();
+
+  // The non-single parts, by table index, and the cards of the parts from each of them on.
+  private int[] nonSingles = new int[0];
+  private long[] suffixCards = new long[0];
+  private int numNonSingles;
+  private final int[] singles = new int[PartTable.MAX_CARDS];
+  private final long[] cardValues = new long[PartTable.MAX_CARDS];
+  private long allCards;
+  private long noSingle;
+  private int numFree;
+  long nodes;
+
+  // The memo: keys are the used cards, and the next part, scorer state and gate packed together.
+  // A slot is only valid while its stamp is the current solve's, so it is never cleared.
+  private final int memoMask;
+  private final long[] memoUsed;
+  private final long[] memoRest;
+  private final long[] memoValue;
+  private final int[] memoStamp;
+  private int stamp;
+
+  MemoizedSolver(
+      int handSize,
+      ScorerFactory scorerFactory,
+      PruningPolicy pruningPolicy,
+      MoveOrdering moveOrdering,
+      int memoBits) {
+    if (!(scorerFactory.get() instanceof IncrementalScorer)) {
+      throw new IllegalArgumentException("scorer is not incremental: " + scorerFactory.getName());
+    }
+    this.handSize = handSize;
+    this.pruningPolicy = pruningPolicy;
+    this.moveOrdering = moveOrdering;
+    this.scorer = (IncrementalScorer) scorerFactory.get();
+    int memoSize = 1 << memoBits;
+    this.memoMask = memoSize - 1;
+    this.memoUsed = new long[memoSize];
+    this.memoRest = new long[memoSize];
+    this.memoValue = new long[memoSize];
+    this.memoStamp = new int[memoSize];
+  }
+
+  Solution solve(Set<Part> parts, boolean extraCard) {
+    table.load(pruningPolicy.prune(moveOrdering.order(new ArrayList<>(parts))));
+    nodes = 0;
+    numFree = extraCard ? 1 : 0;
+    int numCards = table.numCards();
+    if (numCards != handSize + numFree) {
+      // Every card is either in the hand or free, so no hand can be formed.
+      return new Solution();
+    }
+    prepare(numCards);
+    if (++stamp == 0) {
+      // Stamps wrapped around, so old slots could look current.
+      Arrays.fill(memoStamp, 0);
+      stamp = 1;
+    }
+
+    int state = scorer.initialState();
+    if (best(0, 0L, 0L, state, 0, 0) == NO_HAND) {
+      return new Solution();
+    }
+    return reconstruct(state);
+  }
+
+  private void prepare(int numCards) {
+    int size = table.size();
+    if (nonSingles.length < size) {
+      nonSingles = new int[size];
+      suffixCards = new long[size + 1];
+    }
+    allCards = numCards == 64 ? -1L : (1L << numCards) - 1;
+    Arrays.fill(singles, 0, numCards, -1);
+    numNonSingles = 0;
+    for (int idx = 0; idx < size; idx++) {
+      if (table.type[idx] == SINGLE) {
+        int number = Long.numberOfTrailingZeros(table.cardMask[idx]);
+        singles[number] = idx;
+        cardValues[number] = table.valueMask[idx];
+      } else {
+        nonSingles[numNonSingles++] = idx;
+      }
+    }
+    suffixCards[numNonSingles] = 0;
+    for (int i = numNonSingles - 1; i >= 0; i--) {
+      suffixCards[i] = suffixCards[i + 1] | table.cardMask[nonSingles[i]];
+    }
+    noSingle = 0;
+    for (int number = 0; number < numCards; number++) {
+      if (singles[number] < 0) {
+        noSingle |= 1L << number;
+      }
+    }
+  }
+
+  // The best completion of a hand from the given non-single part on, or NO_HAND. The parts so far
+  // used the given cards, hold the given card values, left the scorer state and gate, and until
+  // the gate is open, have the given points.
+  private long best(int next, long used, long values, int state, int gate, int prefixPoints) {
+    nodes++;
+    // Skip parts overlapping the hand so far.
+    while (next < numNonSingles && (table.cardMask[nonSingles[next]] & used) != 0) {
+      next++;
+    }
+    // Cards without a single must go in a part still to come, or be free.
+    if (Long.bitCount(noSingle & ~used & ~suffixCards[next]) > numFree
+        || Long.bitCount(used) > handSize) {
+      return NO_HAND;
+    }
+    if (next == numNonSingles) {
+      return complete(used, values, gate, null);
+    }
+
+    long rest = next | (long) state << 20 | (long) gate << (20 + IncrementalScorer.STATE_BITS)
+        | (long) prefixPoints << PREFIX_POINTS_SHIFT;
+    int slot = find(used, rest);
+    if (memoStamp[slot] == stamp && memoUsed[slot] == used && memoRest[slot] == rest) {
+      return memoValue[slot];
+    }
+
+    long value = Math.max(
+        best(next + 1, used, values, state, gate, prefixPoints),
+        withPart(next, used, values, state, gate, prefixPoints));
+
+    memoStamp[slot] = stamp;
+    memoUsed[slot] = used;
+    memoRest[slot] = rest;
+    memoValue[slot] = value;
+    return value;
+  }
+
+  // The best completion of a hand that takes the given non-single part next, or NO_HAND.
+  private long withPart(int next, long used, long values, int state, int gate, int prefixPoints) {
+    int idx = nonSingles[next];
+    int partGate = nextGate(idx, gate);
+    int partPoints = countsPoints(idx) ? table.points[idx] : 0;
+    long completion = best(
+        next + 1,
+        used | table.cardMask[idx],
+        values | table.valueMask[idx],
+        scorer.nextState(table, idx, state),
+        partGate,
+        partGate == GATE_OPEN ? 0 : prefixPoints + partPoints);
+    if (completion == NO_HAND) {
+      return NO_HAND;
+    }
+    long value = completion + scorer.scorePart(table, idx, state);
+    if (partGate == GATE_OPEN) {
+      // The completion's points are only its own, so add the part's, and the points so far if
+      // this part opened the gate.
+      int points = partPoints + (gate == GATE_OPEN ? 0 : prefixPoints);
+      value -= (long) points << POINTS_SHIFT;
+    }
+    return value;
+  }
+
+  // Whether a part's cards count towards the hand's points, as in ScoreUtil.
+  private boolean countsPoints(int idx) {
+    int type = table.type[idx];
+    return type != NATURAL_RUMMY && type != RUMMY && type != SET;
+  }
+
+  private int nextGate(int idx, int gate) {
+    int type = table.type[idx];
+    if (type == NATURAL_RUMMY) {
+      return (gate & GATE_NATURAL) != 0 ? gate | GATE_RUMMY : gate | GATE_NATURAL;
+    }
+    return type == RUMMY ? gate | GATE_RUMMY : gate;
+  }
+
+  // The value of making the cards not yet used singles, less the free card. If freeCard is not
+  // null, the chosen free card is stored in it.
+  private long complete(long used, long values, int gate, long[] freeCard) {
+    long remaining = allCards & ~used;
+    boolean open = gate == GATE_OPEN;
+    long free = 0;
+    if (numFree > 0) {
+      long forced = remaining & noSingle;
+      if (forced != 0) {
+        free = forced;
+      } else {
+        // Free the card that leaves the fewest points, then the most score.
+        int bestPoints = -1;
+        int bestScore = Integer.MAX_VALUE;
+        for (long m = remaining; m != 0; m &= m - 1) {
+          int number = Long.numberOfTrailingZeros(m);
+          int idx = singles[number];
+          int points = open ? table.points[idx] : 0;
+          int score = scorer.scoreSingle(table, idx, values);
+          if (points > bestPoints || (points == bestPoints && score < bestScore)) {
+            bestPoints = points;
+            bestScore = score;
+            free = 1L << number;
+          }
+        }
+      }
+    }
+    long singleCards = remaining & ~free;
+    if ((singleCards & noSingle) != 0) {
+      return NO_HAND;
+    }
+    long score = 0;
+    long points = open ? 0 : ScoreUtil.FULL_HAND_POINTS;
+    for (long m = singleCards; m != 0; m &= m - 1) {
+      int idx = singles[Long.numberOfTrailingZeros(m)];
+      score += scorer.scoreSingle(table, idx, values);
+      points += open ? table.points[idx] : 0;
+    }
+    if (freeCard != null) {
+      freeCard[0] = free;
+    }
+    return (POINTS_LIMIT - points) << POINTS_SHIFT | SCORE_OFFSET + score;
+  }
+
+  // Slot of the given key: its own slot if present, else an empty or stale slot on its probe
+  // sequence, else the start of the sequence, to be replaced.
+  private int find(long used, long rest) {
+    long hash = (used * 0x9E3779B97F4A7C15L) ^ (rest * 0xC2B2AE3D27D4EB4FL);
+    int home = (int) (hash ^ (hash >>> 32)) & memoMask;
+    int slot = home;
+    for (int i = 0; i < PROBES; i++) {
+      if (memoStamp[slot] != stamp || (memoUsed[slot] == used && memoRest[slot] == rest)) {
+        return slot;
+      }
+      slot = (slot + 1) & memoMask;
+    }
+    return home;
+  }
+
+  // Walks the memoized choices from the root to collect the best hand's parts.
+  private Solution reconstruct(int state) {
+    List<Integer> chosen = new ArrayList<>();
+    long used = 0;
+    long values = 0;
+    int gate = 0;
+    int prefixPoints = 0;
+    int next = 0;
+    while (true) {
+      while (next < numNonSingles && (table.cardMask[nonSingles[next]] & used) != 0) {
+        next++;
+      }
+      if (next == numNonSingles) {
+        break;
+      }
+      long without = best(next + 1, used, values, state, gate, prefixPoints);
+      long with = withPart(next, used, values, state, gate, prefixPoints);
+      if (with > without) {
+        int idx = nonSingles[next];
+        chosen.add(idx);
+        used |= table.cardMask[idx];
+        values |= table.valueMask[idx];
+        state = scorer.nextState(table, idx, state);
+        gate = nextGate(idx, gate);
+        if (gate == GATE_OPEN) {
+          prefixPoints = 0;
+        } else if (countsPoints(idx)) {
+          prefixPoints += table.points[idx];
+        }
+      }
+      next++;
+    }
+    long[] freeCard = new long[1];
+    complete(used, values, gate, freeCard);
+    long singleCards = allCards & ~used & ~freeCard[0];
+    for (long m = singleCards; m != 0; m &= m - 1) {
+      chosen.add(singles[Long.numberOfTrailingZeros(m)]);
+    }
+
+    int[] partIdxs = new int[chosen.size()];
+    for (int i = 0; i < partIdxs.length; i++) {
+      partIdxs[i] = chosen.get(i);
+    }
+    Arrays.sort(partIdxs);
+    Solution solution = new Solution();
+    solution.parts = new ArrayList<>(partIdxs.length);
+    for (int idx : partIdxs) {
+      solution.parts.add(table.part(idx));
+    }
+    solution.score = scorer.scoreParts(table, partIdxs, partIdxs.length);
+    solution.points = ScoreUtil.calculatePoints(table, partIdxs, partIdxs.length);
+    solution.isWinning = solution.points == 0;
+    solution.freeCards = new ArrayList<>(numFree);
+    for (long m = freeCard[0]; m != 0; m &= m - 1) {
+      solution.freeCards.add(table.card(Long.numberOfTrailingZeros(m)));
+    }
+    solution.nodes = nodes;
+    return solution;
+  }
+}
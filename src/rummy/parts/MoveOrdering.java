@@ -0,0 +1,131 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import rummy.core.Card;
+
+/**
+ * Decides the order in which a {@link PartsSolver} tries parts. A strong hand found early lets the
+ * search exit sooner on a winning hand, but orderings can also change the hand found: of two hands
+ * with the same points and score the first found is kept, and heuristic pruning keeps different
+ * parts under different orders. {@link #BY_TYPE} is the default, as the others
+ * find a worse hand on some positions. Subclasses can override either hook.
+ *
+ * <p>Parts are always ordered by type first, since pruning expects natural rummys first and
+ * singles last. Scorers see a hand's parts in this order too, so it can break ties in score, eg
+ * which of two natural rummys counts as the first.
+ */
+public class MoveOrdering {
+
+  /** Orders parts by type only, keeping the tokenizer's order within a type. */
+  public static final MoveOrdering BY_TYPE = new MoveOrdering(false) {
+    @Override
+    public List<Part> order(List<Part> parts) {
+      List<Part> ordered = new ArrayList<>(parts);
+      ordered.sort(PARTS_BY_ORDINAL);
+      return ordered;
+    }
+  };
+
+  /** Orders parts by their expected contribution to the hand, see {@link #order(List)}. */
+  public static final MoveOrdering BY_VALUE = new MoveOrdering(false);
+
+  /**
+   * Orders parts as {@link #BY_VALUE}, and at each step of the search branches on the card with
+   * the fewest parts left that could hold it.
+   */
+  public static final MoveOrdering MOST_CONSTRAINED_CARD = new MoveOrdering(true);
+
+  private static final Comparator<Part> PARTS_BY_ORDINAL = new Comparator<Part>() {
+    @Override
+    public int compare(Part p1, Part p2) {
+      return p1.type.ordinal() - p2.type.ordinal();
+    }
+  };
+
+  private final boolean mostConstrainedFirst;
+
+  protected MoveOrdering(boolean mostConstrainedFirst) {
+    this.mostConstrainedFirst = mostConstrainedFirst;
+  }
+
+  /** Returns the built-in ordering with the given name: type, value or constrained. */
+  public static MoveOrdering forName(String name) {
+    switch (name.toLowerCase(Locale.ROOT)) {
+      case "type": return BY_TYPE;
+      case "value": return BY_VALUE;
+      case "constrained": return MOST_CONSTRAINED_CARD;
+      default: throw new IllegalArgumentException("unknown move ordering: " + name);
+    }
+  }
+
+  /**
+   * Returns the parts in the order to try them. Within a type, parts holding more cards come
+   * first, then those removing more points from the hand, then those sharing cards with fewer
+   * other parts, so they close off fewer alternatives. Remaining ties go by card id, so the order
+   * does not depend on the order of the given parts.
+   */
+  public List<Part> order(List<Part> parts) {
+    // Number of parts holding each card, by card id.
+    final int[] cardDegree = new int[Card.NUM_IDS];
+    for (Part part : parts) {
+      for (Card card : part.cards) {
+        cardDegree[card.id()]++;
+      }
+    }
+    final Map<Part, Integer> conflictDegree = new HashMap<>();
+    final Map<Part, Integer> points = new HashMap<>();
+    for (Part part : parts) {
+      int degree = 0;
+      int partPoints = 0;
+      for (Card card : part.cards) {
+        degree += cardDegree[card.id()];
+        partPoints += card.face.points;
+      }
+      conflictDegree.put(part, degree);
+      points.put(part, partPoints);
+    }
+
+    List<Part> ordered = new ArrayList<>(parts);
+    ordered.sort(new Comparator<Part>() {
+      @Override
+      public int compare(Part p1, Part p2) {
+        if (p1.type != p2.type) {
+          return p1.type.ordinal() - p2.type.ordinal();
+        }
+        if (p1.cards.size() != p2.cards.size()) {
+          return p2.cards.size() - p1.cards.size();
+        }
+        int cmp = points.get(p2).compareTo(points.get(p1));
+        if (cmp != 0) {
+          return cmp;
+        }
+        cmp = conflictDegree.get(p1).compareTo(conflictDegree.get(p2));
+        if (cmp != 0) {
+          return cmp;
+        }
+        for (int i = 0; i < p1.cards.size(); i++) {
+          cmp = Integer.compare(p1.cards.get(i).id(), p2.cards.get(i).id());
+          if (cmp != 0) {
+            return cmp;
+          }
+        }
+        return 0;
+      }
+    });
+    return ordered;
+  }
+
+  /**
+   * Whether the search branches on the most constrained card at each step, rather than choosing
+   * parts in order.
+   */
+  public boolean mostConstrainedFirst() {
+    return mostConstrainedFirst;
+  }
+}
@@ -86,6 +86,6 @@ public class Part {
 
   @Override
   public int hashCode() {
-    return Objects.hash(type, cards);
+    return Objects.hash(type.ordinal(), cards);
   }
 }
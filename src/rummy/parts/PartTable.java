@@ -0,0 +1,182 @@
+package rummy.parts;
+
+import java.util.Arrays;
+import java.util.List;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+
+/**
+ * The parts of one hand flattened into parallel primitive arrays, indexed by part, so a search and
+ * its scorers read a few contiguous arrays instead of following {@link Part} and {@link Card}
+ * objects. The cards of the hand are numbered in order of first appearance, and each part's cards
+ * are kept as a bit mask of those numbers.
+ *
+ * <p>A table is scratch space: {@link #load(List)} overwrites it in place, growing the arrays only
+ * when a hand has more parts than any before it.
+ */
+public final class PartTable {
+
+  /** Hands may hold at most this many distinct cards, one bit each in a card mask. */
+  public static final int MAX_CARDS = 64;
+
+  /** Bit of a value mask standing for printed jokers, which have no card value. */
+  public static final int JOKER_VALUE_BIT = 63;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int size;
+  private int numCards;
+  private int conflictWords;
+
+  /** {@link PartType} ordinal of each part. */
+  public int[] type = new int[INITIAL_CAPACITY];
+  /** Number of cards in each part. */
+  public int[] cardCount = new int[INITIAL_CAPACITY];
+  /** Card numbers used by each part. */
+  public long[] cardMask = new long[INITIAL_CAPACITY];
+  /** Card values (suit * 13 + face) used by each part, with jokers at {@link #JOKER_VALUE_BIT}. */
+  public long[] valueMask = new long[INITIAL_CAPACITY];
+  /** Sum of the face points of each part's cards. */
+  public int[] points = new int[INITIAL_CAPACITY];
+  /** Number of printed jokers in each part. */
+  public int[] jokers = new int[INITIAL_CAPACITY];
+  /** Whether each part holds an ace. */
+  public boolean[] ace = new boolean[INITIAL_CAPACITY];
+  /**
+   * For each part, the parts sharing a card with it (itself included), as {@link #conflictWords()}
+   * words of bits starting at {@code part * conflictWords()}.
+   */
+  public long[] conflicts = new long[INITIAL_CAPACITY];
+  /**
+   * For each card number, the parts holding it, as {@link #conflictWords()} words of bits starting
+   * at {@code number * conflictWords()}.
+   */
+  public long[] cardParts = new long[MAX_CARDS];
+
+  private Part[] parts = new Part[INITIAL_CAPACITY];
+  private Card[] cards = new Card[MAX_CARDS];
+  // Card number of each card id, or -1 when the card is not in the hand.
+  private final int[] cardNumbers = new int[Card.NUM_IDS];
+
+  public PartTable() {
+    Arrays.fill(cardNumbers, -1);
+  }
+
+  /** Replaces the contents of this table with the given parts, in order. */
+  public void load(List<Part> partList) {
+    for (int i = 0; i < numCards; i++) {
+      cardNumbers[cards[i].id()] = -1;
+    }
+    size = partList.size();
+    numCards = 0;
+    conflictWords = (size + 63) >>> 6;
+    ensureCapacity(size);
+
+    for (int i = 0; i < size; i++) {
+      Part part = partList.get(i);
+      parts[i] = part;
+      type[i] = part.type.ordinal();
+      cardCount[i] = part.cards.size();
+      ace[i] = part.containsAce;
+      long partCards = 0;
+      long partValues = 0;
+      int partPoints = 0;
+      int partJokers = 0;
+      for (Card card : part.cards) {
+        partCards |= 1L << cardNumber(card);
+        partPoints += card.face.points;
+        if (card.face == Face.JOKER) {
+          partJokers++;
+          partValues |= 1L << JOKER_VALUE_BIT;
+        } else {
+          partValues |= 1L << card.value;
+        }
+      }
+      cardMask[i] = partCards;
+      valueMask[i] = partValues;
+      points[i] = partPoints;
+      jokers[i] = partJokers;
+    }
+
+    Arrays.fill(conflicts, 0, size * conflictWords, 0L);
+    for (int i = 0; i < size; i++) {
+      for (int j = i; j < size; j++) {
+        if ((cardMask[i] & cardMask[j]) != 0) {
+          conflicts[i * conflictWords + (j >>> 6)] |= 1L << j;
+          conflicts[j * conflictWords + (i >>> 6)] |= 1L << i;
+        }
+      }
+    }
+
+    Arrays.fill(cardParts, 0, numCards * conflictWords, 0L);
+    for (int i = 0; i < size; i++) {
+      long mask = cardMask[i];
+      while (mask != 0) {
+        int number = Long.numberOfTrailingZeros(mask);
+        mask &= mask - 1;
+        cardParts[number * conflictWords + (i >>> 6)] |= 1L << i;
+      }
+    }
+  }
+
+  // Numbers cards in order of first appearance.
+  private int cardNumber(Card card) {
+    int number = cardNumbers[card.id()];
+    if (number < 0) {
+      if (numCards == MAX_CARDS) {
+        throw new IllegalArgumentException("too many cards in hand");
+      }
+      number = numCards++;
+      cardNumbers[card.id()] = number;
+      cards[number] = card;
+    }
+    return number;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > type.length) {
+      int newCapacity = Math.max(capacity, type.length * 2);
+      type = Arrays.copyOf(type, newCapacity);
+      cardCount = Arrays.copyOf(cardCount, newCapacity);
+      cardMask = Arrays.copyOf(cardMask, newCapacity);
+      valueMask = Arrays.copyOf(valueMask, newCapacity);
+      points = Arrays.copyOf(points, newCapacity);
+      jokers = Arrays.copyOf(jokers, newCapacity);
+      ace = Arrays.copyOf(ace, newCapacity);
+      parts = Arrays.copyOf(parts, newCapacity);
+    }
+    int words = capacity * ((capacity + 63) >>> 6);
+    if (words > conflicts.length) {
+      conflicts = new long[Math.max(words, conflicts.length * 2)];
+    }
+    words = MAX_CARDS * ((capacity + 63) >>> 6);
+    if (words > cardParts.length) {
+      cardParts = new long[words];
+    }
+  }
+
+  /** Number of parts. */
+  public int size() {
+    return size;
+  }
+
+  /** Number of distinct cards over all parts. */
+  public int numCards() {
+    return numCards;
+  }
+
+  /** Number of longs per part in {@link #conflicts}. */
+  public int conflictWords() {
+    return conflictWords;
+  }
+
+  public Part part(int idx) {
+    return parts[idx];
+  }
+
+  /** The card with the given card number. */
+  public Card card(int number) {
+    return cards[number];
+  }
+}
@@ -1,21 +1,18 @@
 package rummy.parts;
 
 import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
-
 import rummy.core.Card;
 import rummy.core.Card.Face;
+import rummy.jfr.InitializeSearchEvent;
+import rummy.jfr.PrepareSearchEvent;
+import rummy.jfr.SearchEvent;
 import rummy.scorer.ScoreUtil;
+import rummy.scorer.Scorer;
 import rummy.scorer.ScorerFactory;
 
 /**
@@ -23,231 +20,506 @@ import rummy.scorer.ScorerFactory;
  * that optimizes a score function.  Goes through each possible combination of parts that forms a
  * valid hand via backtracking. Applies various pruning mechanisms to lower the search space, at
  * the cost of missing some (hopefully rare) optimal hand configurations.
+ *
+ * <p>The {@link MoveOrdering} decides the order parts are tried in, and whether the search picks
+ * parts in that order or covers the most constrained card first. Either way a hand's parts are
+ * scored in table order, so the same hand always gets the same score.
  */
 public class PartsSolver {
 
-  private static final int DEFAULT_HAND_SIZE = 13;
+  static final int DEFAULT_HAND_SIZE = 13;
+
+  private static final int SINGLE = PartType.SINGLE.ordinal();
 
-  // See description of #initializeBitMaps() to see how these are used.
-  private final BiMap<Integer, Part> bitIdxToPart;
-  private final Map<Part, BitSet> partToBitSet;
+  // The parts being searched, flattened into arrays. See #initializeSearch().
+  private final PartTable table;
 
   private List<Part> parts;
   private final int handSize;
-  private final boolean extraCard;
-  private final ScorerFactory scorerFactory;
+  private boolean extraCard;
+  // Face of the face joker, if known, for events only.
+  private Face faceJoker;
+  final ScorerFactory scorerFactory;
+  private final PruningPolicy pruningPolicy;
+  private final MoveOrdering moveOrdering;
+  // Scores part tables only, which keeps no state between hands, so one scorer is reused.
+  private final Scorer scorer;
 
-  // Helper variable allocated once rather than in the recursive search method, to prevent GC
-  // overhead.
-  private BitSet usedPartSet;
+  // Search stacks, allocated once and grown as needed rather than in the recursive search method,
+  // to prevent GC overhead. availableStack holds the available parts at each depth, and
+  // chosenParts the part chosen at each depth.
+  private long[] availableStack = new long[0];
+  private int[] chosenParts = new int[0];
+  // The parts of a hand being scored, in table order.
+  private int[] handParts = new int[0];
+  private int conflictWords;
+  private int numCards;
   int searchIterations = 0;
 
-  private static final Comparator<Part> PARTS_BY_ORDINAL = new Comparator<Part>() {
-    @Override
-    public int compare(Part p1, Part p2) {
-      // First enums to last enums
-      return p1.type.ordinal() - p2.type.ordinal();
-    }
-  };
+  // Search budget: once either is used up the search stops and returns the best hand so far, or a
+  // greedily formed hand if it had not found one yet. The clock is only read every
+  // CLOCK_CHECK_NODES nodes.
+  private static final int CLOCK_CHECK_NODES = 256;
+  private long nodeBudget = Long.MAX_VALUE;
+  private long timeBudgetNanos = Long.MAX_VALUE;
+  private long deadline;
+  private boolean budgetExceeded;
+
+  // State of the search by most constrained card, see #searchByCard(). The non-single parts, as
+  // bits by part; the single of each card number, or -1 if pruned; and the cards without a single.
+  private long[] nonSingleParts = new long[0];
+  private final int[] singles = new int[PartTable.MAX_CARDS];
+  private long noSingle;
+  private int numFree;
 
   // Allows for a different handSize just for testing purposes
   PartsSolver(int handSize, Set<Part> parts, boolean extraCard, ScorerFactory scorerFactory) {
+    this(handSize, scorerFactory);
+    reset(parts, extraCard);
+  }
+
+  public PartsSolver(Set<Part> parts, boolean extraCard, ScorerFactory scorerFactory) {
+    this(DEFAULT_HAND_SIZE, parts, extraCard, scorerFactory);
+  }
+
+  // Creates an empty solver, which must be loaded with #reset() before searching.
+  PartsSolver(int handSize, ScorerFactory scorerFactory) {
+    this(handSize, scorerFactory, PruningPolicy.HEURISTIC);
+  }
+
+  PartsSolver(int handSize, ScorerFactory scorerFactory, PruningPolicy pruningPolicy) {
+    this(handSize, scorerFactory, pruningPolicy, MoveOrdering.BY_TYPE);
+  }
+
+  PartsSolver(
+      int handSize,
+      ScorerFactory scorerFactory,
+      PruningPolicy pruningPolicy,
+      MoveOrdering moveOrdering) {
     this.parts = new ArrayList<>();
-    this.parts.addAll(parts);
     this.handSize = handSize;
-    this.extraCard = extraCard;
     this.scorerFactory = scorerFactory;
-    this.bitIdxToPart = HashBiMap.create();
-    this.partToBitSet = new HashMap<>();
+    this.pruningPolicy = pruningPolicy;
+    this.moveOrdering = moveOrdering;
+    this.scorer = scorerFactory.get();
+    this.table = new PartTable();
+  }
 
+  /**
+   * Limits each search to the given number of nodes and/or time, after which the best hand found
+   * so far is returned. Long.MAX_VALUE means no limit.
+   */
+  void setBudget(long nodeBudget, long timeBudgetNanos) {
+    this.nodeBudget = nodeBudget;
+    this.timeBudgetNanos = timeBudgetNanos;
+  }
+
+  /**
+   * Loads a new hand's parts into this solver, reusing the part table and search stacks allocated
+   * for previous hands.
+   */
+  void reset(Set<Part> parts, boolean extraCard) {
+    reset(parts, extraCard, null /* face joker */);
+  }
+
+  /** Like {@link #reset(Set, boolean)}, recording the face joker the parts were formed with. */
+  void reset(Set<Part> parts, boolean extraCard, Face faceJoker) {
+    this.parts = new ArrayList<>(parts);
+    this.extraCard = extraCard;
+    this.faceJoker = faceJoker;
+    this.searchIterations = 0;
+
+    PrepareSearchEvent prepareEvent = new PrepareSearchEvent();
+    prepareEvent.begin();
     preparePartsForSearch();
-    initializeBitMaps();
+    prepareEvent.end();
+    if (prepareEvent.shouldCommit()) {
+      prepareEvent.setHand(handCards(parts), faceJoker);
+      prepareEvent.setParts(this.parts.size());
+      prepareEvent.setOutcome((parts.size() - this.parts.size()) + " pruned");
+      prepareEvent.commit();
+    }
+
+    InitializeSearchEvent initializeEvent = new InitializeSearchEvent();
+    initializeEvent.begin();
+    initializeSearch();
+    initializeEvent.end();
+    if (initializeEvent.shouldCommit()) {
+      initializeEvent.setHand(handCards(parts), faceJoker);
+      initializeEvent.setParts(table.size());
+      initializeEvent.commit();
+    }
   }
 
-  public PartsSolver(Set<Part> parts, boolean extraCard, ScorerFactory scorerFactory) {
-    this(DEFAULT_HAND_SIZE, parts, extraCard, scorerFactory);
+  // The distinct cards of the given parts, for events.
+  private static List<Card> handCards(Set<Part> parts) {
+    Set<Card> cards = new LinkedHashSet<>();
+    for (Part part : parts) {
+      cards.addAll(part.cards);
+    }
+    return new ArrayList<>(cards);
   }
 
   private void preparePartsForSearch() {
-    this.parts.sort(PARTS_BY_ORDINAL);
-    this.parts = pruneParts(parts);
+    this.parts = moveOrdering.order(parts);
+    this.parts = pruningPolicy.prune(parts);
   }
 
-  // Create the maps which will be used in the backtracking algorithm.
+  // Flattens the parts into the part table, which the search then reads exclusively.
   //
   // Eg, suppose we have parts NatRummy[3H-4H-5H], Set[3H-3S-3C], Rummy[5H-jk-7H], Single[3H],
-  // Single[4H], Single[5H].  The follow map associations will be created:
-  // a.) BitIdxToPart contains a map of a bitIdx to a part (and partToBitIdx the reverse).
-  //   1 <-> NatRummy[3H-4H-5H]
-  //   2 <-> Set[3H-3S-3C]
-  //   3 <-> Rummy[5H-jk-7H]
-  //   4 <-> Single[3H]
-  //   5 <-> Single[4H]
-  //   6 <-> Single[5H]
-  // b.) PartToBitSet contains for each part, the BitIdxs of all parts containing the same cards.
-  //   NatRummy[3H-4H-5H] -> [1,2,3,4,5,6]
-  //   Set[3H-3S-3C] -> [1,2,4]
-  //   Rummy[5H-jk-7H] -> [1,3,6]
-  //   Single[3H] -> [1,2,4]
-  //   Single[4H] -> [1,5]
-  //   Single[5H] -> [1,3,6]
-  private void initializeBitMaps() {
-    // Register a BitIndex for each part
-    int nextBitIdx = 1;
-    for (Part part : parts) {
-      bitIdxToPart.put(nextBitIdx, part);
-      nextBitIdx += 1;
+  // Single[4H], Single[5H].  The cards are numbered 3H=0, 4H=1, 5H=2, 3S=3, 3C=4, jk=5, 7H=6 and
+  // the table holds, among other columns:
+  //   idx  part                 cardMask   conflicts
+  //   0    NatRummy[3H-4H-5H]   0000111    [0,1,2,3,4,5]
+  //   1    Set[3H-3S-3C]        0011001    [0,1,3]
+  //   2    Rummy[5H-jk-7H]      1100100    [0,2,5]
+  //   3    Single[3H]           0000001    [0,1,3]
+  //   4    Single[4H]           0000010    [0,4]
+  //   5    Single[5H]           0000100    [0,2,5]
+  // Using a part removes its conflicts from the available parts.
+  private void initializeSearch() {
+    table.load(parts);
+    numCards = table.numCards();
+    conflictWords = table.conflictWords();
+    // Every part holds at least one card, so a hand never uses more parts than cards.
+    int maxDepth = numCards + 1;
+    if (chosenParts.length < maxDepth) {
+      chosenParts = new int[maxDepth];
+      handParts = new int[maxDepth];
     }
-
-    // Create a helper BitSet for each card, indicating which parts it is used in.
-    Map<Card, BitSet> cardToBitSet = new HashMap<>();
-    for (Part part : parts) {
-      for (Card card : part.cards) {
-        if (cardToBitSet.get(card) == null) {
-          cardToBitSet.put(card, new BitSet());
-        }
-        BitSet cardBitSet = cardToBitSet.get(card);
-        int bitIdx = bitIdxToPart.inverse().get(part);
-        cardBitSet.set(bitIdx);
-      }
+    int stackWords = (maxDepth + 1) * conflictWords;
+    if (availableStack.length < stackWords) {
+      availableStack = new long[stackWords];
     }
+  }
 
-    // Create a BitSet for each part, indicated which parts its cards are used in.
-    for (Part part : parts) {
-      BitSet bitSet = new BitSet();
-      for (Card card : part.cards) {
-        BitSet cardBitSet = cardToBitSet.get(card);
-        bitSet.or(cardBitSet);
-      }
-      partToBitSet.put(part, bitSet);
-    }
+  public Solution findBestHand() {
+    return findBestHand(timeBudgetNanos == Long.MAX_VALUE
+        ? Long.MAX_VALUE
+        : System.nanoTime() + timeBudgetNanos);
   }
 
   /**
-   * Shortens a list of parts, in order to lower the computation time for finding optimal part
-   * configurations. This will make it impossible to find the optimal hand in certain (hopefully
-   * rare) cases. It will remove parts that belong to some 3-card rummys (eg, those cards are stuck
-   * to the rummy, can't consider any other usages).
+   * Like {@link #findBestHand()}, but stops at the given deadline, a System.nanoTime() value,
+   * rather than the time budget from now, eg so the budget also covers tokenizing.
    */
-  static List<Part> pruneParts(List<Part> parts) {
-    List<Part> pruned = new ArrayList<>();
-    Set<Card> blackListed = new HashSet<>();
-    for (Part part : parts) {
-      boolean skip = false;
-      if (part.type == PartType.NATURAL_RUMMY) {
-        if (part.cards.size() == 3
-            && blackListed.size() <= 3
-            && part.cards.get(0).face != Face.ACE) {
-          blackListed.addAll(part.cards);
-        }
-      } else if (part.type != PartType.RUMMY) {
-        for (Card card : part.cards) {
-          if (blackListed.contains(card)) {
-            skip = true;
-          }
-        }
-      }
+  Solution findBestHand(long deadline) {
+    // Add all parts to the available parts
+    int size = table.size();
+    for (int w = 0; w < conflictWords; w++) {
+      int bits = Math.min(64, size - w * 64);
+      availableStack[w] = bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    budgetExceeded = false;
+    this.deadline = deadline;
 
-      if (!skip) {
-        pruned.add(part);
+    // Find which parts to use that optimizes the score
+    Solution best = new Solution();
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    if (moveOrdering.mostConstrainedFirst()) {
+      startSearchByCard(best);
+    } else {
+      search(0 /* depth */, 0 /* startIdx */, 0L /* used cards */, best);
+    }
+    event.end();
+    if (best.parts == null
+        && (budgetExceeded || numCards == handSize + (extraCard ? 1 : 0))) {
+      // Ran out of budget, or pruning left no way to cover a hand of the right size.
+      formGreedyHand(best);
+    }
+    best.truncated = budgetExceeded;
+    best.nodes = searchIterations;
+    if (event.shouldCommit()) {
+      List<Card> cards = new ArrayList<>(numCards);
+      for (int number = 0; number < numCards; number++) {
+        cards.add(table.card(number));
       }
+      event.setHand(cards, faceJoker);
+      event.setParts(table.size());
+      event.setNodes(searchIterations);
+      event.setOutcome(best.parts == null
+          ? "no hand"
+          : "score " + best.score + ", points " + best.points
+              + (best.truncated ? ", truncated" : ""));
+      event.commit();
     }
-    return pruned;
+    return best;
   }
 
-  public Solution findBestHand() {
-    // Add all parts to set
-    BitSet availableParts = new BitSet();
-    Set<Card> allCards = new HashSet<>();
-    for (Part part : parts) {
-      availableParts.set(bitIdxToPart.inverse().get(part));
-      allCards.addAll(part.cards);
+  // Forms some valid hand without searching, for when the search did not find one. Takes
+  // non-overlapping parts in table order, so the best part types first, then fills up with singles.
+  private void formGreedyHand(Solution best) {
+    List<Part> handParts = new ArrayList<>();
+    long usedCards = 0;
+    int numUsed = 0;
+    for (int idx = 0; idx < table.size() && numUsed < handSize; idx++) {
+      if ((usedCards & table.cardMask[idx]) == 0 && numUsed + table.cardCount[idx] <= handSize) {
+        handParts.add(table.part(idx));
+        usedCards |= table.cardMask[idx];
+        numUsed += table.cardCount[idx];
+      }
+    }
+    // Pruning may have dropped the singles of some cards.
+    for (int number = 0; number < numCards && numUsed < handSize; number++) {
+      if ((usedCards & (1L << number)) == 0) {
+        handParts.add(Part.single(table.card(number)));
+        usedCards |= 1L << number;
+        numUsed++;
+      }
     }
 
-    // Find which parts to use that optimizes the score
-    Solution best = new Solution();
-    search(
-        availableParts,
-        0 /* startBitIdx */,
-        new LinkedHashSet<>() /* running parts */,
-        allCards,
-        new LinkedHashSet<>() /* used cards */,
-        best);
-    return best;
+    best.parts = handParts;
+    best.score = scorerFactory.get().scoreParts(new LinkedHashSet<>(handParts));
+    best.points = ScoreUtil.calculatePoints(handParts);
+    best.isWinning = best.points == 0;
+    best.freeCards = freeCards(usedCards);
   }
 
-  private void search(
-      BitSet availableParts,
-      int startIdx,
-      Set<Part> runningParts,
-      Set<Card> availableCards,
-      Set<Card> usedCards,
-      Solution best) {
-    if (best.isWinning) {
-      // Found a winning solution, end the search.
+  private void search(int depth, int startIdx, long usedCards, Solution best) {
+    if (best.isWinning || budgetExceeded) {
+      // Found a winning solution or ran out of budget, end the search.
       return;
     }
 
     searchIterations++;
-    if (usedCards.size() == handSize && availableCards.size() == (extraCard ? 1 : 0)) {
+    if (overBudget()) {
+      budgetExceeded = true;
+      return;
+    }
+    int numUsed = Long.bitCount(usedCards);
+    int numAvailable = numCards - numUsed;
+    if (numUsed == handSize && numAvailable == (extraCard ? 1 : 0)) {
       // Found a solution, record it if its the best one so far
-      // System.out.println(runningParts);
-      int score = computeScore(runningParts);
-      int points = ScoreUtil.calculatePoints(runningParts);
-      if (points <= best.points && score > best.score) {
-      //if (points <= best.points) {
-        best.parts = new ArrayList<Part>(runningParts);
-        best.score = score;
-        best.points = points;
-        best.isWinning = best.points == 0;
-        best.freeCards = new ArrayList<Card>(availableCards);
-      }
+      // Parts are chosen in table order
+      recordIfBetter(chosenParts, depth, usedCards, best);
       return;
     }
 
-    if (availableCards.size() + usedCards.size() < handSize || usedCards.size() >= handSize) {
+    if (numAvailable + numUsed < handSize || numUsed >= handSize) {
       // No possible solution in this path
       return;
     }
 
-    BitSet original = new BitSet();
-    original.or(availableParts);
-    Part nextPart;
-    for (int bitIdx = availableParts.nextSetBit(startIdx);
-        bitIdx >= 0;
-        bitIdx = availableParts.nextSetBit(bitIdx+1)) {
-      // Get the next available part to use for forming a hand
-      nextPart = bitIdxToPart.get(bitIdx);
-
+    int base = depth * conflictWords;
+    int childBase = base + conflictWords;
+    for (int idx = nextAvailable(base, startIdx); idx >= 0; idx = nextAvailable(base, idx + 1)) {
       // No use in continuing if first/second part is a single, there must be a better hand
       // previously.
-      if (nextPart.type == PartType.SINGLE && runningParts.size() <= 1 && parts.size() > 25) {
+      if (table.type[idx] == SINGLE && pruningPolicy.stopAtSingle(depth, table.size())) {
         return;
       }
 
-      // Use this part.
-      runningParts.add(nextPart);
-      usedCards.addAll(nextPart.cards);
-
-      // Mark which other parts are no longer available for use, as their cards will overlap with
-      // the newly used part.
-      availableCards.removeAll(nextPart.cards);
-      usedPartSet = partToBitSet.get(nextPart);
-      availableParts.andNot(usedPartSet);
+      // Use this part, marking which other parts are no longer available for use, as their cards
+      // will overlap with the newly used part.
+      long[] conflicts = table.conflicts;
+      int conflictBase = idx * conflictWords;
+      for (int w = 0; w < conflictWords; w++) {
+        availableStack[childBase + w] = availableStack[base + w] & ~conflicts[conflictBase + w];
+      }
+      chosenParts[depth] = idx;
 
       // Recursively search through remaining cards to form a hand
-      search(availableParts, bitIdx + 1, runningParts, availableCards, usedCards, best);
+      search(depth + 1, idx + 1, usedCards | table.cardMask[idx], best);
+    }
+  }
+
+  // Records a hand, its parts given in table order, if it is better than the best so far.
+  private void recordIfBetter(int[] partIdxs, int numParts, long usedCards, Solution best) {
+    int score = scorer.scoreParts(table, partIdxs, numParts);
+    int points = ScoreUtil.calculatePoints(table, partIdxs, numParts);
+    if (points <= best.points && score > best.score) {
+      best.parts = new ArrayList<Part>(numParts);
+      for (int i = 0; i < numParts; i++) {
+        best.parts.add(table.part(partIdxs[i]));
+      }
+      best.score = score;
+      best.points = points;
+      best.isWinning = best.points == 0;
+      best.freeCards = freeCards(usedCards);
+    }
+  }
+
+  private void startSearchByCard(Solution best) {
+    numFree = extraCard ? 1 : 0;
+    if (numCards != handSize + numFree) {
+      // Every card is either in the hand or free, so no hand can be formed.
+      return;
+    }
+    if (nonSingleParts.length < conflictWords) {
+      nonSingleParts = new long[conflictWords];
+    }
+    Arrays.fill(nonSingleParts, 0, conflictWords, 0L);
+    Arrays.fill(singles, 0, numCards, -1);
+    for (int idx = 0; idx < table.size(); idx++) {
+      if (table.type[idx] == SINGLE) {
+        singles[Long.numberOfTrailingZeros(table.cardMask[idx])] = idx;
+      } else {
+        nonSingleParts[idx >>> 6] |= 1L << idx;
+      }
+    }
+    noSingle = 0;
+    for (int number = 0; number < numCards; number++) {
+      if (singles[number] < 0) {
+        noSingle |= 1L << number;
+      }
+    }
+    searchByCard(0 /* level */, 0 /* depth */, 0L /* used cards */, 0L /* deferred */, best);
+  }
+
+  // Searches by covering the most constrained card at each step: the open card with the fewest
+  // available non-single parts holding it. The card is either covered by one of those parts, or
+  // deferred to end up as a single or the free card. Cards with no parts left are deferred without
+  // branching, and once no open card is left the hand is completed by #completeHand(). Each level
+  // covers or defers at least one card, so levels index the available stack as depths do in
+  // #search().
+  private void searchByCard(int level, int depth, long usedCards, long deferred, Solution best) {
+    if (best.isWinning || budgetExceeded) {
+      return;
+    }
+    searchIterations++;
+    if (overBudget()) {
+      budgetExceeded = true;
+      return;
+    }
+    int numUsed = Long.bitCount(usedCards);
+    if (numUsed > handSize || Long.bitCount(deferred & noSingle) > numFree) {
+      // No possible solution in this path
+      return;
+    }
+    int base = level * conflictWords;
+
+    long open = (numCards == 64 ? -1L : (1L << numCards) - 1) & ~usedCards & ~deferred;
+    int card = -1;
+    int fewest = Integer.MAX_VALUE;
+    for (long m = open; m != 0; m &= m - 1) {
+      int number = Long.numberOfTrailingZeros(m);
+      int cardBase = number * conflictWords;
+      int count = 0;
+      for (int w = 0; w < conflictWords; w++) {
+        count += Long.bitCount(
+            availableStack[base + w] & table.cardParts[cardBase + w] & nonSingleParts[w]);
+      }
+      if (count == 0) {
+        deferred |= 1L << number;
+      } else if (count < fewest) {
+        fewest = count;
+        card = number;
+      }
+    }
+    if (card < 0) {
+      completeHand(depth, usedCards, deferred, best);
+      return;
+    }
+
+    int childBase = base + conflictWords;
+    int cardBase = card * conflictWords;
+    for (int w = 0; w < conflictWords; w++) {
+      long word = availableStack[base + w] & table.cardParts[cardBase + w] & nonSingleParts[w];
+      while (word != 0) {
+        int idx = (w << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+        int conflictBase = idx * conflictWords;
+        for (int v = 0; v < conflictWords; v++) {
+          availableStack[childBase + v] =
+              availableStack[base + v] & ~table.conflicts[conflictBase + v];
+        }
+        chosenParts[depth] = idx;
+        searchByCard(level + 1, depth + 1, usedCards | table.cardMask[idx], deferred, best);
+        if (best.isWinning || budgetExceeded) {
+          return;
+        }
+      }
+    }
+    // Or leave the card out of every part.
+    for (int v = 0; v < conflictWords; v++) {
+      availableStack[childBase + v] = availableStack[base + v] & ~table.cardParts[cardBase + v];
+    }
+    searchByCard(level + 1, depth, usedCards, deferred | (1L << card), best);
+  }
+
+  // Completes a hand from the chosen parts by making the deferred cards singles, except for the
+  // free card, trying each deferred card as the free one.
+  private void completeHand(int depth, long usedCards, long deferred, Solution best) {
+    if (depth <= 1
+        && Long.bitCount(deferred) > numFree
+        && pruningPolicy.stopAtSingle(depth, table.size())) {
+      // As in #search(), hands whose first or second part is a single are not considered.
+      return;
+    }
+    if (numFree == 0) {
+      completeHand(depth, usedCards, deferred, 0L, best);
+      return;
+    }
+    for (long m = deferred; m != 0 && !best.isWinning; m &= m - 1) {
+      completeHand(depth, usedCards, deferred, Long.lowestOneBit(m), best);
+    }
+  }
+
+  private void completeHand(int depth, long usedCards, long deferred, long free, Solution best) {
+    long singleCards = deferred & ~free;
+    if ((singleCards & noSingle) != 0) {
+      return;
+    }
+    int numParts = depth;
+    System.arraycopy(chosenParts, 0, handParts, 0, depth);
+    for (long m = singleCards; m != 0; m &= m - 1) {
+      handParts[numParts++] = singles[Long.numberOfTrailingZeros(m)];
+    }
+    sortHandParts(numParts);
+    recordIfBetter(handParts, numParts, usedCards | singleCards, best);
+  }
+
+  // Insertion sort, as hands hold few parts.
+  private void sortHandParts(int numParts) {
+    for (int i = 1; i < numParts; i++) {
+      int idx = handParts[i];
+      int j = i - 1;
+      while (j >= 0 && handParts[j] > idx) {
+        handParts[j + 1] = handParts[j];
+        j--;
+      }
+      handParts[j + 1] = idx;
+    }
+  }
 
-      // Restore hand to original state as if the part was not used.
-      availableParts.or(original);
-      runningParts.remove(nextPart);
-      usedCards.removeAll(nextPart.cards);
-      availableCards.addAll(nextPart.cards);
+  private boolean overBudget() {
+    if (searchIterations > nodeBudget) {
+      return true;
     }
+    return deadline != Long.MAX_VALUE
+        && searchIterations % CLOCK_CHECK_NODES == 0
+        && System.nanoTime() > deadline;
   }
 
-  private int computeScore(Set<Part> parts) {
-    return scorerFactory.get().scoreParts(parts);
+  // Index of the first available part at or after fromIdx at the given stack offset, or -1.
+  private int nextAvailable(int base, int fromIdx) {
+    int w = fromIdx >>> 6;
+    if (w >= conflictWords) {
+      return -1;
+    }
+    long word = availableStack[base + w] & (-1L << fromIdx);
+    while (true) {
+      if (word != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+      if (++w == conflictWords) {
+        return -1;
+      }
+      word = availableStack[base + w];
+    }
+  }
+
+  private List<Card> freeCards(long usedCards) {
+    List<Card> freeCards = new ArrayList<>();
+    for (int number = 0; number < numCards; number++) {
+      if ((usedCards & (1L << number)) == 0) {
+        freeCards.add(table.card(number));
+      }
+    }
+    return freeCards;
   }
 
   /**
@@ -259,5 +531,9 @@ public class PartsSolver {
     public int points = ScoreUtil.FULL_HAND_POINTS;
     public List<Card> freeCards = null;
     public boolean isWinning = false;
+    // Whether the search ran out of budget, so a better hand may exist.
+    public boolean truncated = false;
+    // Search nodes visited to find it, or 0 if the solver does not count them.
+    public long nodes = 0;
   }
 }
@@ -0,0 +1,99 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+
+/**
+ * Decides which parts a {@link PartsSolver} may skip, trading the chance of missing the optimal
+ * hand for a smaller search. Subclasses can override either hook.
+ */
+public class PruningPolicy {
+
+  /** Never prunes, so the search always finds the optimal hand. */
+  public static final PruningPolicy EXACT = new PruningPolicy(-1, Integer.MAX_VALUE);
+
+  /**
+   * Sticks the cards of the first few 3-card non-ace natural rummys to those rummys, and stops
+   * branching on singles near the top of the search for hands with many parts.
+   */
+  public static final PruningPolicy HEURISTIC = new PruningPolicy(3, 25);
+
+  /**
+   * Like {@link #HEURISTIC}, but sticks the cards of more rummys and stops branching on early
+   * singles for smaller hands, so misses the optimal hand more often.
+   */
+  public static final PruningPolicy AGGRESSIVE = new PruningPolicy(6, 15);
+
+  private final int maxBlacklistSize;
+  private final int singleCutoffParts;
+
+  /**
+   * @param maxBlacklistSize cards of 3-card natural rummys are blacklisted from other non-rummy
+   *     parts while the blacklist holds at most this many cards. Negative disables blacklisting.
+   * @param singleCutoffParts for hands with more parts than this, the search does not branch on a
+   *     single as its first or second part.
+   */
+  public PruningPolicy(int maxBlacklistSize, int singleCutoffParts) {
+    this.maxBlacklistSize = maxBlacklistSize;
+    this.singleCutoffParts = singleCutoffParts;
+  }
+
+  /** Returns the built-in policy with the given name: exact, heuristic or aggressive. */
+  public static PruningPolicy forName(String name) {
+    switch (name.toLowerCase(Locale.ROOT)) {
+      case "exact": return EXACT;
+      case "heuristic": return HEURISTIC;
+      case "aggressive": return AGGRESSIVE;
+      default: throw new IllegalArgumentException("unknown pruning policy: " + name);
+    }
+  }
+
+  /**
+   * Shortens a list of parts, sorted by type, in order to lower the computation time for finding
+   * optimal part configurations. This will make it impossible to find the optimal hand in certain
+   * (hopefully rare) cases. It will remove parts that belong to some 3-card rummys (eg, those cards
+   * are stuck to the rummy, can't consider any other usages).
+   */
+  public List<Part> prune(List<Part> parts) {
+    if (maxBlacklistSize < 0) {
+      return parts;
+    }
+    List<Part> pruned = new ArrayList<>();
+    Set<Card> blackListed = new HashSet<>();
+    for (Part part : parts) {
+      boolean skip = false;
+      if (part.type == PartType.NATURAL_RUMMY) {
+        if (part.cards.size() == 3
+            && blackListed.size() <= maxBlacklistSize
+            && part.cards.get(0).face != Face.ACE) {
+          blackListed.addAll(part.cards);
+        }
+      } else if (part.type != PartType.RUMMY) {
+        for (Card card : part.cards) {
+          if (blackListed.contains(card)) {
+            skip = true;
+          }
+        }
+      }
+
+      if (!skip) {
+        pruned.add(part);
+      }
+    }
+    return pruned;
+  }
+
+  /**
+   * Whether the search may stop branching at a single, given how many parts are already in use and
+   * how many parts the hand has. Singles sort last, so there must be a better hand previously.
+   */
+  public boolean stopAtSingle(int numRunningParts, int numParts) {
+    return numRunningParts <= 1 && numParts > singleCutoffParts;
+  }
+}
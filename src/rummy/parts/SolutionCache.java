@@ -0,0 +1,153 @@
+package rummy.parts;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.log.HandCapture;
+import rummy.metrics.Counter;
+import rummy.metrics.MetricsRegistry;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SuitCanonicalizer.Canonical;
+
+/**
+ * A bounded, thread-safe cache of solved hands. Hands are keyed by their cards regardless of order
+ * and of suit labels (see {@link SuitCanonicalizer}), together with the face joker, extra card flag
+ * and solver engine, so one cache can be shared between computers and threads.
+ *
+ * <p>Each lookup returns a new solution over the hand's own cards. Since the solution comes from
+ * the canonical hand, it may differ from solving the hand directly where several hands score the
+ * same.
+ */
+public class SolutionCache {
+
+  public static final int DEFAULT_MAX_SIZE = 100_000;
+
+  private final Cache<Key, Solution> cache;
+  private final Counter hits;
+  private final Counter misses;
+
+  public SolutionCache(int maxSize, MetricsRegistry metrics) {
+    this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    this.hits = metrics.counter("rummy_cache_hits_total", "Solution cache lookups found cached.");
+    this.misses = metrics.counter("rummy_cache_misses_total", "Solution cache lookups solved.");
+  }
+
+  public SolutionCache(int maxSize) {
+    this(maxSize, MetricsRegistry.DEFAULT);
+  }
+
+  public SolutionCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /** Returns the solution for the hand, solving and caching its canonical form if missing. */
+  public Solution get(Hand hand, Face faceJoker, boolean extraCard, SolverEngine engine) {
+    return get(hand, faceJoker, extraCard, engine, null /* capture */);
+  }
+
+  /**
+   * Like {@link #get(Hand, Face, boolean, SolverEngine)}, offering the canonical hand to the
+   * capture, if not null, when it had to be solved.
+   */
+  public Solution get(
+      Hand hand, Face faceJoker, boolean extraCard, SolverEngine engine, HandCapture capture) {
+    Canonical canonical = SuitCanonicalizer.canonicalize(hand);
+    Solution canonicalSolution;
+    Loader loader = new Loader(canonical.hand, faceJoker, extraCard, engine, capture);
+    try {
+      canonicalSolution =
+          cache.get(new Key(canonical.hand, faceJoker, extraCard, engine), loader);
+    } catch (ExecutionException e) {
+      throw new UncheckedExecutionException(e.getCause());
+    }
+    (loader.loaded ? misses : hits).increment();
+    return canonical.restore(canonicalSolution);
+  }
+
+  public long hitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long missCount() {
+    return cache.stats().missCount();
+  }
+
+  // Solves a canonical hand on a cache miss, noting that it did.
+  private static final class Loader implements Callable<Solution> {
+    private final Hand hand;
+    private final Face faceJoker;
+    private final boolean extraCard;
+    private final SolverEngine engine;
+    private final HandCapture capture;
+    private boolean loaded;
+
+    Loader(
+        Hand hand, Face faceJoker, boolean extraCard, SolverEngine engine, HandCapture capture) {
+      this.hand = hand;
+      this.faceJoker = faceJoker;
+      this.extraCard = extraCard;
+      this.engine = engine;
+      this.capture = capture;
+    }
+
+    @Override
+    public Solution call() {
+      loaded = true;
+      long start = System.nanoTime();
+      Solution solution = engine.solve(hand, faceJoker, extraCard);
+      if (capture != null) {
+        capture.offer(hand, faceJoker, extraCard, engine.getScorerFactory().getName(),
+            System.nanoTime() - start, solution);
+      }
+      return solution;
+    }
+  }
+
+  // Canonical hands are compared by their sorted card ids.
+  private static final class Key {
+    private final byte[] cardIds;
+    private final Face faceJoker;
+    private final boolean extraCard;
+    private final SolverEngine engine;
+    private final int hashCode;
+
+    Key(Hand hand, Face faceJoker, boolean extraCard, SolverEngine engine) {
+      this.cardIds = new byte[hand.cards.size()];
+      for (int i = 0; i < cardIds.length; i++) {
+        cardIds[i] = (byte) hand.cards.get(i).id();
+      }
+      Arrays.sort(cardIds);
+      this.faceJoker = faceJoker;
+      this.extraCard = extraCard;
+      this.engine = engine;
+      this.hashCode = 31 * Arrays.hashCode(cardIds)
+          + (faceJoker == null ? 0 : faceJoker.ordinal() + 1) * 2
+          + (extraCard ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode
+          && faceJoker == other.faceJoker
+          && extraCard == other.extraCard
+          && engine == other.engine
+          && Arrays.equals(cardIds, other.cardIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,519 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.Hand;
+import rummy.features.HandFeatures;
+import rummy.metrics.Histogram;
+import rummy.metrics.MetricsRegistry;
+import rummy.parts.PartsSolver.Solution;
+import rummy.scorer.IncrementalScorer;
+import rummy.scorer.ScorerFactory;
+import rummy.tokenizer.AggregateTokenizer;
+import rummy.tokenizer.PartsTokenizer;
+import rummy.tokenizer.StreamingTokenizer;
+import rummy.tokenizer.StreamingTokenizer.PartStream;
+
+/**
+ * Solves hands for one rule configuration: hand size, scorer, pruning policy, move ordering and
+ * search budget. An engine is immutable and may be shared by any number of threads. The search
+ * state lives in a {@link PartsSolver} kept per thread, so calls from different threads never
+ * share scratch buffers, and calls from the same thread reuse them.
+ *
+ * <p>Each call may pick its {@link Algorithm}: the exhaustive backtracking search, memoized dynamic
+ * programming, or simulated annealing for hands too large to search. Calls that don't pick one use
+ * the engine's, by default backtracking.
+ *
+ * <p>A streaming engine tokenizes a hand's rummys and sets first, and only if they can not close
+ * the hand goes on to its partial parts and singles, see {@link Builder#streaming(boolean)}.
+ */
+public final class SolverEngine {
+
+  private static final ConcurrentMap<ScorerFactory, SolverEngine> DEFAULT_ENGINES =
+      new ConcurrentHashMap<>();
+
+  /** How a hand is solved. */
+  public enum Algorithm {
+    /** Backtracking over all combinations of parts, less those pruned by the policy. */
+    BACKTRACKING,
+    /** Simulated annealing from a greedy hand, see {@link AnnealingSolver}. Not optimal. */
+    ANNEALING,
+    /**
+     * Dynamic programming over the non-single parts, memoizing the best completion of each
+     * subproblem, see {@link MemoizedSolver}. Exact, but ignores the search budget.
+     */
+    MEMOIZED,
+  }
+
+  private final int handSize;
+  private final ScorerFactory scorerFactory;
+  private final PruningPolicy pruningPolicy;
+  private final MoveOrdering moveOrdering;
+  private final Algorithm algorithm;
+  private final boolean streaming;
+  private final long nodeBudget;
+  private final long timeBudgetNanos;
+  private final int annealingIterations;
+  private final int annealingRestarts;
+  private final long annealingSeed;
+  private final ExecutorService annealingPool;
+  // Metrics, labelled by scorer. Solve times are kept per algorithm, by ordinal.
+  private final Histogram tokenizeNanos;
+  private final Histogram[] solveNanos;
+  private final Histogram repairNanos;
+  private final Histogram partsPerHand;
+  private final Histogram nodesPerSolve;
+  // Tokenizers keep no state between calls, so one instance is shared.
+  private final PartsTokenizer tokenizer = new AggregateTokenizer();
+  private final StreamingTokenizer streamingTokenizer = new StreamingTokenizer();
+  private final ThreadLocal<PartsSolver> solvers = new ThreadLocal<PartsSolver>() {
+    @Override
+    protected PartsSolver initialValue() {
+      PartsSolver solver = new PartsSolver(handSize, scorerFactory, pruningPolicy, moveOrdering);
+      solver.setBudget(nodeBudget, timeBudgetNanos);
+      return solver;
+    }
+  };
+  private final ThreadLocal<AnnealingSolver> annealers = new ThreadLocal<AnnealingSolver>() {
+    @Override
+    protected AnnealingSolver initialValue() {
+      return new AnnealingSolver(
+          handSize,
+          scorerFactory,
+          moveOrdering,
+          annealingIterations,
+          annealingRestarts,
+          annealingSeed,
+          annealingPool);
+    }
+  };
+  private final ThreadLocal<MemoizedSolver> memoizedSolvers = new ThreadLocal<MemoizedSolver>() {
+    @Override
+    protected MemoizedSolver initialValue() {
+      return new MemoizedSolver(
+          handSize, scorerFactory, pruningPolicy, moveOrdering, MemoizedSolver.DEFAULT_MEMO_BITS);
+    }
+  };
+
+  private SolverEngine(Builder builder) {
+    this.handSize = builder.handSize;
+    this.scorerFactory = builder.scorerFactory;
+    this.pruningPolicy = builder.pruningPolicy;
+    this.moveOrdering = builder.moveOrdering;
+    this.algorithm = builder.algorithm;
+    this.streaming = builder.streaming;
+    this.nodeBudget = builder.nodeBudget;
+    this.timeBudgetNanos = builder.timeBudgetNanos;
+    this.annealingIterations = builder.annealingIterations;
+    this.annealingRestarts = builder.annealingRestarts;
+    this.annealingSeed = builder.annealingSeed;
+    this.annealingPool = builder.annealingPool;
+
+    MetricsRegistry metrics = builder.metrics;
+    String scorer = scorerFactory.getName();
+    this.tokenizeNanos = metrics.timer(
+        "rummy_tokenize_seconds", "Time to tokenize a hand into parts.", "scorer", scorer);
+    this.solveNanos = new Histogram[Algorithm.values().length];
+    for (Algorithm algorithm : Algorithm.values()) {
+      solveNanos[algorithm.ordinal()] = metrics.timer(
+          "rummy_solve_seconds", "Time to solve a tokenized hand.",
+          "scorer", scorer, "algorithm", algorithm.name().toLowerCase(Locale.ROOT));
+    }
+    this.repairNanos = metrics.timer(
+        "rummy_solve_seconds", "Time to solve a tokenized hand.",
+        "scorer", scorer, "algorithm", "repair");
+    this.partsPerHand = metrics.histogram(
+        "rummy_parts_per_hand", "Parts tokenized from each solved hand.", "scorer", scorer);
+    this.nodesPerSolve = metrics.histogram(
+        "rummy_search_nodes", "Nodes visited by each search.", "scorer", scorer);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Returns the shared engine for 13-card hands and the heuristic pruning policy. */
+  public static SolverEngine forScorer(ScorerFactory scorerFactory) {
+    SolverEngine engine = DEFAULT_ENGINES.get(scorerFactory);
+    if (engine == null) {
+      DEFAULT_ENGINES.putIfAbsent(scorerFactory, builder().scorerFactory(scorerFactory).build());
+      engine = DEFAULT_ENGINES.get(scorerFactory);
+    }
+    return engine;
+  }
+
+  /** Builds a {@link SolverEngine}. Unset options keep the solver's defaults. */
+  public static class Builder {
+    private int handSize = PartsSolver.DEFAULT_HAND_SIZE;
+    private ScorerFactory scorerFactory = ScorerFactory.COMPLEX;
+    private PruningPolicy pruningPolicy = PruningPolicy.HEURISTIC;
+    private MoveOrdering moveOrdering = MoveOrdering.BY_TYPE;
+    private Algorithm algorithm = Algorithm.BACKTRACKING;
+    private boolean streaming = false;
+    private long nodeBudget = Long.MAX_VALUE;
+    private long timeBudgetNanos = Long.MAX_VALUE;
+    private int annealingIterations = 20000;
+    private int annealingRestarts = 4;
+    private long annealingSeed = 0;
+    private ExecutorService annealingPool = ForkJoinPool.commonPool();
+    private MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+
+    private Builder() {}
+
+    public Builder handSize(int handSize) {
+      Preconditions.checkArgument(handSize > 0, "hand size must be positive");
+      this.handSize = handSize;
+      return this;
+    }
+
+    public Builder scorerFactory(ScorerFactory scorerFactory) {
+      this.scorerFactory = Preconditions.checkNotNull(scorerFactory);
+      return this;
+    }
+
+    public Builder pruningPolicy(PruningPolicy pruningPolicy) {
+      this.pruningPolicy = Preconditions.checkNotNull(pruningPolicy);
+      return this;
+    }
+
+    public Builder moveOrdering(MoveOrdering moveOrdering) {
+      this.moveOrdering = Preconditions.checkNotNull(moveOrdering);
+      return this;
+    }
+
+    /** The algorithm of calls that don't pick one. Memoized needs an incremental scorer. */
+    public Builder algorithm(Algorithm algorithm) {
+      this.algorithm = Preconditions.checkNotNull(algorithm);
+      return this;
+    }
+
+    /**
+     * Whether to tokenize hands lazily when solving them. The natural rummys, rummys and sets are
+     * tokenized first, and if they alone form a winning hand, it is returned without tokenizing or
+     * searching the rest. Otherwise the hand is solved as usual. The winning hand may not be the
+     * one the full search would have stopped at, but every winning hand declares the same.
+     */
+    public Builder streaming(boolean streaming) {
+      this.streaming = streaming;
+      return this;
+    }
+
+    /**
+     * Stops a search after this many nodes, returning the best hand found so far marked as
+     * truncated. Large hands need a budget, as their search space grows exponentially.
+     */
+    public Builder nodeBudget(long nodeBudget) {
+      Preconditions.checkArgument(nodeBudget > 0, "node budget must be positive");
+      this.nodeBudget = nodeBudget;
+      return this;
+    }
+
+    /**
+     * Like {@link #nodeBudget(long)}, but stops a search once the given time has passed since the
+     * call to solve the hand, so the time to tokenize it counts too. Also bounds annealing.
+     */
+    public Builder timeBudget(long duration, TimeUnit unit) {
+      Preconditions.checkArgument(duration > 0, "time budget must be positive");
+      this.timeBudgetNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /** Moves per annealing restart, and the number of restarts. */
+    public Builder annealing(int iterations, int restarts) {
+      Preconditions.checkArgument(iterations > 0 && restarts > 0, "must anneal at least once");
+      this.annealingIterations = iterations;
+      this.annealingRestarts = restarts;
+      return this;
+    }
+
+    /** Seeds annealing, which otherwise gives the same hand for the same parts every call. */
+    public Builder annealingSeed(long seed) {
+      this.annealingSeed = seed;
+      return this;
+    }
+
+    /**
+     * Runs annealing restarts after the first on the given pool, or all on the calling thread if
+     * null. Defaults to the common pool.
+     */
+    public Builder annealingPool(ExecutorService pool) {
+      this.annealingPool = pool;
+      return this;
+    }
+
+    /** Records tokenize and solve metrics into the given registry, by default the shared one. */
+    public Builder metrics(MetricsRegistry metrics) {
+      this.metrics = Preconditions.checkNotNull(metrics);
+      return this;
+    }
+
+    public SolverEngine build() {
+      Preconditions.checkArgument(
+          algorithm != Algorithm.MEMOIZED || scorerFactory.get() instanceof IncrementalScorer,
+          "memoized search needs an incremental scorer");
+      return new SolverEngine(this);
+    }
+  }
+
+  /**
+   * Tokenizes and solves a hand. A hand with more cards than the hand size holds an extra card,
+   * which the solution leaves free to discard.
+   */
+  public Solution solve(Hand hand, Face faceJoker) {
+    return solve(hand, faceJoker, hand.cards.size() > handSize);
+  }
+
+  public Solution solve(Hand hand, Face faceJoker, boolean extraCard) {
+    long deadline = deadline(System.nanoTime());
+    if (!streaming) {
+      return solve(tokenize(hand, faceJoker), faceJoker, extraCard, algorithm, deadline);
+    }
+    PartStream stream = streamingTokenizer.stream(hand, faceJoker);
+    long start = System.nanoTime();
+    long tokenizeTime = 0;
+    // A hand without three cards in a natural run can't close, so skip straight to every part.
+    if (HandFeatures.of(hand, faceJoker).hasNatural(0)) {
+      Set<Part> melds = stream.pullThrough(PartType.SET);
+      tokenizeTime = System.nanoTime() - start;
+      Solution closed = close(melds, hand, faceJoker, extraCard, deadline);
+      if (closed != null) {
+        tokenizeNanos.record(tokenizeTime);
+        return closed;
+      }
+      start = System.nanoTime();
+    }
+    Set<Part> parts = stream.pullThrough(PartType.SINGLE);
+    tokenizeNanos.record(tokenizeTime + System.nanoTime() - start);
+    return solve(parts, faceJoker, extraCard, algorithm, deadline);
+  }
+
+  // A winning hand formed from the given rummys and sets alone, less the free card, or null if
+  // there is none.
+  private Solution close(
+      Set<Part> melds, Hand hand, Face faceJoker, boolean extraCard, long deadline) {
+    boolean natural = false;
+    Set<Card> covered = new HashSet<>();
+    for (Part part : melds) {
+      natural |= part.type == PartType.NATURAL_RUMMY;
+      covered.addAll(part.cards);
+    }
+    if (!natural || hand.cards.size() - covered.size() > (extraCard ? 1 : 0)) {
+      // No natural rummy, or too many cards in no rummy or set.
+      return null;
+    }
+    Set<Part> parts = new LinkedHashSet<>(melds);
+    for (Card card : hand.cards) {
+      if (!covered.contains(card)) {
+        // Only the free card may be outside the rummys and sets.
+        parts.add(Part.single(card));
+      }
+    }
+    Solution solution = solve(parts, faceJoker, extraCard, Algorithm.BACKTRACKING, deadline);
+    return solution.isWinning ? solution : null;
+  }
+
+  /**
+   * Solves a hand that differs by a few cards from one already solved, eg the previous turn's
+   * hand plus the drawn card, starting from the previous solution.
+   *
+   * <p>Parts of the previous solution whose cards are all still in the hand are kept, unless they
+   * share a part with one of the changed cards (those not in a kept part), in which case they are
+   * broken up. Only the cards near the changed ones are tokenized, and only the changed cards and
+   * the broken up parts are searched again, so the work depends on how much the hand changed
+   * rather than on its size. The hand found may score less than a full solve's.
+   */
+  public Solution repair(Hand hand, Face faceJoker, boolean extraCard, Solution previous) {
+    long deadline = deadline(System.nanoTime());
+    if (previous == null || previous.parts == null) {
+      return search(tokenize(hand, faceJoker), faceJoker, extraCard, Algorithm.BACKTRACKING,
+          deadline);
+    }
+
+    Set<Card> handCards = new HashSet<>(hand.cards);
+    List<Part> kept = new ArrayList<>(previous.parts.size());
+    Set<Card> changed = new HashSet<>(handCards);
+    for (Part part : previous.parts) {
+      if (handCards.containsAll(part.cards)) {
+        kept.add(part);
+        changed.removeAll(part.cards);
+      }
+    }
+
+    // The changed cards plus every card they could form a part with.
+    Set<Card> neighbourhood = new HashSet<>(changed);
+    for (Part part : tokenize(near(hand, changed, faceJoker), faceJoker)) {
+      if (part.type != PartType.SINGLE && !Collections.disjoint(part.cards, changed)) {
+        neighbourhood.addAll(part.cards);
+      }
+    }
+    Set<Part> repairParts = new LinkedHashSet<>();
+    for (Part part : kept) {
+      if (Collections.disjoint(part.cards, neighbourhood)) {
+        repairParts.add(part);
+      } else {
+        neighbourhood.addAll(part.cards);
+      }
+    }
+    // Every card of the neighbourhood's suits and faces gives the same parts within it as the
+    // whole hand would.
+    for (Part part : tokenize(near(hand, neighbourhood, faceJoker), faceJoker)) {
+      if (neighbourhood.containsAll(part.cards)) {
+        repairParts.add(part);
+      }
+    }
+
+    long start = System.nanoTime();
+    PartsSolver solver = solvers.get();
+    solver.reset(repairParts, extraCard, faceJoker);
+    Solution repaired = findBestHand(solver, deadline);
+    repairNanos.record(System.nanoTime() - start);
+    if (repaired.parts == null) {
+      // The kept parts left no way to form a hand.
+      return search(tokenize(hand, faceJoker), faceJoker, extraCard, Algorithm.BACKTRACKING,
+          deadline);
+    }
+    return repaired;
+  }
+
+  // The cards of a hand that could share a part with one of the given cards: those of the same
+  // suit or face, and jokers. The whole hand if one of the cards is itself a joker.
+  private static Hand near(Hand hand, Set<Card> cards, Face faceJoker) {
+    Set<Suit> suits = EnumSet.noneOf(Suit.class);
+    Set<Face> faces = EnumSet.noneOf(Face.class);
+    for (Card card : cards) {
+      if (card.isJoker() || card.face == faceJoker) {
+        return hand;
+      }
+      suits.add(card.suit);
+      faces.add(card.face);
+    }
+    Hand near = new Hand();
+    for (Card card : hand.cards) {
+      if (card.isJoker() || card.face == faceJoker
+          || suits.contains(card.suit) || faces.contains(card.face)) {
+        near.cards.add(card);
+      }
+    }
+    return near;
+  }
+
+  public Set<Part> tokenize(Hand hand, Face faceJoker) {
+    long start = System.nanoTime();
+    Set<Part> parts = tokenizer.tokenize(hand, faceJoker);
+    tokenizeNanos.record(System.nanoTime() - start);
+    return parts;
+  }
+
+  public Solution solve(Hand hand, Face faceJoker, boolean extraCard, Algorithm algorithm) {
+    long deadline = deadline(System.nanoTime());
+    return solve(tokenize(hand, faceJoker), faceJoker, extraCard, algorithm, deadline);
+  }
+
+  /** Finds the best hand formed from already tokenized parts, with the engine's algorithm. */
+  public Solution solve(Set<Part> parts, boolean extraCard) {
+    return solve(parts, extraCard, algorithm);
+  }
+
+  public Solution solve(Set<Part> parts, boolean extraCard, Algorithm algorithm) {
+    return solve(parts, null /* face joker */, extraCard, algorithm, deadline(System.nanoTime()));
+  }
+
+  private Solution solve(
+      Set<Part> parts, Face faceJoker, boolean extraCard, Algorithm algorithm, long deadline) {
+    long start = System.nanoTime();
+    Solution solution = search(parts, faceJoker, extraCard, algorithm, deadline);
+    if (solution.parts == null && algorithm != Algorithm.BACKTRACKING) {
+      // Pruning can leave the other algorithms no hand, where backtracking forms one greedily.
+      solution = search(parts, faceJoker, extraCard, Algorithm.BACKTRACKING, deadline);
+    }
+    solveNanos[algorithm.ordinal()].record(System.nanoTime() - start);
+    return solution;
+  }
+
+  // The time budget's deadline, as a System.nanoTime() value, for a solve started at the given
+  // time, or Long.MAX_VALUE if there is no budget.
+  private long deadline(long start) {
+    return timeBudgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeBudgetNanos;
+  }
+
+  private Solution search(
+      Set<Part> parts, Face faceJoker, boolean extraCard, Algorithm algorithm, long deadline) {
+    partsPerHand.record(parts.size());
+    switch (algorithm) {
+      case BACKTRACKING:
+        PartsSolver solver = solvers.get();
+        solver.reset(parts, extraCard, faceJoker);
+        return findBestHand(solver, deadline);
+      case ANNEALING:
+        return annealers.get().solve(parts, extraCard, deadline);
+      case MEMOIZED:
+        MemoizedSolver memoized = memoizedSolvers.get();
+        Solution solution = memoized.solve(parts, extraCard);
+        nodesPerSolve.record(memoized.nodes);
+        return solution;
+      default:
+        throw new IllegalStateException("bad algorithm");
+    }
+  }
+
+  private Solution findBestHand(PartsSolver solver, long deadline) {
+    Solution solution = solver.findBestHand(deadline);
+    nodesPerSolve.record(solver.searchIterations);
+    return solution;
+  }
+
+  public int getHandSize() {
+    return handSize;
+  }
+
+  public ScorerFactory getScorerFactory() {
+    return scorerFactory;
+  }
+
+  public PruningPolicy getPruningPolicy() {
+    return pruningPolicy;
+  }
+
+  public MoveOrdering getMoveOrdering() {
+    return moveOrdering;
+  }
+
+  public Algorithm getAlgorithm() {
+    return algorithm;
+  }
+
+  /** Whether every solve finds the optimal hand: no pruning, no budget and an exact algorithm. */
+  public boolean isExact() {
+    return pruningPolicy == PruningPolicy.EXACT && algorithm != Algorithm.ANNEALING
+        && nodeBudget == Long.MAX_VALUE && timeBudgetNanos == Long.MAX_VALUE;
+  }
+
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  public long getNodeBudget() {
+    return nodeBudget;
+  }
+
+  public long getTimeBudgetNanos() {
+    return timeBudgetNanos;
+  }
+}
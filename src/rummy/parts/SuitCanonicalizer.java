@@ -0,0 +1,128 @@
+package rummy.parts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+
+/**
+ * Maps a hand to a form that is the same for every relabelling of its suits, so hands that only
+ * differ by suit (eg all hearts swapped with spades) share one cache entry. Rummys and sets only
+ * compare suits for equality, and the face joker has no suit, so such hands break down the same
+ * way.
+ *
+ * <p>Suits are relabelled in order of how many cards of each face they hold, and copies of the
+ * same card from different decks, and printed jokers, are renumbered in order. The canonical hand
+ * is sorted by card id. A solution of the canonical hand is mapped back to the original cards with
+ * {@link Canonical#restore(Solution)}.
+ */
+public final class SuitCanonicalizer {
+
+  private static final Suit[] SUITS = {Suit.HEARTS, Suit.DIAMONDS, Suit.SPADES, Suit.CLUBS};
+  // Bits per face in a suit signature, enough to count Card.MAX_DECKS copies.
+  private static final int BITS_PER_FACE = 3;
+
+  private static final Comparator<Card> BY_ID = new Comparator<Card>() {
+    @Override
+    public int compare(Card c1, Card c2) {
+      return Integer.compare(c1.id(), c2.id());
+    }
+  };
+
+  private SuitCanonicalizer() {
+    // static class - can not instantiate
+  }
+
+  /** A canonical hand, plus the mapping back to the original cards. */
+  public static final class Canonical {
+    public final Hand hand;
+    // Original card of each canonical card, by canonical card id.
+    private final Card[] originals;
+
+    private Canonical(Hand hand, Card[] originals) {
+      this.hand = hand;
+      this.originals = originals;
+    }
+
+    /** Returns the original card for a card of the canonical hand. */
+    public Card original(Card canonicalCard) {
+      return originals[canonicalCard.id()];
+    }
+
+    /** Maps a solution of the canonical hand to a new solution over the original cards. */
+    public Solution restore(Solution canonicalSolution) {
+      Solution solution = new Solution();
+      solution.score = canonicalSolution.score;
+      solution.points = canonicalSolution.points;
+      solution.isWinning = canonicalSolution.isWinning;
+      solution.truncated = canonicalSolution.truncated;
+      solution.nodes = canonicalSolution.nodes;
+      if (canonicalSolution.parts != null) {
+        solution.parts = new ArrayList<>(canonicalSolution.parts.size());
+        for (Part part : canonicalSolution.parts) {
+          solution.parts.add(new Part(part.type, originals(part.cards)));
+        }
+      }
+      if (canonicalSolution.freeCards != null) {
+        solution.freeCards = originals(canonicalSolution.freeCards);
+      }
+      return solution;
+    }
+
+    private List<Card> originals(List<Card> canonicalCards) {
+      List<Card> cards = new ArrayList<>(canonicalCards.size());
+      for (Card card : canonicalCards) {
+        cards.add(original(card));
+      }
+      return cards;
+    }
+  }
+
+  public static Canonical canonicalize(Hand hand) {
+    // Signature of each suit: its count of each face, in BITS_PER_FACE bits per face. Suits with
+    // equal signatures hold the same faces, so their relative order does not matter.
+    final long[] signatures = new long[SUITS.length];
+    for (Card card : hand.cards) {
+      if (!card.isJoker()) {
+        signatures[card.suit.ordinal()] += 1L << (card.face.ordinal() * BITS_PER_FACE);
+      }
+    }
+    Integer[] suitOrder = {0, 1, 2, 3};
+    Arrays.sort(suitOrder, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer s1, Integer s2) {
+        return Long.compare(signatures[s2], signatures[s1]);
+      }
+    });
+    Suit[] relabelled = new Suit[SUITS.length];
+    for (int i = 0; i < suitOrder.length; i++) {
+      relabelled[suitOrder[i]] = SUITS[i];
+    }
+
+    // Renumber copies of each card in order of appearance.
+    int[] copies = new int[52];
+    int numJokers = 0;
+    Card[] originals = new Card[Card.NUM_IDS];
+    Hand canonicalHand = new Hand();
+    for (Card card : hand.cards) {
+      Card canonicalCard;
+      if (card.isJoker()) {
+        canonicalCard = new Card(++numJokers);
+      } else {
+        Suit suit = relabelled[card.suit.ordinal()];
+        Face face = card.face;
+        canonicalCard = new Card(face, suit, copies[suit.ordinal() * 13 + face.ordinal()]++);
+      }
+      originals[canonicalCard.id()] = card;
+      canonicalHand.cards.add(canonicalCard);
+    }
+    canonicalHand.cards.sort(BY_ID);
+    return new Canonical(canonicalHand, originals);
+  }
+}
@@ -0,0 +1,172 @@
+package rummy.scorer;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+import rummy.parts.Part;
+import rummy.parts.PartTable;
+import rummy.parts.PartType;
+
+/**
+ * A scorer whose rules are compiled, when it is built, into flat tables of scores. Scoring a part
+ * is then a table read at an index made from its type, size, ace flag and joker count, and from
+ * what came before it in the hand: the parts counted with its type, whether there was a natural
+ * rummy, and whether the run of four is taken. Gives the same scores as the rules it compiles.
+ *
+ * <p>Keeps no state, so one instance may be shared by any number of threads.
+ */
+public final class CompiledScorer implements IncrementalScorer {
+
+  private static final int NUM_TYPES = PartType.values().length;
+  private static final int SINGLE = PartType.SINGLE.ordinal();
+  private static final int SET = PartType.SET.ordinal();
+
+  // The part sizes the rules tell apart: four cards, five cards, and any other.
+  private static final int SIZE_OTHER = 0;
+  private static final int SIZE_FOUR = 1;
+  private static final int SIZE_FIVE = 2;
+  private static final int NUM_SIZES = 3;
+  private static final int[] SIZES = {3, 4, 5};
+  private static final int NUM_COUNTS = 3;
+
+  // The state, see IncrementalScorer, holds 2-bit counts of the parts so far, capped at
+  // NUM_COUNTS - 1, at each type's shift (sets and partial sets are counted together), and a bit
+  // for whether the run of four is taken. A natural rummy was seen if its count is not 0.
+  private static final int[] COUNT_SHIFT = new int[NUM_TYPES];
+  static {
+    COUNT_SHIFT[PartType.NATURAL_RUMMY.ordinal()] = 0;
+    COUNT_SHIFT[PartType.RUMMY.ordinal()] = 2;
+    COUNT_SHIFT[PartType.SET.ordinal()] = 4;
+    COUNT_SHIFT[PartType.PARTIAL_SET.ordinal()] = 4;
+    COUNT_SHIFT[PartType.PARTIAL_RUMMY.ordinal()] = 6;
+  }
+  private static final int NATURAL_MASK = 3;
+  private static final int FOUR_RUN_BIT = 1 << 8;
+
+  // Scores of non-single parts, see #partIndex(), and of singles, see #singleIndex().
+  private final int[] partScores = new int[NUM_TYPES * NUM_SIZES * 2 * NUM_COUNTS * 2 * 2];
+  private final int[] singleScores = new int[4];
+  // Whether a single's score depends on the values of the other parts, which costs a pass, and
+  // whether a part's score depends on the parts before it, which costs tracking the state.
+  private final boolean singlesSeeValues;
+  private final boolean stateless;
+
+  CompiledScorer(ScoringRules rules) {
+    for (int type = 0; type < NUM_TYPES; type++) {
+      if (type == SINGLE) {
+        continue;
+      }
+      for (int size = 0; size < NUM_SIZES; size++) {
+        for (int ace = 0; ace < 2; ace++) {
+          for (int count = 0; count < NUM_COUNTS; count++) {
+            for (int natural = 0; natural < 2; natural++) {
+              for (int fourRun = 0; fourRun < 2; fourRun++) {
+                partScores[partIndex(type, size, ace, count, natural, fourRun)] = rules.partScore(
+                    type, SIZES[size], ace == 1, count, natural == 1, fourRun == 1);
+              }
+            }
+          }
+        }
+      }
+    }
+    for (int joker = 0; joker < 2; joker++) {
+      for (int repeated = 0; repeated < 2; repeated++) {
+        singleScores[singleIndex(joker, repeated)] = rules.singleScore(joker == 1, repeated == 1);
+      }
+    }
+    this.singlesSeeValues = singleScores[singleIndex(0, 0)] != singleScores[singleIndex(0, 1)]
+        || singleScores[singleIndex(1, 0)] != singleScores[singleIndex(1, 1)];
+    boolean stateless = true;
+    for (int i = 0; i < partScores.length; i += STATES) {
+      for (int state = 1; state < STATES; state++) {
+        stateless &= partScores[i + state] == partScores[i];
+      }
+    }
+    this.stateless = stateless;
+  }
+
+  // Entries per type, size and ace flag, one for each count, natural and fourRun, which
+  // #partIndex() puts last.
+  private static final int STATES = NUM_COUNTS * 2 * 2;
+
+  private static int partIndex(int type, int size, int ace, int count, int natural, int fourRun) {
+    return ((((type * NUM_SIZES + size) * 2 + ace) * NUM_COUNTS + count) * 2 + natural) * 2
+        + fourRun;
+  }
+
+  private static int singleIndex(int joker, int repeated) {
+    return joker * 2 + repeated;
+  }
+
+  private static int sizeClass(int size) {
+    return size == 4 ? SIZE_FOUR : size == 5 ? SIZE_FIVE : SIZE_OTHER;
+  }
+
+  /** Scores the parts in iteration order, as the rules' scorer would. */
+  public int scoreParts(Set<Part> parts) {
+    PartTable table = new PartTable();
+    table.load(new ArrayList<>(parts));
+    int[] partIdxs = new int[table.size()];
+    for (int i = 0; i < partIdxs.length; i++) {
+      partIdxs[i] = i;
+    }
+    return scoreParts(table, partIdxs, partIdxs.length);
+  }
+
+  public int scoreParts(PartTable table, int[] partIdxs, int numParts) {
+    long partValues = 0;
+    for (int i = 0; singlesSeeValues && i < numParts; i++) {
+      int idx = partIdxs[i];
+      if (table.type[idx] != SINGLE) {
+        partValues |= table.valueMask[idx];
+      }
+    }
+    int state = 0;
+    int score = 0;
+    for (int i = 0; i < numParts; i++) {
+      int idx = partIdxs[i];
+      if (table.type[idx] == SINGLE) {
+        score += scoreSingle(table, idx, partValues);
+      } else {
+        score += scorePart(table, idx, state);
+        if (!stateless) {
+          state = nextState(table, idx, state);
+        }
+      }
+    }
+    return score;
+  }
+
+  public int initialState() {
+    return 0;
+  }
+
+  public int scorePart(PartTable table, int idx, int state) {
+    int type = table.type[idx];
+    return partScores[partIndex(
+        type,
+        sizeClass(table.cardCount[idx]),
+        table.ace[idx] ? 1 : 0,
+        (state >>> COUNT_SHIFT[type]) & 3,
+        (state & NATURAL_MASK) != 0 ? 1 : 0,
+        (state & FOUR_RUN_BIT) != 0 ? 1 : 0)];
+  }
+
+  public int nextState(PartTable table, int idx, int state) {
+    int type = table.type[idx];
+    // A part of four takes the run of four, unless it is a set without a natural before it.
+    if (table.cardCount[idx] == 4 && (type != SET || (state & NATURAL_MASK) != 0)) {
+      state |= FOUR_RUN_BIT;
+    }
+    int shift = COUNT_SHIFT[type];
+    if (((state >>> shift) & 3) < NUM_COUNTS - 1) {
+      state += 1 << shift;
+    }
+    return state;
+  }
+
+  public int scoreSingle(PartTable table, int idx, long partValues) {
+    return singleScores[singleIndex(
+        table.jokers[idx] > 0 ? 1 : 0, (table.valueMask[idx] & partValues) != 0 ? 1 : 0)];
+  }
+}
@@ -7,12 +7,12 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import com.google.common.collect.ImmutableMap;
-
 import rummy.core.Card;
 import rummy.core.Card.Face;
 import rummy.parts.Part;
+import rummy.parts.PartTable;
 import rummy.parts.PartType;
+import rummy.scorer.ScorerWeights.Weight;
 
 /**
  * Scorer which keeps track of state when scoring a part. Includes the following rules:
@@ -22,38 +22,83 @@ import rummy.parts.PartType;
  * - Encourages first run of four, disallows remaining
  * - Discourages duplicate single cards
  * - Slightly discourages runs with Ace
+ * The points and multipliers of these rules are {@link ScorerWeights}.
  * TODO: weigh rummy with middle jokers less
  */
-public class ComplexScorer implements Scorer {
-
-  // The points for each type, with diminishing points with more types. Eg the first natural rummy
-  // is worth 1000, second worth 500, third and more worth 500.
-  private static final Map<PartType, int[]> POINT_MAP =
-      new ImmutableMap.Builder<PartType, int[]>()
-          .put(PartType.NATURAL_RUMMY, new int[] {1000, 500, 500})
-          .put(PartType.RUMMY, new int[] {300, 300, 300})
-          .put(PartType.SET, new int[] {200, 100, -1000})
-          .put(PartType.PARTIAL_RUMMY, new int[] {75, 75, 75})
-          .put(PartType.PARTIAL_SET, new int[] {50, 50, 25})
-          .build();
+public class ComplexScorer implements IncrementalScorer, ScoringRules {
+
+  // The types scored by points, with diminishing points with more parts of a type. Eg by default
+  // the first natural rummy is worth 1000, second worth 500, third and more worth 500.
+  private static final PartType[] POINT_TYPES = {
+    PartType.NATURAL_RUMMY,
+    PartType.RUMMY,
+    PartType.SET,
+    PartType.PARTIAL_RUMMY,
+    PartType.PARTIAL_SET
+  };
+  private static final int POINTS_PER_TYPE = 3;
+  // The weights of POINT_TYPES' points, eg NATURAL_RUMMY_1 to NATURAL_RUMMY_3.
+  private static final Weight[][] POINT_WEIGHTS = new Weight[POINT_TYPES.length][POINTS_PER_TYPE];
+  static {
+    for (int t = 0; t < POINT_TYPES.length; t++) {
+      for (int i = 0; i < POINTS_PER_TYPE; i++) {
+        POINT_WEIGHTS[t][i] = Weight.valueOf(POINT_TYPES[t].name() + "_" + (i + 1));
+      }
+    }
+  }
 
   // Update counts of these types together as one atomic group.
   private static final Map<PartType, Set<PartType>> GROUPED_TYPES = new HashMap<>();
   static {
-    GROUPED_TYPES.put(
-        PartType.SET, new HashSet<>(Arrays.asList(PartType.SET, PartType.PARTIAL_SET)));
+    Set<PartType> sets = new HashSet<>(Arrays.asList(PartType.SET, PartType.PARTIAL_SET));
+    GROUPED_TYPES.put(PartType.SET, sets);
+    GROUPED_TYPES.put(PartType.PARTIAL_SET, sets);
   }
 
-  private static final int SINGLE_POINT = -5;
-  private static final int JOKER_POINT = 100;
-  private static final int MULTIPLE_SINGLE_PENALTY = -10;
+  private static final int NATURAL_RUMMY = PartType.NATURAL_RUMMY.ordinal();
+  private static final int RUMMY = PartType.RUMMY.ordinal();
+  private static final int SET = PartType.SET.ordinal();
+  private static final int PARTIAL_RUMMY = PartType.PARTIAL_RUMMY.ordinal();
+  private static final int PARTIAL_SET = PartType.PARTIAL_SET.ordinal();
+  private static final int SINGLE = PartType.SINGLE.ordinal();
+
+  // Points of each type by how many came before, indexed by type ordinal.
+  private final int[][] pointsByType = new int[PartType.values().length][];
+  private final double setWithoutNatural;
+  private final double fourWithoutNatural;
+  private final double firstFour;
+  private final double aceRummy;
+  private final int singlePoint;
+  private final int jokerPoint;
+  private final int multipleSinglePenalty;
 
   private final Map<PartType, Integer> typeCounts;
   private final Set<Integer> runValues;
   private boolean has4Run;
   private boolean hasNatural;
+  // Scratch type counts for scoring part tables, cleared on each call.
+  private final int[] tableTypeCounts = new int[PartType.values().length];
 
   public ComplexScorer() {
+    this(ScorerWeights.DEFAULT);
+  }
+
+  public ComplexScorer(ScorerWeights weights) {
+    for (int t = 0; t < POINT_TYPES.length; t++) {
+      int[] points = new int[POINTS_PER_TYPE];
+      for (int i = 0; i < POINTS_PER_TYPE; i++) {
+        points[i] = (int) Math.round(weights.get(POINT_WEIGHTS[t][i]));
+      }
+      pointsByType[POINT_TYPES[t].ordinal()] = points;
+    }
+    this.setWithoutNatural = weights.get(Weight.SET_WITHOUT_NATURAL);
+    this.fourWithoutNatural = weights.get(Weight.FOUR_WITHOUT_NATURAL);
+    this.firstFour = weights.get(Weight.FIRST_FOUR);
+    this.aceRummy = weights.get(Weight.ACE_RUMMY);
+    this.singlePoint = (int) Math.round(weights.get(Weight.SINGLE));
+    this.jokerPoint = (int) Math.round(weights.get(Weight.JOKER));
+    this.multipleSinglePenalty = (int) Math.round(weights.get(Weight.MULTIPLE_SINGLE_PENALTY));
+
     this.typeCounts = new HashMap<>();
     this.runValues = new HashSet<>();
     this.has4Run = false;
@@ -69,8 +114,8 @@ public class ComplexScorer implements Scorer {
     if (type == PartType.SINGLE) {
       // If the same single card is being used elsewhere, discount this heavily
       Card single = part.cards.get(0);
-      int penalty = runValues.contains(single.value) ? MULTIPLE_SINGLE_PENALTY : 0;
-      return penalty + (single.face == Face.JOKER ? JOKER_POINT : SINGLE_POINT);
+      int penalty = runValues.contains(single.value) ? multipleSinglePenalty : 0;
+      return penalty + (single.face == Face.JOKER ? jokerPoint : singlePoint);
     } else if (part.type == PartType.NATURAL_RUMMY) {
       hasNatural = true;
     }
@@ -79,11 +124,13 @@ public class ComplexScorer implements Scorer {
     // Discourage a set/rummy of 4 without a natural.
     double multiplier = 1;
     if (type == PartType.SET && !hasNatural) {
-      multiplier = 0.10;
+      multiplier = setWithoutNatural;
     } else if (part.cards.size() == 4) {
       if (!has4Run) {
         has4Run = true;
-        multiplier = ((type == PartType.SET || type == PartType.RUMMY) && !hasNatural) ? 0.5 : 1.10;
+        multiplier = ((type == PartType.SET || type == PartType.RUMMY) && !hasNatural)
+            ? fourWithoutNatural
+            : firstFour;
       } else {
         multiplier = 0;
       }
@@ -93,11 +140,11 @@ public class ComplexScorer implements Scorer {
 
     // Discount ace rummys
     if ((type == PartType.PARTIAL_RUMMY || type == PartType.RUMMY) && part.containsAce) {
-      multiplier *= 0.50;
+      multiplier *= aceRummy;
     }
 
     // Return the score value for this part type, considering how many has been seen so far.
-    int[] pointMap = POINT_MAP.get(type);
+    int[] pointMap = pointsByType[type.ordinal()];
     int count = typeCounts.get(type);
     if (count < pointMap.length) {
       return (int)(pointMap[count] * multiplier);
@@ -132,4 +179,131 @@ public class ComplexScorer implements Scorer {
     }
     return score;
   }
+
+  /**
+   * Same rules as {@link #scoreParts(Set)}, reading only the table. Keeps no state between calls,
+   * so one instance can score every hand of a search.
+   */
+  public int scoreParts(PartTable table, int[] partIdxs, int numParts) {
+    // Card values belonging to non-single parts
+    long runValueMask = 0;
+    for (int i = 0; i < numParts; i++) {
+      int idx = partIdxs[i];
+      if (table.type[idx] != SINGLE) {
+        runValueMask |= table.valueMask[idx];
+      }
+    }
+
+    int[] counts = tableTypeCounts;
+    Arrays.fill(counts, 0);
+    boolean natural = false;
+    boolean fourRun = false;
+    int score = 0;
+    for (int i = 0; i < numParts; i++) {
+      int idx = partIdxs[i];
+      int type = table.type[idx];
+      if (type == SINGLE) {
+        score += singleScore(
+            table.jokers[idx] > 0, (table.valueMask[idx] & runValueMask) != 0);
+      } else {
+        if (type == NATURAL_RUMMY) {
+          natural = true;
+        }
+        int size = table.cardCount[idx];
+        int count = Math.min(counts[type], POINTS_PER_TYPE - 1);
+        score += partScore(type, size, table.ace[idx], count, natural, fourRun);
+        if (size == 4 && (type != SET || natural)) {
+          fourRun = true;
+        }
+      }
+
+      if (type == SET || type == PARTIAL_SET) {
+        counts[SET]++;
+        counts[PARTIAL_SET]++;
+      } else {
+        counts[type]++;
+      }
+    }
+    return score;
+  }
+
+  // The incremental state holds 2-bit counts of the parts so far, capped at the last points index,
+  // for natural rummys, rummys, sets with partial sets (counted together), and partial rummys;
+  // and a bit for whether a 4-card part was seen.
+  private static final int NATURAL_SHIFT = 0;
+  private static final int RUMMY_SHIFT = 2;
+  private static final int SET_SHIFT = 4;
+  private static final int PARTIAL_RUMMY_SHIFT = 6;
+  private static final int FOUR_RUN_BIT = 1 << 8;
+
+  private static int countShift(int type) {
+    if (type == NATURAL_RUMMY) {
+      return NATURAL_SHIFT;
+    } else if (type == RUMMY) {
+      return RUMMY_SHIFT;
+    } else if (type == SET || type == PARTIAL_SET) {
+      return SET_SHIFT;
+    }
+    return PARTIAL_RUMMY_SHIFT;
+  }
+
+  public int initialState() {
+    return 0;
+  }
+
+  /** Same rules as {@link #scoreParts(PartTable, int[], int)}, for one non-single part. */
+  public int scorePart(PartTable table, int idx, int state) {
+    int type = table.type[idx];
+    return partScore(
+        type,
+        table.cardCount[idx],
+        table.ace[idx],
+        (state >>> countShift(type)) & 3,
+        (state & (3 << NATURAL_SHIFT)) != 0,
+        (state & FOUR_RUN_BIT) != 0);
+  }
+
+  public int nextState(PartTable table, int idx, int state) {
+    int type = table.type[idx];
+    if (table.cardCount[idx] == 4 && (type != SET || (state & (3 << NATURAL_SHIFT)) != 0)) {
+      state |= FOUR_RUN_BIT;
+    }
+    int shift = countShift(type);
+    if (((state >>> shift) & 3) < POINTS_PER_TYPE - 1) {
+      state += 1 << shift;
+    }
+    return state;
+  }
+
+  public int scoreSingle(PartTable table, int idx, long partValues) {
+    return singleScore(table.jokers[idx] > 0, (table.valueMask[idx] & partValues) != 0);
+  }
+
+  public int partScore(
+      int type, int size, boolean ace, int count, boolean natural, boolean fourRun) {
+    // Use a multiplier to encourage one run of 4, invalidate multiple runs of 4 and any runs of 5.
+    // Discourage a set/rummy of 4 without a natural.
+    double multiplier = 1;
+    if (type == SET && !natural) {
+      multiplier = setWithoutNatural;
+    } else if (size == 4) {
+      if (!fourRun) {
+        multiplier = ((type == SET || type == RUMMY) && !natural)
+            ? fourWithoutNatural
+            : firstFour;
+      } else {
+        multiplier = 0;
+      }
+    } else if (size == 5) {
+      multiplier = 0;
+    }
+    if ((type == PARTIAL_RUMMY || type == RUMMY) && ace) {
+      multiplier *= aceRummy;
+    }
+    return (int)(pointsByType[type][count] * multiplier);
+  }
+
+  public int singleScore(boolean joker, boolean repeated) {
+    return (repeated ? multipleSinglePenalty : 0) + (joker ? jokerPoint : singlePoint);
+  }
 }
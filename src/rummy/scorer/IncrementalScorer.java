@@ -0,0 +1,32 @@
+package rummy.scorer;
+
+import rummy.parts.PartTable;
+
+/**
+ * A scorer whose score of a hand can be built up one part at a time, for searches that memoize
+ * the best way to complete a hand, see {@link rummy.parts.MemoizedSolver}. Taken in table order,
+ * each non-single part's score depends only on a small state summing up the parts before it, and
+ * each single's score only on the card values of the hand's non-single parts. The score of a hand
+ * is then the sum of its parts' scores, and must equal
+ * {@link Scorer#scoreParts(PartTable, int[], int)}.
+ */
+public interface IncrementalScorer extends Scorer {
+
+  /** States fit in this many low bits. */
+  int STATE_BITS = 16;
+
+  /** The state before any part. */
+  int initialState();
+
+  /** Score of a non-single part, after parts that left the given state. */
+  int scorePart(PartTable table, int idx, int state);
+
+  /** The state after a non-single part. */
+  int nextState(PartTable table, int idx, int state);
+
+  /**
+   * Score of a single part, in a hand whose non-single parts hold the given card values, see
+   * {@link PartTable#valueMask}.
+   */
+  int scoreSingle(PartTable table, int idx, long partValues);
+}
@@ -4,12 +4,17 @@ import java.util.Collection;
 
 import rummy.core.Card;
 import rummy.parts.Part;
+import rummy.parts.PartTable;
 import rummy.parts.PartType;
 
 public final class ScoreUtil {
 
   public static final int FULL_HAND_POINTS = 80;
 
+  private static final int NATURAL_RUMMY = PartType.NATURAL_RUMMY.ordinal();
+  private static final int RUMMY = PartType.RUMMY.ordinal();
+  private static final int SET = PartType.SET.ordinal();
+
   private ScoreUtil() {
     // static class - can not instantiate
   }
@@ -41,4 +46,26 @@ public final class ScoreUtil {
     }
     return (natural && rummy) ? points : ScoreUtil.FULL_HAND_POINTS;
   }
+
+  /** Same as {@link #calculatePoints(Collection)}, for the given parts of a table. */
+  public static int calculatePoints(PartTable table, int[] partIdxs, int numParts) {
+    int points = 0;
+    boolean natural = false;
+    boolean rummy = false;
+    for (int i = 0; i < numParts; i++) {
+      int idx = partIdxs[i];
+      int type = table.type[idx];
+      if (type == NATURAL_RUMMY) {
+        if (natural) {
+          rummy = true;
+        }
+        natural = true;
+      } else if (type == RUMMY) {
+        rummy = true;
+      } else if (type != SET) {
+        points += table.points[idx];
+      }
+    }
+    return (natural && rummy) ? points : FULL_HAND_POINTS;
+  }
 }
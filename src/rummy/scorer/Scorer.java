@@ -3,6 +3,7 @@ package rummy.scorer;
 import java.util.Set;
 
 import rummy.parts.Part;
+import rummy.parts.PartTable;
 
 /**
  * Evaluates how good a set of parts is. Scores can be compared to construct the best hand.
@@ -10,4 +11,11 @@ import rummy.parts.Part;
 public interface Scorer {
 
   public int scoreParts(Set<Part> parts);
+
+  /**
+   * Scores the given parts of a table, in order, reading only the table's arrays. Must give the
+   * same score as {@link #scoreParts(Set)} on the same parts, and must not depend on earlier calls,
+   * so a search can reuse one scorer for every hand it scores.
+   */
+  public int scoreParts(PartTable table, int[] partIdxs, int numParts);
 }
@@ -1,9 +1,12 @@
 package rummy.scorer;
 
+import java.util.Locale;
+
 import com.google.common.base.Preconditions;
 
 /**
- * Factory class for returning {@link Scorer} instances.
+ * Factory class for returning {@link Scorer} instances. The scorers are compiled into lookup
+ * tables once, see {@link CompiledScorer}, and shared.
  */
 public class ScorerFactory {
 
@@ -17,14 +20,64 @@ public class ScorerFactory {
   }
 
   private final Type type;
+  private final ScorerWeights weights;
+  private final String name;
+  private final CompiledScorer scorer;
 
   private ScorerFactory(Type type) {
+    this(type, ScorerWeights.DEFAULT);
+  }
+
+  private ScorerFactory(Type type, ScorerWeights weights) {
     this.type = Preconditions.checkNotNull(type);
+    this.weights = Preconditions.checkNotNull(weights);
+    String typeName = type.name().toLowerCase(Locale.ROOT);
+    this.name = weights.equals(ScorerWeights.DEFAULT)
+        ? typeName
+        : String.format(Locale.ROOT, "%s-%08x", typeName, weights.hashCode());
+    this.scorer = new CompiledScorer(rules());
+  }
+
+  /** A complex scorer with the given weights, eg ones loaded with {@link ScorerWeights#load}. */
+  public static ScorerFactory complex(ScorerWeights weights) {
+    return new ScorerFactory(Type.COMPLEX, weights);
+  }
+
+  /**
+   * Lower case name of the scorer, eg for labelling metrics. Scorers with other than the default
+   * weights add a hash of their weights, eg "complex-1f3a9c0d", so they are told apart.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /** Whether this is the simple scorer, which has no weights to tune. */
+  public boolean isSimple() {
+    return type == Type.SIMPLE;
+  }
+
+  /** The weights of this scorer, of which the simple scorer only uses the pickup threshold. */
+  public ScorerWeights getWeights() {
+    return weights;
+  }
+
+  /** Returns the scorer with the given name: simple or complex, with the default weights. */
+  public static ScorerFactory forName(String name) {
+    switch (name.toLowerCase(Locale.ROOT)) {
+      case "simple": return SIMPLE;
+      case "complex": return COMPLEX;
+      default: throw new IllegalArgumentException("unknown scorer: " + name);
+    }
   }
 
   public Scorer get() {
+    return scorer;
+  }
+
+  // The scorer the compiled scorer is built from, which scores the same but slower.
+  ScoringRules rules() {
     switch (type) {
-      case COMPLEX: return new ComplexScorer();
+      case COMPLEX: return new ComplexScorer(weights);
       case SIMPLE: return SimpleScorer.INSTANCE;
       default: throw new IllegalStateException("bad type");
     }
@@ -0,0 +1,156 @@
+package rummy.scorer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The tunable constants of {@link ComplexScorer}, and the pickup threshold of the computer, as a
+ * vector of weights. Weights are read from a properties file keyed by the lower case weight name,
+ * eg {@code natural_rummy_1=1000}. Weights left out keep their defaults, which are the values the
+ * scorer was hand tuned with.
+ *
+ * <p>Immutable.
+ */
+public final class ScorerWeights {
+
+  /** Each weight, with its default and the range a tuner may search. */
+  public enum Weight {
+    // Points of the first, second, and third and later part of each type.
+    NATURAL_RUMMY_1(1000, 0, 2000),
+    NATURAL_RUMMY_2(500, 0, 2000),
+    NATURAL_RUMMY_3(500, 0, 2000),
+    RUMMY_1(300, 0, 1000),
+    RUMMY_2(300, 0, 1000),
+    RUMMY_3(300, 0, 1000),
+    SET_1(200, 0, 1000),
+    SET_2(100, 0, 1000),
+    SET_3(-1000, -2000, 0),
+    PARTIAL_RUMMY_1(75, 0, 300),
+    PARTIAL_RUMMY_2(75, 0, 300),
+    PARTIAL_RUMMY_3(75, 0, 300),
+    PARTIAL_SET_1(50, 0, 300),
+    PARTIAL_SET_2(50, 0, 300),
+    PARTIAL_SET_3(25, 0, 300),
+    // Multipliers of a set's points without a natural rummy, of the first 4-card set or rummy
+    // without a natural, of any other first 4-card part, and of rummys with an ace.
+    SET_WITHOUT_NATURAL(0.10, 0, 1),
+    FOUR_WITHOUT_NATURAL(0.50, 0, 1.5),
+    FIRST_FOUR(1.10, 0, 1.5),
+    ACE_RUMMY(0.50, 0, 1),
+    // Points of a single card, a joker, and the penalty for a single whose value is in a part.
+    SINGLE(-5, -100, 0),
+    JOKER(100, 0, 300),
+    MULTIPLE_SINGLE_PENALTY(-10, -100, 0),
+    // A computer picks up the discard if it raises its score by this factor.
+    PICKUP_THRESHOLD(1.15, 0.8, 2);
+
+    public final double defaultValue;
+    public final double min;
+    public final double max;
+
+    Weight(double defaultValue, double min, double max) {
+      this.defaultValue = defaultValue;
+      this.min = min;
+      this.max = max;
+    }
+
+    /** The property key, eg natural_rummy_1. */
+    public String key() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  public static final ScorerWeights DEFAULT = new ScorerWeights(defaults());
+
+  private final double[] values;
+
+  private ScorerWeights(double[] values) {
+    this.values = values;
+  }
+
+  private static double[] defaults() {
+    Weight[] weights = Weight.values();
+    double[] values = new double[weights.length];
+    for (int i = 0; i < weights.length; i++) {
+      values[i] = weights[i].defaultValue;
+    }
+    return values;
+  }
+
+  /** Weights from a vector indexed by {@link Weight} ordinal. */
+  public static ScorerWeights of(double[] values) {
+    if (values.length != Weight.values().length) {
+      throw new IllegalArgumentException("expected " + Weight.values().length + " weights");
+    }
+    return new ScorerWeights(values.clone());
+  }
+
+  /** Weights from properties, which may leave any weight out but must not name unknown ones. */
+  public static ScorerWeights fromProperties(Properties properties) {
+    double[] values = defaults();
+    for (String key : properties.stringPropertyNames()) {
+      Weight weight;
+      try {
+        weight = Weight.valueOf(key.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("unknown weight: " + key);
+      }
+      values[weight.ordinal()] = Double.parseDouble(properties.getProperty(key).trim());
+    }
+    return new ScorerWeights(values);
+  }
+
+  public static ScorerWeights load(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    return fromProperties(properties);
+  }
+
+  public double get(Weight weight) {
+    return values[weight.ordinal()];
+  }
+
+  /** Weights as a vector indexed by {@link Weight} ordinal. */
+  public double[] toArray() {
+    return values.clone();
+  }
+
+  /** Writes every weight, one per line, in the format {@link #fromProperties} reads. */
+  public void write(Writer out) throws IOException {
+    for (Weight weight : Weight.values()) {
+      out.write(weight.key() + "=" + values[weight.ordinal()] + "\n");
+    }
+    out.flush();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ScorerWeights && Arrays.equals(values, ((ScorerWeights) o).values);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    for (Weight weight : Weight.values()) {
+      if (values[weight.ordinal()] != weight.defaultValue) {
+        text.append(text.length() > 0 ? " " : "").append(weight.key()).append('=')
+            .append(values[weight.ordinal()]);
+      }
+    }
+    return text.length() == 0 ? "default" : text.toString();
+  }
+}
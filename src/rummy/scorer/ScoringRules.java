@@ -0,0 +1,20 @@
+package rummy.scorer;
+
+/**
+ * The rules of a scorer as plain functions of a part and what came before it in the hand, from
+ * which a {@link CompiledScorer} tabulates every score up front.
+ */
+interface ScoringRules {
+
+  /**
+   * Score of a non-single part of the given type ordinal, size and ace flag, after the given
+   * number of earlier parts counted with its type, capped at 2. Natural and fourRun tell whether
+   * an earlier part was a natural rummy, or started the run of four.
+   */
+  int partScore(int type, int size, boolean ace, int count, boolean natural, boolean fourRun);
+
+  /**
+   * Score of a single card. Repeated if its value is also in one of the hand's non-single parts.
+   */
+  int singleScore(boolean joker, boolean repeated);
+}
@@ -3,14 +3,18 @@ package rummy.scorer;
 import java.util.Set;
 
 import rummy.parts.Part;
+import rummy.parts.PartTable;
+import rummy.parts.PartType;
 
 /**
  * State-less scorer that looks at each part independently.
  */
-public class SimpleScorer implements Scorer {
+public class SimpleScorer implements IncrementalScorer, ScoringRules {
 
   public static final SimpleScorer INSTANCE = new SimpleScorer();
 
+  private static final PartType[] TYPES = PartType.values();
+
   private SimpleScorer() {
     // Singleton, can't instantiate
   }
@@ -34,4 +38,54 @@ public class SimpleScorer implements Scorer {
     }
     return score;
   }
+
+  private static int scorePart(PartTable table, int idx) {
+    return scorePart(TYPES[table.type[idx]], table.ace[idx], table.jokers[idx] > 0);
+  }
+
+  private static int scorePart(PartType type, boolean ace, boolean joker) {
+    switch (type) {
+      case NATURAL_RUMMY: return 1000;
+      case PARTIAL_RUMMY: return ace ? 50 : 75;
+      case PARTIAL_SET: return 50;
+      case RUMMY: return ace ? 250 : 300;
+      case SET: return 200;
+      case SINGLE: return joker ? 105 : -5;
+      default: throw new IllegalStateException("bad card");
+    }
+  }
+
+  public int scoreParts(PartTable table, int[] partIdxs, int numParts) {
+    int score = 0;
+    for (int i = 0; i < numParts; i++) {
+      score += scorePart(table, partIdxs[i]);
+    }
+    return score;
+  }
+
+  // Parts are scored independently, so there is no state.
+  public int initialState() {
+    return 0;
+  }
+
+  public int scorePart(PartTable table, int idx, int state) {
+    return scorePart(table, idx);
+  }
+
+  public int nextState(PartTable table, int idx, int state) {
+    return 0;
+  }
+
+  public int scoreSingle(PartTable table, int idx, long partValues) {
+    return scorePart(table, idx);
+  }
+
+  public int partScore(
+      int type, int size, boolean ace, int count, boolean natural, boolean fourRun) {
+    return scorePart(TYPES[type], ace, false /* joker */);
+  }
+
+  public int singleScore(boolean joker, boolean repeated) {
+    return scorePart(PartType.SINGLE, false /* ace */, joker);
+  }
 }
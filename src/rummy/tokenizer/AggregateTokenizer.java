@@ -6,6 +6,7 @@ import com.google.common.collect.ImmutableSet;
 
 import rummy.core.Card.Face;
 import rummy.core.Hand;
+import rummy.jfr.TokenizeEvent;
 import rummy.parts.Part;
 
 /**
@@ -25,10 +26,19 @@ public class AggregateTokenizer implements PartsTokenizer {
 
   @Override
   public Set<Part> tokenize(Hand hand, Face faceJoker) {
-    return new ImmutableSet.Builder<Part>()
+    TokenizeEvent event = new TokenizeEvent();
+    event.begin();
+    Set<Part> parts = new ImmutableSet.Builder<Part>()
         .addAll(rummyTokenizer.tokenize(hand, faceJoker))
         .addAll(setTokenizer.tokenize(hand, faceJoker))
         .addAll(singlesTokenizer.tokenize(hand, faceJoker))
         .build();
+    event.end();
+    if (event.shouldCommit()) {
+      event.setHand(hand.cards, faceJoker);
+      event.setParts(parts.size());
+      event.commit();
+    }
+    return parts;
   }
 }
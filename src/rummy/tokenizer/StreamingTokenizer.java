@@ -0,0 +1,110 @@
+package rummy.tokenizer;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.parts.Part;
+import rummy.parts.PartType;
+
+/**
+ * Tokenizes a hand lazily, one part type at a time in {@link PartType} order: natural rummys,
+ * rummys, sets, partial rummys, partial sets, then singles. A tokenizer runs only once a type it
+ * makes is pulled, so a caller that stops early, eg once the rummys and sets already close the
+ * hand, never pays for the rest. Pulling every type gives the same parts as
+ * {@link AggregateTokenizer}.
+ */
+public class StreamingTokenizer implements PartsTokenizer {
+
+  private final PartsTokenizer rummyTokenizer = new RummyTokenizer();
+  private final PartsTokenizer setTokenizer = new SetTokenizer();
+  private final PartsTokenizer singlesTokenizer = new SinglesTokenizer();
+
+  /** Starts streaming the parts of a hand. Nothing is tokenized until parts are pulled. */
+  public PartStream stream(Hand hand, Face faceJoker) {
+    return new PartStream(hand, faceJoker);
+  }
+
+  @Override
+  public Set<Part> tokenize(Hand hand, Face faceJoker) {
+    PartStream stream = stream(hand, faceJoker);
+    while (stream.hasNext()) {
+      stream.next();
+    }
+    return stream.pulled();
+  }
+
+  /** The parts of one hand, pulled a part type at a time. Not thread safe. */
+  public class PartStream {
+
+    private final Hand hand;
+    private final Face faceJoker;
+    private final Set<Part> pulled = new LinkedHashSet<>();
+    // The output of the rummy and set tokenizers, once run, which each make several part types.
+    private Set<Part> rummyParts;
+    private Set<Part> setParts;
+    private int nextType;
+
+    private PartStream(Hand hand, Face faceJoker) {
+      this.hand = hand;
+      this.faceJoker = faceJoker;
+    }
+
+    public boolean hasNext() {
+      return nextType < PartType.values().length;
+    }
+
+    /** The type of the parts the next call to {@link #next()} returns. */
+    public PartType nextType() {
+      return PartType.values()[nextType];
+    }
+
+    /** Tokenizes and returns the parts of the next type, which may be none. */
+    public Set<Part> next() {
+      PartType type = PartType.values()[nextType++];
+      Set<Part> parts = new LinkedHashSet<>();
+      for (Part part : source(type)) {
+        if (part.type == type) {
+          parts.add(part);
+        }
+      }
+      pulled.addAll(parts);
+      return parts;
+    }
+
+    /** Pulls every type up to and including the given one, and returns all parts pulled. */
+    public Set<Part> pullThrough(PartType last) {
+      while (hasNext() && nextType <= last.ordinal()) {
+        next();
+      }
+      return pulled();
+    }
+
+    /** Every part pulled so far. */
+    public Set<Part> pulled() {
+      return Collections.unmodifiableSet(pulled);
+    }
+
+    private Set<Part> source(PartType type) {
+      switch (type) {
+        case NATURAL_RUMMY:
+        case RUMMY:
+        case PARTIAL_RUMMY:
+          if (rummyParts == null) {
+            rummyParts = rummyTokenizer.tokenize(hand, faceJoker);
+          }
+          return rummyParts;
+        case SET:
+        case PARTIAL_SET:
+          if (setParts == null) {
+            setParts = setTokenizer.tokenize(hand, faceJoker);
+          }
+          return setParts;
+        default:
+          return singlesTokenizer.tokenize(hand, faceJoker);
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.SplitMix64;
+import rummy.parts.Part;
+
+/**
+ * Unit tests for {@link CardTracker}.
+ */
+public class CardTrackerTest {
+
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void testCompletionProbability() {
+    // 1 deck, 2 jokers; face joker is a seven.
+    CardTracker tracker = new CardTracker(1, 2);
+    tracker.onFaceJoker(Card.build(Face.SEVEN, Suit.CLUBS));
+    Card fourHearts = Card.build(Face.FOUR, Suit.HEARTS);
+    Card fiveHearts = Card.build(Face.FIVE, Suit.HEARTS);
+    tracker.onSeen(Arrays.asList(fourHearts, fiveHearts));
+    assertEquals(51, tracker.totalUnseen());
+
+    // 3H, 6H, 2 jokers, and 3 remaining sevens.
+    Part partialRummy = Part.partialRummy(Arrays.asList(fourHearts, fiveHearts));
+    assertEquals(7 / 51.0, tracker.completionProbability(partialRummy), DELTA);
+
+    // Seeing the 6H, and someone discarding the 3H, leaves only the wild cards.
+    tracker.onSeen(Card.build(Face.SIX, Suit.HEARTS));
+    tracker.onDiscard(Card.build(Face.THREE, Suit.HEARTS), false /* ownCard */);
+    assertEquals(5 / 49.0, tracker.completionProbability(partialRummy), DELTA);
+  }
+
+  @Test
+  public void testQueenKingCompletesWithAce() {
+    CardTracker tracker = new CardTracker(2, 0);
+    Part partialRummy = Part.partialRummy(Arrays.asList(
+        Card.build(Face.QUEEN, Suit.SPADES), Card.build(Face.KING, Suit.SPADES)));
+    // Two jacks and two aces of spades.
+    assertEquals(4 / 104.0, tracker.completionProbability(partialRummy), DELTA);
+  }
+
+  @Test
+  public void testReshuffleReturnsDiscards() {
+    CardTracker tracker = new CardTracker(1, 0);
+    Card twoClubs = Card.build(Face.TWO, Suit.CLUBS);
+    Card nineClubs = Card.build(Face.NINE, Suit.CLUBS);
+    tracker.onDiscard(twoClubs, false /* ownCard */);
+    tracker.onDiscard(nineClubs, false /* ownCard */);
+    assertEquals(0, tracker.unseen(twoClubs));
+
+    // The top card stays on the pile, the rest go back into the deck.
+    tracker.onReshuffle(nineClubs);
+    assertEquals(1, tracker.unseen(twoClubs));
+    assertEquals(0, tracker.unseen(nineClubs));
+    assertEquals(51, tracker.totalUnseen());
+  }
+
+  @Test
+  public void testSamplesOnlyUnseenCopies() {
+    CardTracker tracker = new CardTracker(2, 2);
+    List<Card> held = Arrays.asList(
+        Card.build(Face.ACE, Suit.HEARTS, 0),
+        Card.build(Face.ACE, Suit.HEARTS, 1),
+        Card.build(Face.FIVE, Suit.SPADES, 1),
+        new Card(2));
+    tracker.onSeen(held);
+    tracker.onDiscard(Card.build(Face.KING, Suit.CLUBS), false /* ownCard */);
+
+    List<Card> draws = tracker.sampleUnseen(200, held, new SplitMix64(3));
+    // 106 cards, less the 4 held and the discard.
+    assertEquals(101, draws.size());
+    Set<Card> distinct = new HashSet<>(draws);
+    assertEquals(draws.size(), distinct.size());
+    int kingsOfClubs = 0;
+    int fivesOfSpades = 0;
+    for (Card card : draws) {
+      assertFalse(card + " is held", held.contains(card));
+      assertFalse(card.face == Face.ACE && card.suit == Suit.HEARTS);
+      kingsOfClubs += card.face == Face.KING && card.suit == Suit.CLUBS ? 1 : 0;
+      fivesOfSpades += card.face == Face.FIVE && card.suit == Suit.SPADES ? 1 : 0;
+    }
+    assertEquals(1, kingsOfClubs);
+    assertEquals(1, fivesOfSpades);
+    assertTrue(distinct.contains(new Card(1)));
+  }
+}
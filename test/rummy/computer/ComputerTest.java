@@ -0,0 +1,154 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.Deck;
+import rummy.core.Hand;
+import rummy.log.HandCapture;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.PruningPolicy;
+import rummy.parts.SolverEngine;
+import rummy.scorer.ScorerFactory;
+import rummy.scorer.ScorerWeights;
+import rummy.scorer.ScorerWeights.Weight;
+
+/**
+ * Unit tests for {@link Computer}.
+ */
+public class ComputerTest {
+
+  @Test
+  public void testTurnIsRecorded() throws IOException {
+    Computer computer = new Computer(Face.SEVEN, ScorerFactory.COMPLEX);
+    computer.dealHand(Hand.parse("2H 3H 4H 5S 5D 5C 9S 10S JS QC KD AD 8C"));
+    List<RecordedEvent> events = record(computer, Card.build(Face.SIX, Suit.HEARTS));
+
+    RecordedEvent decision = only(events, "rummy.Decision");
+    assertEquals("SEVEN", decision.getString("faceJoker"));
+    assertEquals(computer.currentSolution.parts.size(), decision.getInt("parts"));
+    assertTrue(decision.getString("outcome").startsWith("drew 6"));
+    assertEquals(14, decision.getString("hand").split(",").length);
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals("rummy.Search")) {
+        assertEquals("SEVEN", event.getString("faceJoker"));
+      }
+    }
+  }
+
+  @Test
+  public void testUnsolvedHandIsRecorded() throws IOException {
+    Computer computer = new Computer(Face.SEVEN, ScorerFactory.COMPLEX);
+    computer.dealHand(Hand.parse("2H 3H 4H 5S 5D 5C 9S 10S JS QC KD AD 8C"));
+    computer.currentSolution = new Solution();
+    Recording recording = start();
+    computer.checkPickup(Card.build(Face.KING, Suit.SPADES));
+    RecordedEvent decision = only(stop(recording), "rummy.Decision");
+    assertEquals(0, decision.getInt("parts"));
+    assertFalse(decision.getString("outcome").isEmpty());
+  }
+
+  @Test
+  public void testRepairedHandsAreCaptured() throws IOException {
+    Path directory = Files.createTempDirectory("capture");
+    try (HandCapture capture = new HandCapture(directory, 0, Long.MAX_VALUE)) {
+      Computer computer = new Computer(Face.SEVEN, ScorerFactory.COMPLEX);
+      computer.setSolutionRepair(true);
+      computer.setHandCapture(capture);
+      computer.dealHand(Hand.parse("2H 3H 4H 5S 5D 5C 9S 10S JS QC KD AD 8C"));
+      computer.drawAndDiscard(Card.build(Face.SIX, Suit.HEARTS));
+    }
+    List<HandCapture.CapturedHand> captured = HandCapture.read(directory);
+    assertEquals(2, captured.size());
+    assertEquals(14, captured.get(1).hand.cards.size());
+  }
+
+  @Test
+  public void testPickupMatchesFullRule() {
+    double threshold = ScorerWeights.DEFAULT.get(Weight.PICKUP_THRESHOLD);
+    // Only exact solves skip the solve for a card that can only be a single.
+    assertPickupMatchesFullRule(PruningPolicy.EXACT, 0.9);
+    assertPickupMatchesFullRule(PruningPolicy.EXACT, threshold);
+    assertPickupMatchesFullRule(PruningPolicy.HEURISTIC, 0.9);
+    assertPickupMatchesFullRule(PruningPolicy.HEURISTIC, threshold);
+  }
+
+  // Checks checkPickup against solving every hand with the card, on random deals.
+  private static void assertPickupMatchesFullRule(PruningPolicy pruningPolicy, double threshold) {
+    double[] values = ScorerWeights.DEFAULT.toArray();
+    values[Weight.PICKUP_THRESHOLD.ordinal()] = threshold;
+    SolverEngine engine = SolverEngine.builder()
+        .scorerFactory(ScorerFactory.complex(ScorerWeights.of(values)))
+        .pruningPolicy(pruningPolicy)
+        .build();
+    for (int seed = 0; seed < 300; seed++) {
+      Deck deck = new Deck(2, 2, seed);
+      deck.shuffle();
+      Computer computer = new Computer(Face.SEVEN, engine);
+      computer.drawNewHand(deck);
+      Card card = deck.draw();
+
+      Hand newHand = new Hand(computer.hand);
+      newHand.cards.add(card);
+      Solution solution = engine.solve(newHand, Face.SEVEN, true);
+      boolean keepCard = solution.isWinning
+          || solution.score >= computer.currentHandScore * computer.pickupThreshold;
+      assertEquals("seed " + seed + ", threshold " + threshold,
+          keepCard, computer.checkPickup(card).keepCard);
+    }
+  }
+
+  private static List<RecordedEvent> record(Computer computer, Card card) throws IOException {
+    Recording recording = start();
+    computer.drawAndDiscard(card);
+    return stop(recording);
+  }
+
+  private static Recording start() {
+    Recording recording = new Recording();
+    recording.enable("rummy.Decision").withThreshold(Duration.ZERO);
+    recording.enable("rummy.Search").withThreshold(Duration.ZERO);
+    recording.start();
+    return recording;
+  }
+
+  private static List<RecordedEvent> stop(Recording recording) throws IOException {
+    recording.stop();
+    Path file = Files.createTempFile("computer", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      recording.close();
+      Files.delete(file);
+    }
+  }
+
+  private static RecordedEvent only(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> matching = new ArrayList<>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(name)) {
+        matching.add(event);
+      }
+    }
+    assertEquals(1, matching.size());
+    return matching.get(0);
+  }
+}
@@ -0,0 +1,40 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import rummy.log.GameEventWriter;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Unit tests for {@link GameReplayer}.
+ */
+public class GameReplayerTest {
+
+  private static final List<ScorerFactory> PLAYERS =
+      Arrays.asList(ScorerFactory.COMPLEX, ScorerFactory.SIMPLE);
+
+  @Test
+  public void testReplayMatchesRecordedGame() throws IOException {
+    Path directory = Files.createTempDirectory("events");
+    // Small segments, so the log spans several of them.
+    try (GameEventWriter eventLog = new GameEventWriter(directory, 300)) {
+      new Game(2, 4, 42, PLAYERS).setEventLog(eventLog).play();
+      new Game(2, 4, 43, PLAYERS).setEventLog(eventLog).play();
+    }
+    assertTrue(Files.exists(directory.resolve("segment-000001.log")));
+
+    GameReplayer.Report report = new GameReplayer(PLAYERS).replay(directory);
+    assertEquals(2, report.games);
+    assertTrue(report.decisions > 0);
+    assertEquals(0, report.mismatches);
+  }
+}
@@ -0,0 +1,114 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Unit tests for {@link MatchCoordinator} and {@link MatchWorker}.
+ */
+public class MatchCoordinatorTest {
+
+  @Test
+  public void testWorkersPlayLikeThreads() throws IOException {
+    MatchRunner.Report threads = match().setThreads(2).run();
+    MatchRunner.Report workers = match().setWorkers(3).run();
+    assertEquals(threads.toString(), workers.toString());
+  }
+
+  @Test
+  public void testWorkerAnswersInOrder() throws IOException {
+    StringWriter out = new StringWriter();
+    new MatchWorker().serve(new BufferedReader(new StringReader(
+        "PLAY 1\n"
+            + MatchWorker.playerLine('A', ScorerFactory.COMPLEX) + "\n"
+            + MatchWorker.playerLine('B', ScorerFactory.SIMPLE) + "\n"
+            + MatchWorker.gameLine(2, 4, 60) + "\n"
+            + "PLAY 5\nPLAY 6\nQUIT\nPLAY 7\n")), out);
+    String[] lines = out.toString().split("\n");
+    assertEquals(4, lines.length);
+    assertEquals("READY " + MatchWorker.PROTOCOL_VERSION, lines[0]);
+    assertTrue(lines[1].startsWith("ERROR 1 "));
+    assertTrue(lines[2].startsWith("RESULT 5 "));
+    assertTrue(lines[3].startsWith("RESULT 6 "));
+  }
+
+  @Test
+  public void testPairFailsOnceWorkersAreSpent() throws Exception {
+    List<String> command = MatchWorker.localCommand();
+    command.set(command.size() - 1, "rummy.computer.NoSuchWorker");
+    MatchCoordinator coordinator =
+        new MatchCoordinator(command, 1, Collections.<String>emptyList());
+    try {
+      Future<MatchRunner.PairResult> pair = coordinator.submit(1);
+      try {
+        pair.get();
+        throw new AssertionError("pair played without a worker");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IOException);
+      }
+    } finally {
+      coordinator.close();
+    }
+  }
+
+  @Test
+  public void testCrashChargesOnlyThePairPlayed() throws Exception {
+    List<String> command = MatchWorker.localCommand();
+    command.set(command.size() - 1, CrashingWorker.class.getName());
+    MatchCoordinator coordinator =
+        new MatchCoordinator(command, 1, Collections.<String>emptyList());
+    try {
+      // Both pairs are sent to the worker, which dies on the first every time.
+      Future<MatchRunner.PairResult> crashing = coordinator.submit(1);
+      Future<MatchRunner.PairResult> waiting = coordinator.submit(2);
+      try {
+        crashing.get();
+        throw new AssertionError("pair played on a crashing worker");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IOException);
+      }
+      assertEquals(1, waiting.get().wins);
+    } finally {
+      coordinator.close();
+    }
+  }
+
+  /** A worker that exits when asked to play seed 1, and wins every other pair. */
+  public static class CrashingWorker {
+    public static void main(String args[]) throws IOException {
+      BufferedReader in = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+      System.out.println("READY " + MatchWorker.PROTOCOL_VERSION);
+      String line;
+      while ((line = in.readLine()) != null) {
+        String[] words = line.split(" ");
+        if (words[0].equals("PLAY")) {
+          if (words[1].equals("1")) {
+            System.exit(1);
+          }
+          System.out.println("RESULT " + words[1] + " 1 0 0 1");
+        }
+      }
+    }
+  }
+
+  private static MatchRunner match() {
+    return new MatchRunner(ScorerFactory.COMPLEX, ScorerFactory.SIMPLE)
+        .setSeed(3)
+        .setMaxPairs(6)
+        .setMaxTurns(60);
+  }
+}
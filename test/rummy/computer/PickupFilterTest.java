@@ -0,0 +1,66 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.Deck;
+import rummy.core.Hand;
+import rummy.parts.Part;
+import rummy.parts.PartType;
+import rummy.tokenizer.AggregateTokenizer;
+
+/**
+ * Unit tests for {@link PickupFilter}.
+ */
+public class PickupFilterTest {
+
+  @Test
+  public void testCanConnect() {
+    Hand hand = new Hand();
+    hand.cards.addAll(Arrays.asList(
+        new Card(Face.FOUR, Suit.CLUBS, 0),
+        new Card(Face.KING, Suit.HEARTS, 0),
+        new Card(Face.NINE, Suit.SPADES, 0)));
+    long mask = PickupFilter.handMask(hand);
+
+    assertFalse(PickupFilter.canConnect(mask, new Card(Face.SEVEN, Suit.CLUBS, 0), null));
+    assertTrue(PickupFilter.canConnect(mask, new Card(Face.SIX, Suit.CLUBS, 1), null));
+    assertTrue(PickupFilter.canConnect(mask, new Card(Face.NINE, Suit.HEARTS, 1), null));
+    // Q-K-A wraps around.
+    assertTrue(PickupFilter.canConnect(mask, new Card(Face.ACE, Suit.HEARTS, 0), null));
+    assertFalse(PickupFilter.canConnect(mask, new Card(Face.TWO, Suit.HEARTS, 0), null));
+    // Jokers connect to anything.
+    assertTrue(PickupFilter.canConnect(mask, new Card(1), null));
+    assertTrue(PickupFilter.canConnect(mask, new Card(Face.SEVEN, Suit.CLUBS, 0), Face.SEVEN));
+  }
+
+  @Test
+  public void testNeverRejectsCardInPart() {
+    AggregateTokenizer tokenizer = new AggregateTokenizer();
+    for (int seed = 0; seed < 200; seed++) {
+      Deck deck = new Deck(2, 4, seed);
+      deck.shuffle();
+      Hand hand = new Hand();
+      for (int i = 0; i < 13; i++) {
+        hand.cards.add(deck.draw());
+      }
+      Face faceJoker = Face.values()[seed % 13];
+      Card card = deck.draw();
+      if (PickupFilter.canConnect(PickupFilter.handMask(hand), card, faceJoker)) {
+        continue;
+      }
+      Hand newHand = new Hand(hand);
+      newHand.cards.add(card);
+      for (Part part : tokenizer.tokenize(newHand, faceJoker)) {
+        assertTrue(part.type == PartType.SINGLE || !part.cards.contains(card));
+      }
+    }
+  }
+}
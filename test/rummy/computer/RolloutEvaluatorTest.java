@@ -0,0 +1,92 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import rummy.core.Card;
+import rummy.core.Deck;
+import rummy.parts.SolutionCache;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Unit tests for {@link RolloutEvaluator}.
+ */
+public class RolloutEvaluatorTest {
+
+  @Test
+  public void testRolloutsLeaveDeckUntouched() {
+    Deck deck = new Deck(2, 4, 29L);
+    Deck control = new Deck(2, 4, 29L);
+    deck.shuffle();
+    control.shuffle();
+    Computer computer = new Computer(null /* faceJoker */, ScorerFactory.COMPLEX);
+    computer.setRolloutEvaluator(new RolloutEvaluator(
+        4, TimeUnit.SECONDS.toNanos(1), ForkJoinPool.commonPool(), new SolutionCache()));
+    computer.setCardTracker(new CardTracker(2, 4));
+    computer.drawNewHand(deck);
+    computer.getCardTracker().onSeen(computer.hand.cards);
+    new Computer(null /* faceJoker */, ScorerFactory.COMPLEX).drawNewHand(control);
+
+    for (int turn = 0; turn < 3; turn++) {
+      Card top = deck.draw();
+      computer.getCardTracker().onDiscard(top, false /* ownCard */);
+      computer.checkPickup(top, deck);
+      Card drawn = deck.draw();
+      computer.getCardTracker().onSeen(drawn);
+      computer.drawAndDiscard(drawn, deck);
+      control.draw();
+      control.draw();
+    }
+    deck.shuffle();
+    control.shuffle();
+    assertEquals(drawAll(control), drawAll(deck));
+  }
+
+  @Test
+  public void testRolloutsIgnoreDeckOrder() {
+    Deck deck = new Deck(2, 4, 31L);
+    Deck reordered = new Deck(2, 4, 31L);
+    deck.shuffle();
+    reordered.shuffle();
+    Computer computer = rolloutComputer(deck);
+    Computer other = rolloutComputer(reordered);
+    // The same hands, but the undrawn cards in another order.
+    reordered.shuffle();
+
+    List<Card> decisions = new ArrayList<>();
+    List<Card> otherDecisions = new ArrayList<>();
+    for (int turn = 0; turn < 5; turn++) {
+      Card drawn = deck.draw();
+      for (Computer c : new Computer[] {computer, other}) {
+        c.getCardTracker().onSeen(drawn);
+      }
+      decisions.add(computer.drawAndDiscard(drawn, deck));
+      otherDecisions.add(other.drawAndDiscard(drawn, reordered));
+    }
+    assertEquals(decisions, otherDecisions);
+  }
+
+  private static Computer rolloutComputer(Deck deck) {
+    Computer computer = new Computer(null /* faceJoker */, ScorerFactory.COMPLEX);
+    computer.setRolloutEvaluator(new RolloutEvaluator(
+        8, TimeUnit.SECONDS.toNanos(5), ForkJoinPool.commonPool(), new SolutionCache()));
+    computer.setCardTracker(new CardTracker(2, 4));
+    computer.drawNewHand(deck);
+    computer.getCardTracker().onSeen(computer.hand.cards);
+    return computer;
+  }
+
+  private static List<Card> drawAll(Deck deck) {
+    List<Card> drawn = new ArrayList<>();
+    while (!deck.empty()) {
+      drawn.add(deck.draw());
+    }
+    return drawn;
+  }
+}
@@ -0,0 +1,47 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Sprt}.
+ */
+public class SprtTest {
+
+  @Test
+  public void testDecidesForTheBetterHypothesis() {
+    Random random = new Random(3);
+    Sprt better = new Sprt(0.45, 0.55, 0.05, 0.05);
+    Sprt worse = new Sprt(0.45, 0.55, 0.05, 0.05);
+    while (better.decision() == Sprt.Decision.CONTINUE
+        || worse.decision() == Sprt.Decision.CONTINUE) {
+      better.add(random.nextDouble() < 0.7 ? 1 : 0);
+      worse.add(random.nextDouble() < 0.3 ? 1 : 0);
+    }
+    assertEquals(Sprt.Decision.ACCEPT_H1, better.decision());
+    assertEquals(Sprt.Decision.ACCEPT_H0, worse.decision());
+    assertTrue(better.count() < 200 && worse.count() < 200);
+  }
+
+  @Test
+  public void testWaitsForEnoughObservations() {
+    Sprt sprt = new Sprt(-2, 2, 0.05, 0.05);
+    for (int i = 0; i < Sprt.MIN_OBSERVATIONS - 1; i++) {
+      sprt.add(10);
+      assertEquals(Sprt.Decision.CONTINUE, sprt.decision());
+    }
+    sprt.add(10);
+    assertEquals(Sprt.Decision.ACCEPT_H1, sprt.decision());
+
+    Sprt even = new Sprt(-2, 2, 0.05, 0.05);
+    for (int i = 0; i < 100; i++) {
+      even.add(i % 2 == 0 ? 5 : -5);
+    }
+    assertEquals(0, even.llr(), 1e-9);
+    assertEquals(Sprt.Decision.CONTINUE, even.decision());
+  }
+}
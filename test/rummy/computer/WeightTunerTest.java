@@ -0,0 +1,66 @@
+package rummy.computer;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import rummy.scorer.ScorerWeights;
+import rummy.scorer.ScorerWeights.Weight;
+
+/**
+ * Unit tests for {@link WeightTuner}.
+ */
+public class WeightTunerTest {
+
+  @Test
+  public void testResumesFromCheckpoint() throws IOException {
+    Path checkpoint = Files.createTempDirectory("tuner").resolve("checkpoint");
+    new WeightTuner(checkpoint)
+        .setGenerations(1)
+        .setBracket(2, 1, 0.2)
+        .setThreads(2)
+        .tune();
+    assertTrue(Files.exists(checkpoint));
+    String saved = new String(Files.readAllBytes(checkpoint), "UTF-8");
+    assertTrue(saved.contains("generation=1\n"));
+
+    // A longer run picks up at the second generation, from the first one's best.
+    new WeightTuner(checkpoint)
+        .setGenerations(2)
+        .setBracket(2, 1, 0.2)
+        .setThreads(2)
+        .tune();
+    String resumed = new String(Files.readAllBytes(checkpoint), "UTF-8");
+    assertTrue(resumed.contains("generation=2\n"));
+    assertNotEquals(saved, resumed);
+  }
+
+  @Test
+  public void testResumesAgainstCheckpointedBaseline() throws IOException {
+    Path checkpoint = Files.createTempDirectory("tuner").resolve("checkpoint");
+    double[] values = ScorerWeights.DEFAULT.toArray();
+    values[Weight.PICKUP_THRESHOLD.ordinal()] = 1.3;
+    new WeightTuner(checkpoint)
+        .setBaseline(ScorerWeights.of(values))
+        .setGenerations(1)
+        .setBracket(2, 1, 0.2)
+        .setThreads(2)
+        .tune();
+    String saved = new String(Files.readAllBytes(checkpoint), "UTF-8");
+    assertTrue(saved.contains("baseline.pickup_threshold=1.3\n"));
+
+    // Resumed without --baseline, it keeps playing the checkpoint's.
+    new WeightTuner(checkpoint)
+        .setGenerations(2)
+        .setBracket(2, 1, 0.2)
+        .setThreads(2)
+        .tune();
+    String resumed = new String(Files.readAllBytes(checkpoint), "UTF-8");
+    assertTrue(resumed.contains("baseline.pickup_threshold=1.3\n"));
+  }
+}
@@ -0,0 +1,137 @@
+package rummy.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Deck}.
+ */
+public class DeckTest {
+
+  @Test
+  public void testShuffleIsPermutation() {
+    Deck deck = new Deck(2, 4, 7L);
+    deck.shuffle();
+    Set<Integer> ids = new HashSet<>();
+    while (!deck.empty()) {
+      ids.add(deck.draw().id());
+    }
+    assertEquals(108, ids.size());
+  }
+
+  @Test
+  public void testSameSeedSameOrder() {
+    assertEquals(drawAll(shuffled(new Deck(2, 4, 11L))), drawAll(shuffled(new Deck(2, 4, 11L))));
+  }
+
+  @Test
+  public void testResetReturnsAllCards() {
+    Deck deck = shuffled(new Deck(1, 2, 3L));
+    for (int i = 0; i < 20; i++) {
+      deck.addToDiscard(deck.draw());
+    }
+    deck.reset();
+    deck.shuffle();
+    assertEquals(54, drawAll(deck).size());
+  }
+
+  @Test
+  public void testReshuffleDiscardPile() {
+    Deck deck = shuffled(new Deck(1, 0, 5L));
+    List<Card> held = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      held.add(deck.draw());
+    }
+    deck.addToDiscard(held.get(3));
+    deck.addToDiscard(held.get(7));
+    deck.reshuffleDiscardPile();
+
+    assertEquals(44, deck.size());
+    List<Card> remaining = drawAll(deck);
+    assertTrue(remaining.contains(held.get(3)));
+    assertTrue(remaining.contains(held.get(7)));
+    assertTrue(!remaining.contains(held.get(0)));
+  }
+
+  @Test
+  public void testSnapshotRestore() {
+    Deck deck = shuffled(new Deck(2, 4, 13L));
+    deck.draw();
+    Deck.Snapshot snapshot = deck.newSnapshot();
+    deck.save(snapshot);
+
+    deck.shuffle();
+    List<Card> first = drawAll(deck);
+    deck.restore(snapshot);
+    deck.shuffle();
+    assertEquals(first, drawAll(deck));
+  }
+
+  @Test
+  public void testForkIsDeterministicAndIndependent() {
+    Deck deck1 = shuffled(new Deck(2, 4, 17L));
+    Deck deck2 = shuffled(new Deck(2, 4, 17L));
+    Deck fork1 = deck1.fork();
+    Deck fork2 = new Deck(2, 4, 0L);
+    deck2.forkInto(fork2);
+
+    fork1.shuffle();
+    fork2.shuffle();
+    assertEquals(drawAll(fork1), drawAll(fork2));
+    assertEquals(drawAll(deck1), drawAll(deck2));
+  }
+
+  @Test
+  public void testForkLeavesDeckUntouched() {
+    Deck deck = shuffled(new Deck(2, 4, 23L));
+    Deck control = shuffled(new Deck(2, 4, 23L));
+    Deck scratch = new Deck(2, 4, 0L);
+    for (int i = 0; i < 5; i++) {
+      deck.fork().shuffle();
+      deck.forkInto(scratch);
+      scratch.shuffle();
+    }
+    deck.shuffle();
+    control.shuffle();
+    assertEquals(drawAll(control), drawAll(deck));
+  }
+
+  @Test
+  public void testShuffleIsUnbiased() {
+    // Each of 4 cards should land on top about a quarter of the time.
+    Deck deck = new Deck(1, 0, 19L);
+    for (int i = 0; i < 48; i++) {
+      deck.draw();
+    }
+    int[] topCounts = new int[52];
+    Deck.Snapshot snapshot = deck.newSnapshot();
+    deck.save(snapshot);
+    for (int i = 0; i < 40000; i++) {
+      deck.shuffle();
+      topCounts[deck.peek(deck.size() - 1).value]++;
+    }
+    for (int count : topCounts) {
+      assertTrue(count == 0 || Math.abs(count - 10000) < 500);
+    }
+  }
+
+  private static Deck shuffled(Deck deck) {
+    deck.shuffle();
+    return deck;
+  }
+
+  private static List<Card> drawAll(Deck deck) {
+    List<Card> drawn = new ArrayList<>();
+    while (!deck.empty()) {
+      drawn.add(deck.draw());
+    }
+    return drawn;
+  }
+}
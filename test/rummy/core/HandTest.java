@@ -0,0 +1,37 @@
+package rummy.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Hand}.
+ */
+public class HandTest {
+
+  @Test
+  public void testParseNumbersCopies() {
+    Hand hand = Hand.parse("AH AH AH AH jk jk jk7 jk");
+    Set<Integer> ids = new HashSet<>();
+    for (Card card : hand.cards) {
+      ids.add(card.id());
+    }
+    assertEquals(hand.cards.size(), ids.size());
+    assertEquals(3, hand.cards.get(3).deckIdx);
+    assertEquals(8, hand.cards.get(7).jokerIdx);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseRejectsFifthCopy() {
+    // A fifth A♥ would get jk1's id.
+    Hand.parse("AH AH AH AH AH");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseRejectsJokerPastMax() {
+    Hand.parse("jk" + (Card.MAX_JOKERS + 1));
+  }
+}
@@ -0,0 +1,89 @@
+package rummy.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.Deck;
+import rummy.core.Hand;
+
+/**
+ * Unit tests for {@link FeatureKernel}.
+ */
+public class FeatureKernelTest {
+
+  @Test
+  public void testRunsSetsAndDeadwood() {
+    Hand hand = new Hand();
+    hand.cards.addAll(Arrays.asList(
+        // Q-K-A of hearts wraps around.
+        new Card(Face.QUEEN, Suit.HEARTS, 0),
+        new Card(Face.KING, Suit.HEARTS, 0),
+        new Card(Face.ACE, Suit.HEARTS, 0),
+        // A set of sevens.
+        new Card(Face.SEVEN, Suit.HEARTS, 0),
+        new Card(Face.SEVEN, Suit.SPADES, 0),
+        new Card(Face.SEVEN, Suit.CLUBS, 0),
+        // Deadwood.
+        new Card(Face.TWO, Suit.DIAMONDS, 0),
+        new Card(Face.FOUR, Suit.DIAMONDS, 0),
+        new Card(Face.JACK, Suit.CLUBS, 0)));
+    HandFeatures features = HandFeatures.of(hand, null);
+
+    assertTrue(features.hasNatural(0));
+    assertEquals(1 << 11, features.runStarts(0, Suit.HEARTS.ordinal()));
+    assertEquals(1 << Face.SEVEN.ordinal(), features.setFaces(0));
+    assertEquals(1, features.setCount(0));
+    assertEquals(2 + 4 + 10, features.deadwood(0));
+  }
+
+  @Test
+  public void testJokersMakeNoNaturalRun() {
+    Hand hand = new Hand();
+    hand.cards.addAll(Arrays.asList(
+        new Card(Face.FIVE, Suit.SPADES, 0),
+        new Card(1),
+        new Card(Face.SEVEN, Suit.SPADES, 0)));
+    HandFeatures features = HandFeatures.of(hand, null);
+
+    assertFalse(features.hasNatural(0));
+    assertEquals(5 + 7, features.deadwood(0));
+  }
+
+  @Test
+  public void testBestMatchesScalar() {
+    HandBatch batch = new HandBatch(4);
+    Deck deck = new Deck(2, 2, 7);
+    // Not a multiple of any vector length, so the last hands take the scalar tail.
+    for (int i = 0; i < 203; i++) {
+      deck.reset();
+      deck.shuffle();
+      Face faceJoker = deck.draw().face;
+      Hand hand = new Hand();
+      for (int j = 0; j < 14; j++) {
+        hand.cards.add(deck.draw());
+      }
+      batch.add(hand, faceJoker);
+    }
+    HandFeatures scalar = new HandFeatures(0);
+    FeatureKernel.SCALAR.compute(batch, scalar);
+    HandFeatures best = new HandFeatures(0);
+    FeatureKernel.best().compute(batch, best);
+
+    assertEquals(batch.size(), best.size());
+    for (int i = 0; i < batch.size(); i++) {
+      for (int suit = 0; suit < HandBatch.NUM_SUITS; suit++) {
+        assertEquals(scalar.runStarts(i, suit), best.runStarts(i, suit));
+      }
+      assertEquals(scalar.setFaces(i), best.setFaces(i));
+      assertEquals(scalar.deadwood(i), best.deadwood(i));
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package rummy.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link GameEventWriter} and {@link GameEventReader}.
+ */
+public class GameEventWriterTest {
+
+  @Test
+  public void testReopenedLogAppendsSegments() throws IOException {
+    Path directory = Files.createTempDirectory("events");
+    try (GameEventWriter eventLog = new GameEventWriter(directory, 300)) {
+      eventLog.gameStart(2, 1);
+    }
+    try (GameEventWriter eventLog = new GameEventWriter(directory, 300)) {
+      eventLog.gameStart(2, 2);
+    }
+    assertTrue(Files.exists(GameEventWriter.segmentPath(directory, 1)));
+
+    try (GameEventReader reader = new GameEventReader(directory)) {
+      assertTrue(reader.next());
+      assertEquals(1, reader.payloadLong(1));
+      assertTrue(reader.next());
+      assertEquals(2, reader.payloadLong(1));
+      assertFalse(reader.next());
+    }
+  }
+
+  @Test
+  public void testDeclarePointsAboveAByte() throws IOException {
+    Path directory = Files.createTempDirectory("events");
+    try (GameEventWriter eventLog = new GameEventWriter(directory)) {
+      eventLog.declare(1, new int[] {240, 0, 1000});
+    }
+    try (GameEventReader reader = new GameEventReader(directory)) {
+      assertTrue(reader.next());
+      assertEquals(GameEventType.DECLARE, reader.type());
+      assertEquals(6, reader.payloadBytes());
+      assertEquals(240, reader.payloadShort(0));
+      assertEquals(0, reader.payloadShort(2));
+      assertEquals(1000, reader.payloadShort(4));
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package rummy.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import rummy.bench.HandCorpus;
+import rummy.core.Hand;
+import rummy.log.HandCapture.CapturedHand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SolutionCache;
+import rummy.parts.SolverEngine;
+
+/**
+ * Unit tests for {@link HandCapture}.
+ */
+public class HandCaptureTest {
+
+  @Test
+  public void testCapturedHandsReplayAndRotate() throws IOException {
+    Path directory = Files.createTempDirectory("capture");
+    HandCorpus corpus = HandCorpus.random(30, 14, 2, 2, 7);
+    SolverEngine engine = SolverEngine.builder().build();
+    Solution[] solutions = new Solution[corpus.size()];
+    // Small files, so the corpus rotates and drops its oldest hands.
+    try (HandCapture capture = new HandCapture(directory, Long.MAX_VALUE, 1, 1000, 2)) {
+      for (int i = 0; i < corpus.size(); i++) {
+        solutions[i] = engine.solve(corpus.hands.get(i), corpus.faceJokers.get(i), true);
+        assertTrue(solutions[i].nodes > 0);
+        assertTrue(capture.offer(corpus.hands.get(i), corpus.faceJokers.get(i), true, "complex",
+            1000, solutions[i]));
+      }
+      assertFalse(capture.isSlow(1000, 0));
+    }
+    assertFalse(Files.exists(HandCapture.filePath(directory, 1)));
+
+    List<CapturedHand> captured = HandCapture.read(directory);
+    assertTrue(captured.size() > 0 && captured.size() < corpus.size());
+    int offset = corpus.size() - captured.size();
+    for (int i = 0; i < captured.size(); i++) {
+      CapturedHand hand = captured.get(i);
+      assertEquals(corpus.hands.get(offset + i).cards, hand.hand.cards);
+      assertEquals(corpus.faceJokers.get(offset + i), hand.faceJoker);
+      assertEquals(solutions[offset + i].score, hand.score);
+      assertEquals(solutions[offset + i].nodes, hand.nodes);
+      assertEquals(1, hand.latencyMicros);
+    }
+  }
+
+  @Test
+  public void testCacheCapturesOnlyItsSolves() throws IOException {
+    Path directory = Files.createTempDirectory("capture");
+    Hand hand = HandCorpus.random(1, 14, 2, 2, 7).hands.get(0);
+    SolverEngine engine = SolverEngine.builder().build();
+    SolutionCache cache = new SolutionCache();
+    try (HandCapture capture = new HandCapture(directory, 0, Long.MAX_VALUE)) {
+      cache.get(hand, null, true, engine, capture);
+      cache.get(hand, null, true, engine, capture);
+    }
+    assertEquals(1, HandCapture.read(directory).size());
+  }
+}
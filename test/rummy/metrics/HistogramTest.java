@@ -0,0 +1,36 @@
+package rummy.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Histogram}.
+ */
+public class HistogramTest {
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE}) {
+      int bucket = Histogram.bucket(value);
+      assertTrue(value <= Histogram.bucketMax(bucket));
+      assertTrue(bucket == 0 || value > Histogram.bucketMax(bucket - 1));
+    }
+  }
+
+  @Test
+  public void testQuantilesWithinBucketWidth() {
+    Histogram histogram = new Histogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(1000, histogram.count());
+    assertEquals(500500000L, histogram.sum());
+    long median = histogram.valueAtQuantile(0.5);
+    assertTrue(median >= 500000 && median <= 500000 * 17 / 16);
+    long max = histogram.valueAtQuantile(1);
+    assertTrue(max >= 1000000 && max <= 1000000 * 17 / 16);
+    assertEquals(0, new Histogram().valueAtQuantile(0.99));
+  }
+}
@@ -0,0 +1,53 @@
+package rummy.metrics;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Unit tests for {@link PrometheusReporter}.
+ */
+public class PrometheusReporterTest {
+
+  @Test
+  public void testTextFormat() throws IOException {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("hits_total", "Hits.").add(3);
+    registry.timer("solve_seconds", "Solve time.", "scorer", "complex").record(2000000000L);
+    registry.timer("solve_seconds", "Solve time.", "scorer", "simple").record(1000);
+
+    StringWriter text = new StringWriter();
+    PrometheusReporter.write(registry, text);
+    String output = text.toString();
+    assertTrue(output.contains("# TYPE hits_total counter\nhits_total 3\n"));
+    assertTrue(output.contains("solve_seconds_count{scorer=\"complex\"} 1\n"));
+    assertTrue(output.contains("solve_seconds_sum{scorer=\"complex\"} 2.0\n"));
+    assertTrue(output.contains("solve_seconds{scorer=\"simple\",quantile=\"0.5\"}"));
+    // One header per name, though it has two label sets.
+    String header = "# TYPE solve_seconds";
+    assertTrue(output.indexOf(header) == output.lastIndexOf(header));
+  }
+
+  @Test
+  public void testServesMetrics() throws IOException {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("hits_total", "Hits.").increment();
+    PrometheusReporter reporter = new PrometheusReporter(0 /* any port */);
+    reporter.start(registry);
+    try (InputStream in =
+        new URL("http://localhost:" + reporter.getPort() + "/metrics").openStream()) {
+      String body = new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+      assertTrue(body.contains("hits_total 1\n"));
+    } finally {
+      reporter.close();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package rummy.parts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import rummy.core.Deck;
+import rummy.core.Hand;
+import rummy.parts.BatchSolver.BatchResult;
+import rummy.parts.PartsSolver.Solution;
+import rummy.scorer.ScorerFactory;
+import rummy.tokenizer.AggregateTokenizer;
+
+/**
+ * Unit tests for {@link BatchSolver}.
+ */
+public class BatchSolverTest {
+
+  @Test
+  public void testMatchesSingleSolves() {
+    List<Hand> hands = randomHands(40, 14);
+    BatchSolver batchSolver = new BatchSolver(4);
+    final List<Integer> emitted = new ArrayList<>();
+    BatchResult result = batchSolver.solveBatch(
+        hands, null, ScorerFactory.COMPLEX, new BatchSolver.Listener() {
+          @Override
+          public void onSolution(int index, Hand hand, Solution solution) {
+            emitted.add(index);
+          }
+        });
+    batchSolver.shutdown();
+
+    assertEquals(hands.size(), result.solutions.size());
+    assertTrue(result.handsPerSecond() > 0);
+    for (int i = 0; i < hands.size(); i++) {
+      assertEquals(i, (int) emitted.get(i));
+      Solution expected = new PartsSolver(
+          new AggregateTokenizer().tokenize(hands.get(i), null), true, ScorerFactory.COMPLEX)
+          .findBestHand();
+      Solution actual = result.solutions.get(i);
+      assertEquals(expected.score, actual.score);
+      assertEquals(expected.points, actual.points);
+      assertEquals(1, actual.freeCards.size());
+    }
+  }
+
+  static List<Hand> randomHands(int numHands, int handSize) {
+    List<Hand> hands = new ArrayList<>();
+    for (int i = 0; i < numHands; i++) {
+      Deck deck = new Deck(2, 2, i);
+      deck.shuffle();
+      Hand hand = new Hand();
+      for (int j = 0; j < handSize; j++) {
+        hand.cards.add(deck.draw());
+      }
+      hands.add(hand);
+    }
+    return hands;
+  }
+}
@@ -0,0 +1,73 @@
+package rummy.parts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SolverEngine.Algorithm;
+import rummy.scorer.ScoreUtil;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Unit tests for {@link MemoizedSolver}.
+ */
+public class MemoizedSolverTest {
+
+  @Test
+  public void testNeverWorseThanExactBacktracking() {
+    for (ScorerFactory scorerFactory : new ScorerFactory[] {
+        ScorerFactory.SIMPLE, ScorerFactory.COMPLEX}) {
+      SolverEngine engine = SolverEngine.builder()
+          .scorerFactory(scorerFactory)
+          .pruningPolicy(PruningPolicy.EXACT)
+          .build();
+      for (Hand hand : BatchSolverTest.randomHands(30, 14)) {
+        Solution backtracking = engine.solve(hand, null, true, Algorithm.BACKTRACKING);
+        Solution memoized = engine.solve(hand, null, true, Algorithm.MEMOIZED);
+        assertNotNull(memoized.parts);
+        assertEquals(1, memoized.freeCards.size());
+        assertTrue(memoized.points < backtracking.points
+            || (memoized.points == backtracking.points && memoized.score >= backtracking.score));
+      }
+    }
+  }
+
+  @Test
+  public void testScoreMatchesScorer() {
+    SolverEngine engine = SolverEngine.builder()
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .algorithm(Algorithm.MEMOIZED)
+        .build();
+    for (Hand hand : BatchSolverTest.randomHands(30, 14)) {
+      Solution solution = engine.solve(hand, null);
+      PartTable table = new PartTable();
+      table.load(solution.parts);
+      int[] partIdxs = new int[table.size()];
+      for (int i = 0; i < partIdxs.length; i++) {
+        partIdxs[i] = i;
+      }
+      assertEquals(ScorerFactory.COMPLEX.get().scoreParts(table, partIdxs, partIdxs.length),
+          solution.score);
+      assertEquals(ScoreUtil.calculatePoints(table, partIdxs, partIdxs.length), solution.points);
+    }
+  }
+
+  @Test
+  public void testSmallMemoStillExact() {
+    SolverEngine engine = SolverEngine.builder()
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .build();
+    MemoizedSolver small = new MemoizedSolver(
+        13, ScorerFactory.COMPLEX, PruningPolicy.HEURISTIC, engine.getMoveOrdering(), 2);
+    for (Hand hand : BatchSolverTest.randomHands(20, 14)) {
+      Solution expected = engine.solve(hand, null, true, Algorithm.MEMOIZED);
+      Solution actual = small.solve(engine.tokenize(hand, null), true);
+      assertEquals(expected.score, actual.score);
+      assertEquals(expected.points, actual.points);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package rummy.parts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.scorer.ScorerFactory;
+import rummy.tokenizer.AggregateTokenizer;
+
+/**
+ * Unit tests for {@link MoveOrdering}.
+ */
+public class MoveOrderingTest {
+
+  @Test
+  public void testValueOrderIgnoresInputOrder() {
+    Hand hand = Hand.parse("3H 4H 5H 6H 5S 5D 5C 9S 10S JS QC jk 7D 7H");
+    List<Part> parts = new ArrayList<>(new AggregateTokenizer().tokenize(hand, null));
+    List<Part> ordered = MoveOrdering.BY_VALUE.order(parts);
+    Collections.reverse(parts);
+    assertEquals(ordered, MoveOrdering.BY_VALUE.order(parts));
+
+    for (int i = 1; i < ordered.size(); i++) {
+      Part previous = ordered.get(i - 1);
+      Part part = ordered.get(i);
+      assertTrue(previous.type.ordinal() <= part.type.ordinal());
+      if (previous.type == part.type) {
+        assertTrue(previous.cards.size() >= part.cards.size());
+      }
+    }
+  }
+
+  @Test
+  public void testMostConstrainedCardFormsFullHands() {
+    SolverEngine engine = SolverEngine.builder()
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .moveOrdering(MoveOrdering.MOST_CONSTRAINED_CARD)
+        .build();
+    for (Hand hand : BatchSolverTest.randomHands(20, 14)) {
+      Solution solution = engine.solve(hand, null, true);
+      int numCards = 0;
+      for (Part part : solution.parts) {
+        numCards += part.cards.size();
+      }
+      assertEquals(13, numCards);
+      assertEquals(1, solution.freeCards.size());
+    }
+  }
+}
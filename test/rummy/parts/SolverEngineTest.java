@@ -0,0 +1,172 @@
+package rummy.parts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rummy.bench.HandCorpus;
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Card.Suit;
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SolverEngine.Algorithm;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Unit tests for {@link SolverEngine}.
+ */
+public class SolverEngineTest {
+
+  @Test
+  public void testSharedDefaultEngine() {
+    SolverEngine engine = SolverEngine.forScorer(ScorerFactory.SIMPLE);
+    assertSame(engine, SolverEngine.forScorer(ScorerFactory.SIMPLE));
+    assertEquals(13, engine.getHandSize());
+    assertSame(PruningPolicy.HEURISTIC, engine.getPruningPolicy());
+  }
+
+  @Test
+  public void testReusedScratchMatchesFreshSolver() {
+    SolverEngine engine = SolverEngine.forScorer(ScorerFactory.COMPLEX);
+    for (Hand hand : BatchSolverTest.randomHands(20, 13)) {
+      Solution expected = new PartsSolver(
+          engine.tokenize(hand, null), false, ScorerFactory.COMPLEX).findBestHand();
+      Solution actual = engine.solve(hand, null);
+      assertEquals(expected.score, actual.score);
+      assertEquals(expected.points, actual.points);
+    }
+  }
+
+  @Test
+  public void testAggressivePruningAlwaysFormsHand() {
+    SolverEngine engine = SolverEngine.builder()
+        .handSize(21)
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .pruningPolicy(PruningPolicy.AGGRESSIVE)
+        .build();
+    // Pruning leaves the memoized search no hand for some of these.
+    HandCorpus corpus = HandCorpus.random(200, 22, 3, 3, 5);
+    for (int i = 0; i < corpus.size(); i++) {
+      Solution solution = engine.solve(
+          corpus.hands.get(i), corpus.faceJokers.get(i), true, Algorithm.MEMOIZED);
+      assertTrue(solution.parts != null);
+      assertEquals(1, solution.freeCards.size());
+    }
+  }
+
+  @Test
+  public void testExactNeverWorse() {
+    SolverEngine heuristic = SolverEngine.forScorer(ScorerFactory.COMPLEX);
+    SolverEngine exact = SolverEngine.builder()
+        .scorerFactory(ScorerFactory.COMPLEX)
+        .pruningPolicy(PruningPolicy.EXACT)
+        .build();
+    List<Hand> hands = BatchSolverTest.randomHands(20, 14);
+    for (Hand hand : hands) {
+      Solution exactSolution = exact.solve(hand, null);
+      Solution heuristicSolution = heuristic.solve(hand, null);
+      assertTrue(exactSolution.score >= heuristicSolution.score);
+    }
+  }
+
+  @Test
+  public void testBudgetedLargeHands() {
+    SolverEngine engine = SolverEngine.builder()
+        .handSize(21)
+        .nodeBudget(20000)
+        .build();
+    HandCorpus corpus = HandCorpus.random(10, 22, 3, 3, 7);
+    for (int i = 0; i < corpus.size(); i++) {
+      Hand hand = corpus.hands.get(i);
+      Solution solution = engine.solve(hand, corpus.faceJokers.get(i));
+      int numCards = 0;
+      for (Part part : solution.parts) {
+        numCards += part.cards.size();
+      }
+      assertEquals(21, numCards);
+      assertEquals(1, solution.freeCards.size());
+    }
+  }
+
+  @Test
+  public void testAnnealingFormsDeterministicHands() {
+    SolverEngine engine = SolverEngine.builder().handSize(21).annealing(2000, 3).build();
+    HandCorpus corpus = HandCorpus.random(5, 22, 3, 3, 11);
+    for (int i = 0; i < corpus.size(); i++) {
+      Hand hand = corpus.hands.get(i);
+      Solution solution = engine.solve(hand, corpus.faceJokers.get(i), true, Algorithm.ANNEALING);
+      int numCards = 0;
+      for (Part part : solution.parts) {
+        numCards += part.cards.size();
+      }
+      assertEquals(21, numCards);
+      assertEquals(1, solution.freeCards.size());
+
+      Solution again = engine.solve(hand, corpus.faceJokers.get(i), true, Algorithm.ANNEALING);
+      assertEquals(solution.score, again.score);
+      assertEquals(solution.points, again.points);
+    }
+  }
+
+  @Test
+  public void testStreamingClosesWinningHand() {
+    SolverEngine eager = SolverEngine.forScorer(ScorerFactory.COMPLEX);
+    SolverEngine streaming = SolverEngine.builder().streaming(true).build();
+    Hand hand = new Hand();
+    hand.cards.addAll(Arrays.asList(
+        new Card(Face.TWO, Suit.HEARTS, 0),
+        new Card(Face.THREE, Suit.HEARTS, 0),
+        new Card(Face.FOUR, Suit.HEARTS, 0),
+        new Card(Face.FIVE, Suit.HEARTS, 0),
+        new Card(Face.NINE, Suit.SPADES, 0),
+        new Card(Face.TEN, Suit.SPADES, 0),
+        new Card(Face.JACK, Suit.SPADES, 0),
+        new Card(Face.KING, Suit.HEARTS, 0),
+        new Card(Face.KING, Suit.CLUBS, 0),
+        new Card(Face.KING, Suit.DIAMONDS, 0),
+        new Card(Face.SIX, Suit.SPADES, 1),
+        new Card(Face.SIX, Suit.CLUBS, 1),
+        new Card(Face.SIX, Suit.DIAMONDS, 1),
+        new Card(Face.EIGHT, Suit.CLUBS, 1)));
+    Solution solution = streaming.solve(hand, null, true);
+    assertTrue(solution.isWinning);
+    assertEquals(new Card(Face.EIGHT, Suit.CLUBS, 1), solution.freeCards.get(0));
+
+    // Hands that don't close are solved as usual.
+    for (Hand random : BatchSolverTest.randomHands(20, 14)) {
+      Solution expected = eager.solve(random, null, true);
+      Solution actual = streaming.solve(random, null, true);
+      assertEquals(expected.isWinning, actual.isWinning);
+      if (!expected.isWinning) {
+        assertEquals(expected.score, actual.score);
+        assertEquals(expected.points, actual.points);
+      }
+    }
+  }
+
+  @Test
+  public void testRepairCoversNewHand() {
+    SolverEngine engine = SolverEngine.forScorer(ScorerFactory.COMPLEX);
+    for (Hand hand : BatchSolverTest.randomHands(20, 14)) {
+      Hand dealt = new Hand(hand);
+      dealt.cards.remove(13);
+      Solution previous = engine.solve(dealt, null, false);
+
+      Solution repaired = engine.repair(hand, null, true, previous);
+      Set<Card> covered = new HashSet<>(repaired.freeCards);
+      for (Part part : repaired.parts) {
+        covered.addAll(part.cards);
+      }
+      assertEquals(1, repaired.freeCards.size());
+      assertEquals(new HashSet<>(hand.cards), covered);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package rummy.parts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rummy.core.Card;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.parts.PartsSolver.Solution;
+import rummy.parts.SuitCanonicalizer.Canonical;
+import rummy.scorer.ScorerFactory;
+
+/**
+ * Unit tests for {@link SuitCanonicalizer}.
+ */
+public class SuitCanonicalizerTest {
+
+  @Test
+  public void testRelabelledSuitsShareCanonicalHand() {
+    Hand hand = Hand.parse("AH 2H 3H 5H 5S 5D 9S 10S JS QC jk 7D 7H");
+    Hand swapped = Hand.parse("AS 2S 3S 5S 5H 5C 9H 10H JH QD jk 7C 7S");
+    Hand reordered = Hand.parse("7S jk 7C QD JH 10H 9H 5C 5H 5S 3S 2S AS");
+    Hand canonical = SuitCanonicalizer.canonicalize(hand).hand;
+    assertEquals(canonical.cards, SuitCanonicalizer.canonicalize(swapped).hand.cards);
+    assertEquals(canonical.cards, SuitCanonicalizer.canonicalize(reordered).hand.cards);
+  }
+
+  @Test
+  public void testRestoreUsesOriginalCards() {
+    Hand hand = Hand.parse("AC 2C 3C 4C 5D 5S 5H 9S 9D 9H KH KH jk QS");
+    Canonical canonical = SuitCanonicalizer.canonicalize(hand);
+    Solution solution = SolverEngine.forScorer(ScorerFactory.COMPLEX)
+        .solve(canonical.hand, Face.TWO);
+    Solution restored = canonical.restore(solution);
+
+    assertEquals(solution.score, restored.score);
+    assertEquals(solution.points, restored.points);
+    List<Card> cards = new ArrayList<>(restored.freeCards);
+    for (Part part : restored.parts) {
+      cards.addAll(part.cards);
+    }
+    assertEquals(hand.cards.size(), cards.size());
+    assertEquals(new HashSet<>(hand.cards), new HashSet<>(cards));
+  }
+
+  @Test
+  public void testCacheHitsAcrossSuitRelabelling() {
+    SolutionCache cache = new SolutionCache();
+    SolverEngine engine = SolverEngine.forScorer(ScorerFactory.COMPLEX);
+    Hand hand = Hand.parse("AH 2H 3H 5H 5S 5D 9S 10S JS QC jk 7D 7H");
+    Hand swapped = Hand.parse("AD 2D 3D 5D 5C 5H 9C 10C JC QS jk 7H 7D");
+    Solution first = cache.get(hand, null, false, engine);
+    Solution second = cache.get(swapped, null, false, engine);
+
+    assertEquals(1, cache.missCount());
+    assertEquals(1, cache.hitCount());
+    assertEquals(first.score, second.score);
+    Set<Card> secondCards = new HashSet<>();
+    for (Part part : second.parts) {
+      secondCards.addAll(part.cards);
+    }
+    assertTrue(secondCards.containsAll(swapped.cards));
+  }
+}
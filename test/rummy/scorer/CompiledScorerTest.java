@@ -0,0 +1,95 @@
+package rummy.scorer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rummy.bench.HandCorpus;
+import rummy.core.Card;
+import rummy.parts.Part;
+import rummy.parts.PartTable;
+import rummy.parts.PartType;
+import rummy.scorer.ScorerWeights.Weight;
+import rummy.tokenizer.AggregateTokenizer;
+
+/**
+ * Unit tests for {@link CompiledScorer}.
+ */
+public class CompiledScorerTest {
+
+  @Test
+  public void testMatchesRules() {
+    double[] tuned = ScorerWeights.DEFAULT.toArray();
+    Random random = new Random(5);
+    for (Weight weight : Weight.values()) {
+      tuned[weight.ordinal()] = weight.min + random.nextDouble() * (weight.max - weight.min);
+    }
+    ScorerWeights tunedWeights = ScorerWeights.of(tuned);
+
+    assertMatches(ScorerFactory.SIMPLE, random);
+    assertMatches(ScorerFactory.COMPLEX, random);
+    assertMatches(ScorerFactory.complex(tunedWeights), random);
+  }
+
+  // Scores random hands of random parts, in random order, with the compiled and the rules' scorer.
+  private static void assertMatches(ScorerFactory scorerFactory, Random random) {
+    Scorer compiled = scorerFactory.get();
+    AggregateTokenizer tokenizer = new AggregateTokenizer();
+    HandCorpus corpus = HandCorpus.random(50, 14, 2, 4, random.nextLong());
+    for (int i = 0; i < corpus.size(); i++) {
+      List<Part> parts = new ArrayList<>(
+          tokenizer.tokenize(corpus.hands.get(i), corpus.faceJokers.get(i)));
+      for (int hand = 0; hand < 20; hand++) {
+        Collections.shuffle(parts, random);
+        Set<Part> handParts = new LinkedHashSet<>();
+        Set<Card> used = new HashSet<>();
+        for (Part part : parts) {
+          if (Collections.disjoint(used, part.cards)) {
+            handParts.add(part);
+            used.addAll(part.cards);
+          }
+        }
+        PartTable table = new PartTable();
+        table.load(new ArrayList<>(handParts));
+        int[] partIdxs = new int[table.size()];
+        for (int idx = 0; idx < partIdxs.length; idx++) {
+          partIdxs[idx] = idx;
+        }
+
+        int expected =
+            ((Scorer) scorerFactory.rules()).scoreParts(table, partIdxs, partIdxs.length);
+        assertEquals(expected, compiled.scoreParts(table, partIdxs, partIdxs.length));
+        assertEquals(expected, compiled.scoreParts(handParts));
+        // The rules' scorer keeps counts on its set path, so each hand gets a new one.
+        assertEquals(expected, ((Scorer) scorerFactory.rules()).scoreParts(handParts));
+
+        IncrementalScorer incremental = (IncrementalScorer) compiled;
+        long partValues = 0;
+        for (int idx = 0; idx < table.size(); idx++) {
+          if (table.part(idx).type != PartType.SINGLE) {
+            partValues |= table.valueMask[idx];
+          }
+        }
+        int state = incremental.initialState();
+        int score = 0;
+        for (int idx = 0; idx < table.size(); idx++) {
+          if (table.part(idx).type == PartType.SINGLE) {
+            score += incremental.scoreSingle(table, idx, partValues);
+          } else {
+            score += incremental.scorePart(table, idx, state);
+            state = incremental.nextState(table, idx, state);
+          }
+        }
+        assertEquals(expected, score);
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package rummy.scorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import rummy.scorer.ScorerWeights.Weight;
+
+/**
+ * Unit tests for {@link ScorerWeights}.
+ */
+public class ScorerWeightsTest {
+
+  @Test
+  public void testPropertiesRoundTrip() throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("natural_rummy_1", "1200");
+    properties.setProperty("PICKUP_THRESHOLD", " 1.3 ");
+    ScorerWeights weights = ScorerWeights.fromProperties(properties);
+    assertEquals(1200, weights.get(Weight.NATURAL_RUMMY_1), 0);
+    assertEquals(1.3, weights.get(Weight.PICKUP_THRESHOLD), 0);
+    assertEquals(500, weights.get(Weight.NATURAL_RUMMY_2), 0);
+
+    StringWriter text = new StringWriter();
+    weights.write(text);
+    Properties written = new Properties();
+    written.load(new StringReader(text.toString()));
+    assertEquals(weights, ScorerWeights.fromProperties(written));
+  }
+
+  @Test
+  public void testWeightedScorersNamedApart() {
+    double[] values = ScorerWeights.DEFAULT.toArray();
+    values[Weight.PICKUP_THRESHOLD.ordinal()] = 1.3;
+    ScorerFactory weighted = ScorerFactory.complex(ScorerWeights.of(values));
+    assertEquals("complex", ScorerFactory.complex(ScorerWeights.DEFAULT).getName());
+    assertNotEquals(ScorerFactory.COMPLEX.getName(), weighted.getName());
+    assertEquals(weighted.getName(), ScorerFactory.complex(ScorerWeights.of(values)).getName());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownWeight() {
+    Properties properties = new Properties();
+    properties.setProperty("natural_rummy_4", "1");
+    ScorerWeights.fromProperties(properties);
+  }
+}
@@ -0,0 +1,44 @@
+package rummy.tokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import rummy.bench.HandCorpus;
+import rummy.core.Card.Face;
+import rummy.core.Hand;
+import rummy.parts.Part;
+import rummy.parts.PartType;
+import rummy.tokenizer.StreamingTokenizer.PartStream;
+
+/**
+ * Unit tests for {@link StreamingTokenizer}.
+ */
+public class StreamingTokenizerTest {
+
+  @Test
+  public void testStreamsEveryPartByType() {
+    StreamingTokenizer streamingTokenizer = new StreamingTokenizer();
+    AggregateTokenizer aggregateTokenizer = new AggregateTokenizer();
+    HandCorpus corpus = HandCorpus.random(30, 14, 2, 2, 5);
+    for (int i = 0; i < corpus.size(); i++) {
+      Hand hand = corpus.hands.get(i);
+      Face faceJoker = corpus.faceJokers.get(i);
+      PartStream stream = streamingTokenizer.stream(hand, faceJoker);
+      for (PartType type : PartType.values()) {
+        assertEquals(type, stream.nextType());
+        for (Part part : stream.next()) {
+          assertEquals(type, part.type);
+        }
+      }
+      assertFalse(stream.hasNext());
+
+      Set<Part> expected = aggregateTokenizer.tokenize(hand, faceJoker);
+      assertEquals(expected, stream.pulled());
+      assertEquals(expected, streamingTokenizer.tokenize(hand, faceJoker));
+    }
+  }
+}